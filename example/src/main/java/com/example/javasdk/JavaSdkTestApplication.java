@@ -65,6 +65,32 @@ public class JavaSdkTestApplication implements CommandLineRunner {
         SpringApplication.run(JavaSdkTestApplication.class, args);
     }
 
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static volatile CCAIClient webhookClient;
+    private static volatile String webhookClientId;
+
+    // One client for all webhook requests instead of a new client, and connection pool, per request
+    private static CCAIClient webhookClient() throws Exception {
+        CCAIClient client = webhookClient;
+        if (client != null) {
+            return client;
+        }
+        synchronized (JavaSdkTestApplication.class) {
+            if (webhookClient == null) {
+                String clientId = System.getProperty("CCAI_CLIENT_ID", System.getenv("CCAI_CLIENT_ID"));
+                String apiKey = System.getProperty("CCAI_API_KEY", System.getenv("CCAI_API_KEY"));
+
+                if (clientId == null || apiKey == null) {
+                    throw new Exception("Please set CCAI_CLIENT_ID and CCAI_API_KEY environment variables");
+                }
+
+                webhookClientId = clientId;
+                webhookClient = new CCAIClient(new CCAIConfig(clientId, apiKey, true));
+            }
+            return webhookClient;
+        }
+    }
+
     @PostMapping("/webhook")
     public ResponseEntity<String> handleWebhook(
             @RequestBody String payload,
@@ -72,15 +98,8 @@ public class JavaSdkTestApplication implements CommandLineRunner {
             @RequestHeader Map<String, String> headers) {
         
         try {
-            String clientId = System.getProperty("CCAI_CLIENT_ID", System.getenv("CCAI_CLIENT_ID"));
-            String apiKey = System.getProperty("CCAI_API_KEY", System.getenv("CCAI_API_KEY"));
-
-            if (clientId == null || apiKey == null) {
-                throw new Exception("Please set CCAI_CLIENT_ID and CCAI_API_KEY environment variables");
-            }
-
-            CCAIConfig config = new CCAIConfig(clientId, apiKey, true);
-            CCAIClient client = new CCAIClient(config);
+            CCAIClient client = webhookClient();
+            String clientId = webhookClientId;
 
             System.out.println("=== WEBHOOK RECEIVED ===");
             System.out.println("Payload: " + payload);
@@ -89,7 +108,7 @@ public class JavaSdkTestApplication implements CommandLineRunner {
 
             String secretKey = "your-webhook-secret-key";
 
-            Map<String, Object> payloadMap = new ObjectMapper().readValue(payload, Map.class);
+            Map<String, Object> payloadMap = OBJECT_MAPPER.readValue(payload, Map.class);
             String eventHash = payloadMap.get("eventHash").toString();
 
             boolean isValid = client.getWebhook().validateSignature(
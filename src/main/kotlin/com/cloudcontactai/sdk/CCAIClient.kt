@@ -1,7 +1,11 @@
 package com.cloudcontactai.sdk
 
+import com.cloudcontactai.sdk.campaign.CampaignTracker
+import com.cloudcontactai.sdk.common.AdaptiveLimitStats
+import com.cloudcontactai.sdk.common.AdmissionStats
 import com.cloudcontactai.sdk.common.ApiClient
 import com.cloudcontactai.sdk.common.CCAIConfig
+import com.cloudcontactai.sdk.common.PriorityLaneStats
 import com.cloudcontactai.sdk.contact.ContactService
 import com.cloudcontactai.sdk.sms.SMSService
 import com.cloudcontactai.sdk.email.EmailService
@@ -16,8 +20,29 @@ class CCAIClient(private val config: CCAIConfig) {
     val webhook = WebhookService(config, apiClient)
     val mms = MMSService(config, apiClient)
     val contact = ContactService(config, apiClient)
+
+    private val campaignTracker = lazy { CampaignTracker(sms, email) }
+    val campaigns: CampaignTracker by campaignTracker
+    
+    /**
+     * Queue wait and in-flight counts per priority class, empty unless priority lanes are configured.
+     */
+    fun priorityLaneStats(): List<PriorityLaneStats> = apiClient.priorityLaneStats()
+
+    /**
+     * In-flight payload bytes and requests, null unless admission control is configured.
+     */
+    fun admissionStats(): AdmissionStats? = apiClient.admissionStats()
+
+    /**
+     * Current adaptive concurrency limit per endpoint family, empty unless it is configured.
+     */
+    fun concurrencyLimitStats(): List<AdaptiveLimitStats> = apiClient.concurrencyLimitStats()
     
     fun close() {
-        // Cleanup resources if needed
+        if (campaignTracker.isInitialized()) {
+            campaigns.close()
+        }
+        mms.close()
     }
 }
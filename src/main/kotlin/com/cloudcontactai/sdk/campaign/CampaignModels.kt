@@ -0,0 +1,57 @@
+package com.cloudcontactai.sdk.campaign
+
+import com.cloudcontactai.sdk.email.EmailCampaignStatus
+import com.cloudcontactai.sdk.sms.SMSCampaignStatus
+
+enum class CampaignChannel { SMS, EMAIL }
+
+/**
+ * Channel-neutral snapshot of a campaign's delivery progress.
+ */
+data class CampaignProgress(
+    val campaignId: String,
+    val channel: CampaignChannel,
+    val status: String,
+    val totalMessages: Int,
+    val sentMessages: Int,
+    val failedMessages: Int = 0
+) {
+    val processedMessages: Int get() = sentMessages + failedMessages
+
+    val fraction: Double
+        get() = if (totalMessages > 0) minOf(1.0, processedMessages.toDouble() / totalMessages) else 0.0
+
+    val isTerminal: Boolean get() = CampaignStatuses.isTerminal(status, totalMessages, processedMessages)
+
+    companion object {
+        @JvmStatic
+        fun of(status: SMSCampaignStatus) = CampaignProgress(
+            status.id, CampaignChannel.SMS, status.status, status.totalMessages, status.sentMessages, status.failedMessages
+        )
+
+        @JvmStatic
+        fun of(status: EmailCampaignStatus) = CampaignProgress(
+            status.id, CampaignChannel.EMAIL, status.status, status.totalEmails, status.sentEmails, status.failedEmails
+        )
+    }
+}
+
+object CampaignStatuses {
+    private val TERMINAL = setOf("completed", "complete", "finished", "done", "failed", "cancelled", "canceled", "stopped")
+
+    /**
+     * A campaign is terminal when the API reports a final status or every message has been processed.
+     */
+    @JvmStatic
+    fun isTerminal(status: String, totalMessages: Int, processedMessages: Int): Boolean {
+        return status.lowercase() in TERMINAL || (totalMessages > 0 && processedMessages >= totalMessages)
+    }
+}
+
+interface CampaignListener {
+    fun onProgress(progress: CampaignProgress) {}
+
+    fun onComplete(progress: CampaignProgress) {}
+
+    fun onError(campaignId: String, error: Exception) {}
+}
@@ -0,0 +1,202 @@
+package com.cloudcontactai.sdk.campaign
+
+import com.cloudcontactai.sdk.email.EmailService
+import com.cloudcontactai.sdk.sms.SMSService
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.ThreadLocalRandom
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+data class CampaignTrackerOptions @JvmOverloads constructor(
+    val initialIntervalMs: Long = 2000,
+    val minIntervalMs: Long = 1000,
+    val maxIntervalMs: Long = 60000,
+    val backoffMultiplier: Double = 1.5,
+    val jitter: Double = 0.2,
+    val maxConsecutiveErrors: Int = 5,
+    val fetchThreads: Int = 4
+) {
+    init {
+        require(minIntervalMs > 0) { "Min interval must be positive" }
+        require(maxIntervalMs >= minIntervalMs) { "Max interval must not be below min interval" }
+        require(initialIntervalMs in minIntervalMs..maxIntervalMs) { "Initial interval must be within min and max" }
+        require(backoffMultiplier >= 1.0) { "Backoff multiplier must be at least 1" }
+        require(jitter in 0.0..1.0) { "Jitter must be between 0 and 1" }
+        require(maxConsecutiveErrors > 0) { "Max consecutive errors must be positive" }
+        require(fetchThreads > 0) { "Fetch threads must be positive" }
+    }
+}
+
+/**
+ * Polls campaign status for many campaigns from a single scheduler thread.
+ *
+ * The scheduler thread only keeps time; status requests run on
+ * [CampaignTrackerOptions.fetchThreads] workers, so a slow request delays only its own campaign.
+ *
+ * Each campaign gets its own poll interval: it shortens while messages are flowing and the
+ * campaign is close to done, and backs off while nothing changes. First polls and every
+ * reschedule are jittered so campaigns started together do not poll together. Polling stops
+ * once a campaign reaches a terminal status, and its future completes with the final progress.
+ */
+class CampaignTracker @JvmOverloads constructor(
+    private val sms: SMSService,
+    private val email: EmailService,
+    private val options: CampaignTrackerOptions = CampaignTrackerOptions()
+) : AutoCloseable {
+    private val scheduler: ScheduledExecutorService = Executors.newSingleThreadScheduledExecutor { runnable ->
+        Thread(runnable, "ccai-campaign-tracker").apply { isDaemon = true }
+    }
+    private val fetchers: ExecutorService = run {
+        val threadCount = AtomicInteger()
+        Executors.newFixedThreadPool(options.fetchThreads) { runnable ->
+            Thread(runnable, "ccai-campaign-tracker-fetch-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+        }
+    }
+    private val tracked = ConcurrentHashMap<String, TrackedCampaign>()
+
+    val trackedCount: Int get() = tracked.size
+
+    @JvmOverloads
+    fun trackSms(campaignId: String, listener: CampaignListener? = null): CompletableFuture<CampaignProgress> {
+        return track(campaignId, CampaignChannel.SMS, listener) { CampaignProgress.of(sms.fetchCampaignStatus(it)) }
+    }
+
+    @JvmOverloads
+    fun trackEmail(campaignId: String, listener: CampaignListener? = null): CompletableFuture<CampaignProgress> {
+        return track(campaignId, CampaignChannel.EMAIL, listener) { CampaignProgress.of(email.fetchCampaignStatus(it)) }
+    }
+
+    fun untrack(campaignId: String) {
+        CampaignChannel.values().forEach { channel ->
+            tracked["$channel:$campaignId"]?.let { campaign ->
+                campaign.scheduled?.cancel(false)
+                campaign.future.cancel(false)
+            }
+        }
+    }
+
+    override fun close() {
+        scheduler.shutdownNow()
+        fetchers.shutdownNow()
+        tracked.values.forEach { it.future.cancel(false) }
+        tracked.clear()
+    }
+
+    private fun track(
+        campaignId: String,
+        channel: CampaignChannel,
+        listener: CampaignListener?,
+        fetch: (String) -> CampaignProgress
+    ): CompletableFuture<CampaignProgress> {
+        check(!scheduler.isShutdown) { "Campaign tracker is closed" }
+        val campaign = TrackedCampaign(campaignId, listener, fetch)
+        val existing = tracked.putIfAbsent("$channel:$campaignId", campaign)
+        if (existing != null) {
+            return existing.future
+        }
+        campaign.future.whenComplete { _, _ -> tracked.remove("$channel:$campaignId", campaign) }
+        // Spread first polls across the initial interval
+        schedule(campaign, ThreadLocalRandom.current().nextLong(options.initialIntervalMs + 1))
+        return campaign.future
+    }
+
+    private fun schedule(campaign: TrackedCampaign, delayMs: Long) {
+        if (campaign.future.isDone || scheduler.isShutdown) return
+        try {
+            campaign.scheduled = scheduler.schedule({ submitPoll(campaign) }, delayMs, TimeUnit.MILLISECONDS)
+        } catch (e: RejectedExecutionException) {
+            // Closed while the poll was in flight
+        }
+    }
+
+    private fun submitPoll(campaign: TrackedCampaign) {
+        try {
+            fetchers.execute { poll(campaign) }
+        } catch (e: RejectedExecutionException) {
+            // Closed while the timer was pending
+        }
+    }
+
+    private fun poll(campaign: TrackedCampaign) {
+        if (campaign.future.isDone) return
+        val progress = try {
+            campaign.fetch(campaign.campaignId)
+        } catch (e: Exception) {
+            campaign.consecutiveErrors++
+            notify { campaign.listener?.onError(campaign.campaignId, e) }
+            if (campaign.consecutiveErrors >= options.maxConsecutiveErrors) {
+                campaign.future.completeExceptionally(e)
+            } else {
+                campaign.intervalMs = backOff(campaign.intervalMs)
+                schedule(campaign, jittered(campaign.intervalMs))
+            }
+            return
+        }
+        campaign.consecutiveErrors = 0
+
+        if (progress.isTerminal) {
+            notify { campaign.listener?.onComplete(progress) }
+            campaign.future.complete(progress)
+            return
+        }
+        notify { campaign.listener?.onProgress(progress) }
+        campaign.intervalMs = nextInterval(campaign, progress)
+        schedule(campaign, jittered(campaign.intervalMs))
+    }
+
+    private inline fun notify(block: () -> Unit) {
+        // A failing listener must not stop polling for its campaign
+        try {
+            block()
+        } catch (e: Exception) {
+            // ignored
+        }
+    }
+
+    private fun nextInterval(campaign: TrackedCampaign, progress: CampaignProgress): Long {
+        val now = System.nanoTime()
+        val previous = campaign.lastProgress
+        val elapsedMs = (now - campaign.lastPollNanos) / 1_000_000
+        campaign.lastProgress = progress
+        campaign.lastPollNanos = now
+
+        if (previous == null) return options.initialIntervalMs
+        val delta = progress.processedMessages - previous.processedMessages
+        if (delta <= 0 || elapsedMs <= 0) return backOff(campaign.intervalMs)
+
+        // Aim for a few polls over the estimated remaining time
+        val remaining = (progress.totalMessages - progress.processedMessages).coerceAtLeast(0)
+        val etaMs = remaining.toDouble() * elapsedMs / delta
+        return (etaMs / 4).toLong().coerceIn(options.minIntervalMs, options.maxIntervalMs)
+    }
+
+    private fun backOff(intervalMs: Long): Long {
+        return (intervalMs * options.backoffMultiplier).toLong().coerceIn(options.minIntervalMs, options.maxIntervalMs)
+    }
+
+    private fun jittered(intervalMs: Long): Long {
+        if (options.jitter == 0.0) return intervalMs
+        val factor = 1.0 + ThreadLocalRandom.current().nextDouble(-options.jitter, options.jitter)
+        return (intervalMs * factor).toLong().coerceAtLeast(1)
+    }
+
+    private inner class TrackedCampaign(
+        val campaignId: String,
+        val listener: CampaignListener?,
+        val fetch: (String) -> CampaignProgress
+    ) {
+        val future = CompletableFuture<CampaignProgress>()
+        // Only touched by the campaign's single poll in flight, each handed over through the executors
+        var intervalMs = options.initialIntervalMs
+        var lastProgress: CampaignProgress? = null
+        var lastPollNanos = System.nanoTime()
+        var consecutiveErrors = 0
+        @Volatile var scheduled: ScheduledFuture<*>? = null
+    }
+}
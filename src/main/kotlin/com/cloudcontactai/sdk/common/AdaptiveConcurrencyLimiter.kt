@@ -0,0 +1,176 @@
+package com.cloudcontactai.sdk.common
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+import kotlin.math.sqrt
+
+/**
+ * Settings for the latency-driven concurrency limit applied per endpoint family.
+ *
+ * The limit grows while request latency stays within [rttTolerance] times the long-term
+ * average, shrinks in proportion when latency rises, and is cut by [backoffRatio] whenever
+ * the API answers 429 or 503 or the call fails at the transport level.
+ */
+data class AdaptiveLimitOptions @JvmOverloads constructor(
+    val initialLimit: Int = 20,
+    val minLimit: Int = 1,
+    val maxLimit: Int = 200,
+    val rttTolerance: Double = 1.5,
+    val smoothing: Double = 0.2,
+    val backoffRatio: Double = 0.9,
+    val longWindow: Int = 600
+) {
+    init {
+        require(minLimit > 0) { "Min limit must be positive" }
+        require(maxLimit >= minLimit) { "Max limit must be at least the min limit" }
+        require(initialLimit in minLimit..maxLimit) { "Initial limit must be between min and max limit" }
+        require(rttTolerance >= 1.0) { "RTT tolerance must be at least 1.0" }
+        require(smoothing > 0.0 && smoothing <= 1.0) { "Smoothing must be in (0, 1]" }
+        require(backoffRatio > 0.0 && backoffRatio < 1.0) { "Backoff ratio must be in (0, 1)" }
+        require(longWindow > 0) { "Long window must be positive" }
+    }
+}
+
+data class AdaptiveLimitStats(
+    val family: String,
+    val limit: Int,
+    val inFlight: Int,
+    val queued: Int,
+    val shortRttMs: Double,
+    val longRttMs: Double,
+    val throttled: Long
+)
+
+/**
+ * Gradient-style concurrency limiter for a single endpoint family.
+ */
+class AdaptiveConcurrencyLimiter(
+    private val family: String,
+    private val options: AdaptiveLimitOptions = AdaptiveLimitOptions()
+) {
+    private val lock = ReentrantLock()
+    private val available = lock.newCondition()
+    private var estimatedLimit = options.initialLimit.toDouble()
+    private var inFlight = 0
+    private var queued = 0
+    private var shortRttNanos = 0.0
+    private var longRttNanos = 0.0
+    private var samples = 0L
+    private var throttled = 0L
+
+    val limit: Int get() = lock.withLock { estimatedLimit.toInt() }
+
+    /**
+     * Runs [block] once a slot is free and feeds its latency, or overload, back into the limit.
+     */
+    fun <T> run(block: () -> T): T {
+        acquire()
+        val start = System.nanoTime()
+        var dropped = true
+        try {
+            val result = block()
+            dropped = false
+            return result
+        } catch (e: CCAIException) {
+            dropped = e.statusCode == null || e.statusCode == 429 || e.statusCode == 503
+            throw e
+        } finally {
+            if (dropped) onDropped() else onSample(System.nanoTime() - start)
+        }
+    }
+
+    fun acquire() {
+        lock.withLock {
+            queued++
+            try {
+                while (inFlight >= estimatedLimit.toInt()) {
+                    available.await()
+                }
+            } finally {
+                queued--
+            }
+            inFlight++
+        }
+    }
+
+    /**
+     * Releases a slot and records a successful round trip of [rttNanos].
+     */
+    fun onSample(rttNanos: Long) {
+        lock.withLock {
+            val appLimited = inFlight < estimatedLimit / 2
+            inFlight--
+            val rtt = rttNanos.toDouble()
+            samples++
+            shortRttNanos = rtt
+            longRttNanos = if (samples == 1L) rtt else longRttNanos + (rtt - longRttNanos) / minOf(samples, options.longWindow.toLong())
+            // Let the baseline recover quickly after a sustained slowdown ends
+            if (longRttNanos > shortRttNanos * 2) longRttNanos *= 0.95
+
+            if (!appLimited) {
+                val gradient = (options.rttTolerance * longRttNanos / shortRttNanos).coerceIn(0.5, 1.0)
+                val target = estimatedLimit * gradient + sqrt(estimatedLimit)
+                setLimit(estimatedLimit * (1 - options.smoothing) + target * options.smoothing)
+            }
+            available.signalAll()
+        }
+    }
+
+    /**
+     * Releases a slot after a throttled or failed call and backs the limit off.
+     */
+    fun onDropped() {
+        lock.withLock {
+            inFlight--
+            throttled++
+            setLimit(estimatedLimit * options.backoffRatio)
+            available.signalAll()
+        }
+    }
+
+    fun stats(): AdaptiveLimitStats = lock.withLock {
+        AdaptiveLimitStats(
+            family = family,
+            limit = estimatedLimit.toInt(),
+            inFlight = inFlight,
+            queued = queued,
+            shortRttMs = shortRttNanos / 1_000_000,
+            longRttMs = longRttNanos / 1_000_000,
+            throttled = throttled
+        )
+    }
+
+    private fun setLimit(value: Double) {
+        estimatedLimit = value.coerceIn(options.minLimit.toDouble(), options.maxLimit.toDouble())
+    }
+}
+
+/**
+ * One [AdaptiveConcurrencyLimiter] per endpoint family, created on first use.
+ *
+ * Path segments that are identifiers are collapsed so `/campaigns/123/status` and
+ * `/campaigns/456/status` share a limit.
+ */
+class AdaptiveConcurrencyLimits(private val options: AdaptiveLimitOptions, private val clientId: String) {
+    private val limiters = ConcurrentHashMap<String, AdaptiveConcurrencyLimiter>()
+
+    fun forEndpoint(method: String, url: String, path: String): AdaptiveConcurrencyLimiter {
+        val family = "${method.uppercase()} ${familyPath(url, path)}"
+        return limiters.computeIfAbsent(family) { AdaptiveConcurrencyLimiter(it, options) }
+    }
+
+    fun stats(): List<AdaptiveLimitStats> = limiters.values.map { it.stats() }.sortedBy { it.family }
+
+    private fun familyPath(url: String, path: String): String {
+        val host = url.substringAfter("://").substringBefore('/')
+        val family = path.substringBefore('?').split('/').filter { it.isNotEmpty() }.joinToString("/") { segment ->
+            when {
+                segment == clientId -> "{clientId}"
+                segment.any { it.isDigit() } -> "{id}"
+                else -> segment
+            }
+        }
+        return "$host/$family"
+    }
+}
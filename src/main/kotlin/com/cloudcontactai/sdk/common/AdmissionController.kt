@@ -0,0 +1,142 @@
+package com.cloudcontactai.sdk.common
+
+import java.util.ArrayDeque
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+enum class AdmissionMode {
+    /** Wait up to the configured time for budget to free up */
+    BLOCK,
+
+    /** Fail immediately with [CCAIException] when the budget is exhausted */
+    REJECT
+}
+
+/**
+ * Budget for request payloads in flight across an [ApiClient].
+ *
+ * A single request larger than [maxInFlightBytes] is still admitted when nothing else is in
+ * flight, so oversized payloads are serialized rather than refused forever.
+ */
+data class AdmissionOptions @JvmOverloads constructor(
+    val maxInFlightBytes: Long = 64L * 1024 * 1024,
+    val maxInFlightRequests: Int = 256,
+    val mode: AdmissionMode = AdmissionMode.BLOCK,
+    val maxWaitMs: Long = 30000
+) {
+    init {
+        require(maxInFlightBytes > 0) { "Max in-flight bytes must be positive" }
+        require(maxInFlightRequests > 0) { "Max in-flight requests must be positive" }
+        require(maxWaitMs >= 0) { "Max wait must be non-negative" }
+    }
+}
+
+data class AdmissionStats(
+    val inFlightBytes: Long,
+    val inFlightRequests: Int,
+    val queued: Int,
+    val admitted: Long,
+    val rejected: Long
+)
+
+/**
+ * Tracks estimated serialized bytes and request count in flight and admits new requests
+ * only while both stay within [AdmissionOptions].
+ */
+class AdmissionController(private val options: AdmissionOptions) {
+    private class AsyncWaiter(val bytes: Long, val future: CompletableFuture<Unit>)
+
+    private val lock = ReentrantLock()
+    private val released = lock.newCondition()
+    private val asyncWaiters = ArrayDeque<AsyncWaiter>()
+    private var inFlightBytes = 0L
+    private var inFlightRequests = 0
+    private var blockedWaiters = 0
+    private var admitted = 0L
+    private var rejected = 0L
+
+    /**
+     * Admits a request of [bytes], blocking or rejecting according to the configured mode.
+     */
+    fun acquire(bytes: Long) {
+        lock.withLock {
+            if (asyncWaiters.isEmpty() && fits(bytes)) {
+                admit(bytes)
+                return
+            }
+            if (options.mode == AdmissionMode.REJECT) {
+                rejected++
+                throw CCAIException("Request rejected: in-flight budget of ${options.maxInFlightBytes} bytes / ${options.maxInFlightRequests} requests exhausted")
+            }
+            var remainingNanos = TimeUnit.MILLISECONDS.toNanos(options.maxWaitMs)
+            blockedWaiters++
+            try {
+                while (!(asyncWaiters.isEmpty() && fits(bytes))) {
+                    if (remainingNanos <= 0) {
+                        rejected++
+                        throw CCAIException("Request rejected: waited ${options.maxWaitMs} ms for in-flight budget")
+                    }
+                    remainingNanos = released.awaitNanos(remainingNanos)
+                }
+            } finally {
+                blockedWaiters--
+            }
+            admit(bytes)
+        }
+    }
+
+    /**
+     * Returns a future that completes once a request of [bytes] is admitted. Waiters are admitted
+     * in arrival order; in [AdmissionMode.REJECT] the future fails right away when the budget is full.
+     */
+    fun acquireAsync(bytes: Long): CompletableFuture<Unit> {
+        lock.withLock {
+            if (asyncWaiters.isEmpty() && fits(bytes)) {
+                admit(bytes)
+                return CompletableFuture.completedFuture(Unit)
+            }
+            if (options.mode == AdmissionMode.REJECT) {
+                rejected++
+                return CompletableFuture<Unit>().apply {
+                    completeExceptionally(CCAIException("Request rejected: in-flight budget exhausted"))
+                }
+            }
+            val waiter = AsyncWaiter(bytes, CompletableFuture())
+            asyncWaiters.addLast(waiter)
+            return waiter.future
+        }
+    }
+
+    fun release(bytes: Long) {
+        val ready = ArrayList<CompletableFuture<Unit>>()
+        lock.withLock {
+            inFlightBytes -= bytes
+            inFlightRequests--
+            while (asyncWaiters.isNotEmpty() && fits(asyncWaiters.peekFirst().bytes)) {
+                val waiter = asyncWaiters.removeFirst()
+                admit(waiter.bytes)
+                ready.add(waiter.future)
+            }
+            released.signalAll()
+        }
+        // Completed outside the lock since dependent stages may run inline
+        ready.forEach { it.complete(Unit) }
+    }
+
+    fun stats(): AdmissionStats = lock.withLock {
+        AdmissionStats(inFlightBytes, inFlightRequests, asyncWaiters.size + blockedWaiters, admitted, rejected)
+    }
+
+    private fun fits(bytes: Long): Boolean {
+        if (inFlightRequests == 0) return true
+        return inFlightRequests < options.maxInFlightRequests && inFlightBytes + bytes <= options.maxInFlightBytes
+    }
+
+    private fun admit(bytes: Long) {
+        inFlightBytes += bytes
+        inFlightRequests++
+        admitted++
+    }
+}
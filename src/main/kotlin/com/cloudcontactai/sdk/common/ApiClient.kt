@@ -1,10 +1,14 @@
 package com.cloudcontactai.sdk.common
 
+import com.fasterxml.jackson.core.JsonGenerator
 import com.fasterxml.jackson.databind.ObjectMapper
 import com.fasterxml.jackson.module.kotlin.KotlinModule
 import okhttp3.*
 import okhttp3.MediaType.Companion.toMediaType
 import okhttp3.RequestBody.Companion.toRequestBody
+import okio.BufferedSink
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.RejectedExecutionException
 
 class ApiClient(config: CCAIConfig) {
     private val client = OkHttpClient()
@@ -12,15 +16,100 @@ class ApiClient(config: CCAIConfig) {
     private val jsonMediaType = "application/json; charset=utf-8".toMediaType()
     private val baseUrl = config.baseUrl
     private val apiKey = config.apiKey
+    private val priorityLanes = config.priorityLanes?.let { PriorityLanes(it) }
 
+    private val admission = config.admission?.let { AdmissionController(it) }
+    private val sizeEstimator = JsonSizeEstimator(objectMapper)
+    private val concurrencyLimits = config.adaptiveConcurrency?.let { AdaptiveConcurrencyLimits(it, config.clientId) }
+
+    @JvmOverloads
     fun <T> request(
         method: String,
         endpoint: String,
         data: Any? = null,
         baseUrl: String? = null,
         headers: Map<String, String> = emptyMap(),
-        responseClass: Class<T>
+        responseClass: Class<T>,
+        priority: SendPriority = SendPriority.NORMAL
     ): T {
+        val admission = admission ?: return executeInLane(buildRequest(method, endpoint, data, baseUrl, headers), responseClass, priority)
+        // Admitted on an estimate so nothing is serialized while waiting for budget
+        val bytes = sizeEstimator.estimate(data)
+        admission.acquire(bytes)
+        try {
+            return executeInLane(buildRequest(method, endpoint, data, baseUrl, headers), responseClass, priority)
+        } finally {
+            admission.release(bytes)
+        }
+    }
+
+    /**
+     * Like [request] but never blocks the caller on admission control; the future completes
+     * once the request has been admitted and executed. The body is serialized only after
+     * admission.
+     */
+    @JvmOverloads
+    fun <T> requestAsync(
+        method: String,
+        endpoint: String,
+        data: Any? = null,
+        baseUrl: String? = null,
+        headers: Map<String, String> = emptyMap(),
+        responseClass: Class<T>,
+        priority: SendPriority = SendPriority.NORMAL
+    ): CompletableFuture<T> {
+        val admission = admission
+        val bytes = if (admission != null) sizeEstimator.estimate(data) else 0
+        val admitted = admission?.acquireAsync(bytes) ?: CompletableFuture.completedFuture(Unit)
+
+        val result = CompletableFuture<T>()
+        admitted.whenComplete { _, error ->
+            if (error != null) {
+                result.completeExceptionally(error)
+            } else {
+                try {
+                    client.dispatcher.executorService.execute {
+                        // Released before completing, so callers see the budget returned
+                        val response = try {
+                            Result.success(executeInLane(buildRequest(method, endpoint, data, baseUrl, headers), responseClass, priority))
+                        } catch (e: Throwable) {
+                            Result.failure(e)
+                        } finally {
+                            admission?.release(bytes)
+                        }
+                        response.fold({ result.complete(it) }, { result.completeExceptionally(it) })
+                    }
+                } catch (e: RejectedExecutionException) {
+                    admission?.release(bytes)
+                    result.completeExceptionally(CCAIException("Request rejected: HTTP executor is shut down", e))
+                }
+            }
+        }
+        return result
+    }
+
+    /**
+     * Payload bytes and requests currently in flight, or null when admission control is disabled.
+     */
+    fun admissionStats(): AdmissionStats? = admission?.stats()
+
+    /**
+     * Current adaptive concurrency limit per endpoint family, empty when the limiter is disabled.
+     */
+    fun concurrencyLimitStats(): List<AdaptiveLimitStats> = concurrencyLimits?.stats() ?: emptyList()
+
+    /**
+     * Queue wait and in-flight counts per priority class, or an empty list when lanes are disabled.
+     */
+    fun priorityLaneStats(): List<PriorityLaneStats> = priorityLanes?.stats() ?: emptyList()
+
+    private fun buildRequest(
+        method: String,
+        endpoint: String,
+        data: Any?,
+        baseUrl: String?,
+        headers: Map<String, String>
+    ): Request {
         val url = "${baseUrl ?: this.baseUrl}$endpoint"
         
         val requestBuilder = Request.Builder()
@@ -34,32 +123,47 @@ class ApiClient(config: CCAIConfig) {
         
         when (method.uppercase()) {
             "GET" -> requestBuilder.get()
-            "POST" -> {
-                val body = if (data != null) {
-                    objectMapper.writeValueAsString(data).toRequestBody(jsonMediaType)
-                } else {
-                    "".toRequestBody(jsonMediaType)
-                }
-                requestBuilder.post(body)
-            }
-            "PUT" -> {
-                val body = if (data != null) {
-                    objectMapper.writeValueAsString(data).toRequestBody(jsonMediaType)
-                } else {
-                    "".toRequestBody(jsonMediaType)
-                }
-                requestBuilder.put(body)
-            }
+            "POST" -> requestBuilder.post(requestBody(data))
+            "PUT" -> requestBuilder.put(requestBody(data))
             "DELETE" -> requestBuilder.delete()
         }
         
-        val request = requestBuilder.build()
-        
+        return requestBuilder.build()
+    }
+
+    private fun <T> executeInLane(request: Request, responseClass: Class<T>, priority: SendPriority): T {
+        val lanes = priorityLanes ?: return executeWithinLimit(request, responseClass)
+        return lanes.run(priority) { executeWithinLimit(request, responseClass) }
+    }
+
+    private fun <T> executeWithinLimit(request: Request, responseClass: Class<T>): T {
+        val limits = concurrencyLimits ?: return execute(request, responseClass)
+        val limiter = limits.forEndpoint(request.method, request.url.toString(), request.url.encodedPath)
+        return limiter.run { execute(request, responseClass) }
+    }
+
+    private fun requestBody(data: Any?): RequestBody {
+        return when (data) {
+            null -> "".toRequestBody(jsonMediaType)
+            is JsonPayload -> object : RequestBody() {
+                override fun contentType() = jsonMediaType
+
+                override fun writeTo(sink: BufferedSink) {
+                    objectMapper.factory.createGenerator(sink.outputStream())
+                        .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .use { data.writeJson(it) }
+                }
+            }
+            else -> objectMapper.writeValueAsBytes(data).toRequestBody(jsonMediaType)
+        }
+    }
+
+    private fun <T> execute(request: Request, responseClass: Class<T>): T {
         client.newCall(request).execute().use { response ->
             if (!response.isSuccessful) {
                 val errorBody = response.body?.string() ?: ""
                 val error = "${response.message} $errorBody"
-                throw CCAIException("HTTP ${response.code}: $error")
+                throw CCAIException("HTTP ${response.code}: $error", statusCode = response.code)
             }
             
             val responseBody = response.body?.string() ?: ""
@@ -73,7 +177,24 @@ inline fun <reified T> ApiClient.request(
     endpoint: String,
     data: Any? = null,
     baseUrl: String? = null,
-    headers: Map<String, String> = emptyMap()
-): T = request(method, endpoint, data, baseUrl, headers, T::class.java)
+    headers: Map<String, String> = emptyMap(),
+    priority: SendPriority = SendPriority.NORMAL
+): T = request(method, endpoint, data, baseUrl, headers, T::class.java, priority)
+
+inline fun <reified T> ApiClient.requestAsync(
+    method: String,
+    endpoint: String,
+    data: Any? = null,
+    baseUrl: String? = null,
+    headers: Map<String, String> = emptyMap(),
+    priority: SendPriority = SendPriority.NORMAL
+): CompletableFuture<T> = requestAsync(method, endpoint, data, baseUrl, headers, T::class.java, priority)
 
-class CCAIException(message: String, cause: Throwable? = null) : Exception(message, cause)
+class CCAIException @JvmOverloads constructor(
+    message: String,
+    cause: Throwable? = null,
+    /**
+     * HTTP status of the failed call, null when the error did not come from an API response
+     */
+    val statusCode: Int? = null
+) : Exception(message, cause)
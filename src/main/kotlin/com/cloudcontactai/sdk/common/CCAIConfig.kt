@@ -3,6 +3,8 @@
 
 package com.cloudcontactai.sdk.common
 
+import com.cloudcontactai.sdk.mms.MediaOptimizerOptions
+
 /**
  * Configuration for the CCAI client
  */
@@ -35,7 +37,62 @@ data class CCAIConfig @JvmOverloads constructor(
     /**
      * Request timeout in milliseconds
      */
-    val timeoutMs: Long = 30000
+    val timeoutMs: Long = 30000,
+
+    /**
+     * How long campaign status lookups for active campaigns are cached, 0 disables the cache
+     */
+    val statusCacheTtlMs: Long = 0,
+
+    /**
+     * How long campaign status lookups for finished campaigns are cached
+     */
+    val statusCacheTerminalTtlMs: Long = 300000,
+
+    /**
+     * Maximum number of campaign statuses kept per service
+     */
+    val statusCacheMaxEntries: Int = 10000,
+
+    /**
+     * Per-priority queues and in-flight limits for API calls, null disables priority lanes
+     */
+    val priorityLanes: PriorityLaneOptions? = null,
+
+    /**
+     * Budget for payload bytes and requests in flight, null disables admission control
+     */
+    val admission: AdmissionOptions? = null,
+
+    /**
+     * Latency-driven concurrency limit per endpoint family, null disables it
+     */
+    val adaptiveConcurrency: AdaptiveLimitOptions? = null,
+
+    /**
+     * Maximum number of local media files remembered with their uploaded file key, 0 disables the cache
+     */
+    val mediaCacheMaxEntries: Int = 0,
+
+    /**
+     * File backing the media cache so it survives restarts, null keeps it in memory only
+     */
+    val mediaCacheFile: String? = null,
+
+    /**
+     * Byte and pixel budget images are shrunk to before upload, null uploads images as they are
+     */
+    val mediaOptimizer: MediaOptimizerOptions? = null,
+
+    /**
+     * Number of distinct email bodies kept escaped for reuse by later sends, 0 disables the cache
+     */
+    val emailBodyCacheMaxEntries: Int = 0,
+
+    /**
+     * Strip comments and collapse whitespace in email HTML before sending
+     */
+    val minifyEmailHtml: Boolean = false
 ) {
     /**
      * Base URL for the SMS/MMS API
@@ -82,5 +139,10 @@ data class CCAIConfig @JvmOverloads constructor(
         require(apiKey.isNotBlank()) { "API key cannot be blank" }
         require(maxRetries >= 0) { "Max retries must be non-negative" }
         require(timeoutMs > 0) { "Timeout must be positive" }
+        require(statusCacheTtlMs >= 0) { "Status cache TTL must be non-negative" }
+        require(statusCacheTerminalTtlMs >= 0) { "Status cache terminal TTL must be non-negative" }
+        require(statusCacheMaxEntries > 0) { "Status cache max entries must be positive" }
+        require(mediaCacheMaxEntries >= 0) { "Media cache max entries must be non-negative" }
+        require(emailBodyCacheMaxEntries >= 0) { "Email body cache max entries must be non-negative" }
     }
 }
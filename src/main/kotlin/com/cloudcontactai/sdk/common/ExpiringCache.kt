@@ -0,0 +1,74 @@
+package com.cloudcontactai.sdk.common
+
+data class CacheStats(
+    val hits: Long,
+    val misses: Long,
+    val evictions: Long,
+    val expirations: Long,
+    val size: Int
+) {
+    val hitRate: Double get() = if (hits + misses > 0) hits.toDouble() / (hits + misses) else 0.0
+}
+
+/**
+ * Size-bounded LRU cache whose entries each carry their own time to live.
+ */
+class ExpiringCache<K, V>(private val maxEntries: Int) {
+    private class CacheEntry<V>(val value: V, val expiresAtNanos: Long)
+
+    private var hits = 0L
+    private var misses = 0L
+    private var evictions = 0L
+    private var expirations = 0L
+
+    private val entries = object : LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<K, CacheEntry<V>>): Boolean {
+            val evict = size > maxEntries
+            if (evict) evictions++
+            return evict
+        }
+    }
+
+    init {
+        require(maxEntries > 0) { "Max entries must be positive" }
+    }
+
+    @Synchronized
+    fun get(key: K): V? {
+        val entry = entries[key]
+        if (entry == null) {
+            misses++
+            return null
+        }
+        if (System.nanoTime() - entry.expiresAtNanos >= 0) {
+            entries.remove(key)
+            expirations++
+            misses++
+            return null
+        }
+        hits++
+        return entry.value
+    }
+
+    @Synchronized
+    fun put(key: K, value: V, ttlMs: Long) {
+        if (ttlMs <= 0) {
+            entries.remove(key)
+            return
+        }
+        entries[key] = CacheEntry(value, System.nanoTime() + ttlMs * 1_000_000)
+    }
+
+    @Synchronized
+    fun invalidate(key: K) {
+        entries.remove(key)
+    }
+
+    @Synchronized
+    fun clear() {
+        entries.clear()
+    }
+
+    @Synchronized
+    fun stats(): CacheStats = CacheStats(hits, misses, evictions, expirations, entries.size)
+}
@@ -0,0 +1,19 @@
+package com.cloudcontactai.sdk.common
+
+import com.fasterxml.jackson.core.JsonGenerator
+
+/**
+ * Request body that writes its own JSON straight to the connection.
+ *
+ * [ApiClient] streams these instead of converting them with the object mapper, so large
+ * payloads never have to exist as an object graph or as a serialized string.
+ */
+interface JsonPayload {
+    fun writeJson(generator: JsonGenerator)
+
+    /**
+     * Approximate serialized size, used for admission control since streamed bodies have no
+     * content length.
+     */
+    fun estimatedBytes(): Long
+}
@@ -0,0 +1,42 @@
+package com.cloudcontactai.sdk.common
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * Approximate serialized size of a request body, worked out from its strings, numbers and
+ * collections without writing any JSON, so admission can be decided before serializing.
+ *
+ * Objects are walked through the properties [objectMapper] would write, looked up once per
+ * class. Non-ASCII text and escapes are not counted, so the result is a lower bound for them.
+ */
+internal class JsonSizeEstimator(private val objectMapper: ObjectMapper) {
+    private val properties = ConcurrentHashMap<Class<*>, List<BeanPropertyDefinition>>()
+
+    fun estimate(value: Any?): Long {
+        return when (value) {
+            null -> 4
+            is JsonPayload -> value.estimatedBytes()
+            is CharSequence -> value.length + 2L
+            is Number, is Boolean -> 20
+            is Enum<*> -> value.name.length + 2L
+            is ByteArray -> (value.size + 2L) / 3 * 4 + 2
+            is Collection<*> -> value.sumOf { estimate(it) + 1 } + 2
+            is Array<*> -> value.sumOf { estimate(it) + 1 } + 2
+            is Map<*, *> -> value.entries.sumOf { estimate(it.key.toString()) + estimate(it.value) + 2 } + 2
+            else -> propertiesOf(value.javaClass).sumOf { property ->
+                property.name.length + 4 + estimate(property.accessor?.getValue(value))
+            } + 2
+        }
+    }
+
+    private fun propertiesOf(type: Class<*>): List<BeanPropertyDefinition> {
+        return properties.computeIfAbsent(type) {
+            val config = objectMapper.serializationConfig
+            config.introspect(objectMapper.constructType(type)).findProperties()
+                .filter { it.couldSerialize() && it.accessor != null }
+                .onEach { it.accessor?.fixAccess(true) }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.cloudcontactai.sdk.common
+
+import java.util.ArrayDeque
+import java.util.EnumMap
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.Condition
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * Priority class of an API call. Transactional traffic such as one-time passwords is
+ * served ahead of normal calls, and both ahead of bulk campaigns.
+ */
+enum class SendPriority { TRANSACTIONAL, NORMAL, BULK }
+
+/**
+ * In-flight limits for [PriorityLanes].
+ *
+ * [maxInFlight] is shared by all classes; each class is additionally capped by its own limit,
+ * so bulk traffic can never take every slot. A queued call that has waited longer than
+ * [starvationThresholdMs] is served before higher classes.
+ */
+data class PriorityLaneOptions @JvmOverloads constructor(
+    val maxInFlight: Int = 32,
+    val transactionalLimit: Int = 32,
+    val normalLimit: Int = 24,
+    val bulkLimit: Int = 16,
+    val starvationThresholdMs: Long = 5000
+) {
+    init {
+        require(maxInFlight > 0) { "Max in flight must be positive" }
+        require(transactionalLimit > 0 && normalLimit > 0 && bulkLimit > 0) { "Lane limits must be positive" }
+        require(starvationThresholdMs > 0) { "Starvation threshold must be positive" }
+    }
+
+    fun limitFor(priority: SendPriority): Int = when (priority) {
+        SendPriority.TRANSACTIONAL -> transactionalLimit
+        SendPriority.NORMAL -> normalLimit
+        SendPriority.BULK -> bulkLimit
+    }
+}
+
+data class PriorityLaneStats(
+    val priority: SendPriority,
+    val inFlight: Int,
+    val queued: Int,
+    val admitted: Long,
+    val averageQueueWaitMs: Double,
+    val maxQueueWaitMs: Double
+)
+
+/**
+ * Gates API calls by [SendPriority] with separate queues and in-flight limits per class.
+ */
+class PriorityLanes(private val options: PriorityLaneOptions) {
+    private class Waiter(val priority: SendPriority, val enqueuedNanos: Long, val condition: Condition) {
+        var granted = false
+    }
+
+    private val lock = ReentrantLock()
+    private val queues = EnumMap<SendPriority, ArrayDeque<Waiter>>(SendPriority::class.java)
+    private val inFlight = IntArray(SendPriority.values().size)
+    private var totalInFlight = 0
+    private val admitted = LongArray(SendPriority.values().size)
+    private val totalWaitNanos = LongArray(SendPriority.values().size)
+    private val maxWaitNanos = LongArray(SendPriority.values().size)
+
+    init {
+        SendPriority.values().forEach { queues[it] = ArrayDeque() }
+    }
+
+    fun <T> run(priority: SendPriority, block: () -> T): T {
+        acquire(priority)
+        try {
+            return block()
+        } finally {
+            release(priority)
+        }
+    }
+
+    fun acquire(priority: SendPriority) {
+        val start = System.nanoTime()
+        lock.withLock {
+            if (canRun(priority) && nextWaiter() == null) {
+                grant(priority, start)
+                return
+            }
+            val waiter = Waiter(priority, start, lock.newCondition())
+            queues.getValue(priority).addLast(waiter)
+            try {
+                while (!waiter.granted) {
+                    waiter.condition.await()
+                }
+            } catch (e: InterruptedException) {
+                if (waiter.granted) {
+                    releaseLocked(priority)
+                } else {
+                    queues.getValue(priority).remove(waiter)
+                }
+                throw e
+            }
+        }
+    }
+
+    fun release(priority: SendPriority) {
+        lock.withLock { releaseLocked(priority) }
+    }
+
+    fun stats(): List<PriorityLaneStats> = lock.withLock {
+        SendPriority.values().map { priority ->
+            val index = priority.ordinal
+            PriorityLaneStats(
+                priority = priority,
+                inFlight = inFlight[index],
+                queued = queues.getValue(priority).size,
+                admitted = admitted[index],
+                averageQueueWaitMs = if (admitted[index] > 0) totalWaitNanos[index] / 1_000_000.0 / admitted[index] else 0.0,
+                maxQueueWaitMs = maxWaitNanos[index] / 1_000_000.0
+            )
+        }
+    }
+
+    private fun canRun(priority: SendPriority): Boolean {
+        return totalInFlight < options.maxInFlight && inFlight[priority.ordinal] < options.limitFor(priority)
+    }
+
+    private fun grant(priority: SendPriority, enqueuedNanos: Long) {
+        val index = priority.ordinal
+        val waitNanos = System.nanoTime() - enqueuedNanos
+        inFlight[index]++
+        totalInFlight++
+        admitted[index]++
+        totalWaitNanos[index] += waitNanos
+        maxWaitNanos[index] = maxOf(maxWaitNanos[index], waitNanos)
+    }
+
+    private fun releaseLocked(priority: SendPriority) {
+        inFlight[priority.ordinal]--
+        totalInFlight--
+        while (true) {
+            val waiter = nextWaiter() ?: return
+            queues.getValue(waiter.priority).removeFirst()
+            grant(waiter.priority, waiter.enqueuedNanos)
+            waiter.granted = true
+            waiter.condition.signal()
+        }
+    }
+
+    private fun nextWaiter(): Waiter? {
+        val now = System.nanoTime()
+        val thresholdNanos = TimeUnit.MILLISECONDS.toNanos(options.starvationThresholdMs)
+        val runnable = SendPriority.values().mapNotNull { priority ->
+            queues.getValue(priority).peekFirst()?.takeIf { canRun(priority) }
+        }
+        // Starved waiters go first, oldest first, then strict priority order
+        return runnable.filter { now - it.enqueuedNanos >= thresholdNanos }.minByOrNull { it.enqueuedNanos }
+            ?: runnable.firstOrNull()
+    }
+}
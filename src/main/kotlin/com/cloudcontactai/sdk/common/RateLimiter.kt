@@ -0,0 +1,65 @@
+package com.cloudcontactai.sdk.common
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
+
+/**
+ * Token bucket rate limiter shared by the bulk APIs.
+ *
+ * Tokens refill continuously at [permitsPerSecond] up to [burst]; [acquire] blocks
+ * the calling thread until enough tokens are available.
+ */
+class RateLimiter @JvmOverloads constructor(
+    val permitsPerSecond: Double,
+    private val burst: Double = maxOf(1.0, permitsPerSecond)
+) {
+    private val lock = ReentrantLock()
+    private var tokens = burst
+    private var lastRefillNanos = System.nanoTime()
+
+    init {
+        require(permitsPerSecond > 0) { "Permits per second must be positive" }
+        require(burst >= 1) { "Burst must be at least 1" }
+    }
+
+    @JvmOverloads
+    fun acquire(permits: Int = 1) {
+        require(permits > 0) { "Permits must be positive" }
+        var remaining = permits.toDouble()
+        while (remaining > 0) {
+            val waitNanos = lock.withLock {
+                refill()
+                // Requests larger than the burst are drained in burst-sized pieces
+                val take = minOf(remaining, burst)
+                if (tokens >= take) {
+                    tokens -= take
+                    remaining -= take
+                    0L
+                } else {
+                    ((take - tokens) / permitsPerSecond * 1_000_000_000L).toLong()
+                }
+            }
+            if (waitNanos > 0) TimeUnit.NANOSECONDS.sleep(waitNanos)
+        }
+    }
+
+    fun tryAcquire(permits: Int = 1): Boolean = lock.withLock {
+        refill()
+        if (tokens >= permits) {
+            tokens -= permits
+            true
+        } else {
+            false
+        }
+    }
+
+    private fun refill() {
+        val now = System.nanoTime()
+        val elapsed = now - lastRefillNanos
+        if (elapsed > 0) {
+            tokens = minOf(burst, tokens + elapsed / 1_000_000_000.0 * permitsPerSecond)
+            lastRefillNanos = now
+        }
+    }
+}
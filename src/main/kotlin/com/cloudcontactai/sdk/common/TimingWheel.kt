@@ -0,0 +1,91 @@
+package com.cloudcontactai.sdk.common
+
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+/**
+ * Hashed timing wheel for scheduling many short delayed tasks from a single thread.
+ *
+ * Tasks are bucketed by tick, so scheduling is O(1) regardless of how many tasks are
+ * pending. Expired tasks are handed to [executor] so slow work never delays the wheel.
+ * Delays are rounded up to the next tick.
+ */
+class TimingWheel @JvmOverloads constructor(
+    private val executor: Executor,
+    private val tickMs: Long = 10,
+    wheelSize: Int = 512,
+    threadName: String = "ccai-timing-wheel"
+) : AutoCloseable {
+    init {
+        require(tickMs > 0) { "Tick must be positive" }
+        require(wheelSize > 0) { "Wheel size must be positive" }
+    }
+
+    private class Timeout(val deadlineTick: Long, val task: Runnable) {
+        var rounds = 0L
+    }
+
+    private val buckets = Array(wheelSize) { ArrayList<Timeout>() }
+    private val pending = ConcurrentLinkedQueue<Timeout>()
+    private val startNanos = System.nanoTime()
+    @Volatile private var running = true
+    // Only touched from the wheel thread
+    private var currentTick = 0L
+
+    private val worker = Thread({ run() }, threadName).apply {
+        isDaemon = true
+        start()
+    }
+
+    fun schedule(delayMs: Long, task: Runnable) {
+        check(running) { "Timing wheel is closed" }
+        val elapsedMs = (System.nanoTime() - startNanos) / 1_000_000
+        val deadlineTick = (elapsedMs + delayMs.coerceAtLeast(0) + tickMs - 1) / tickMs
+        pending.add(Timeout(deadlineTick, task))
+    }
+
+    override fun close() {
+        running = false
+        worker.interrupt()
+    }
+
+    private fun run() {
+        while (running) {
+            val nextTickNanos = startNanos + (currentTick + 1) * tickMs * 1_000_000
+            val sleepNanos = nextTickNanos - System.nanoTime()
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos)
+                } catch (e: InterruptedException) {
+                    continue
+                }
+            }
+            currentTick++
+            transferPending()
+            expire(buckets[(currentTick % buckets.size).toInt()])
+        }
+    }
+
+    private fun transferPending() {
+        while (true) {
+            val timeout = pending.poll() ?: return
+            val tick = maxOf(timeout.deadlineTick, currentTick)
+            timeout.rounds = (tick - currentTick) / buckets.size
+            buckets[(tick % buckets.size).toInt()].add(timeout)
+        }
+    }
+
+    private fun expire(bucket: MutableList<Timeout>) {
+        val iterator = bucket.iterator()
+        while (iterator.hasNext()) {
+            val timeout = iterator.next()
+            if (timeout.rounds <= 0) {
+                iterator.remove()
+                executor.execute(timeout.task)
+            } else {
+                timeout.rounds--
+            }
+        }
+    }
+}
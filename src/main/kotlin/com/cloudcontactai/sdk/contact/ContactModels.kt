@@ -11,4 +11,52 @@ data class ContactDoNotTextResponse(
     val contactId: String,
     val phone: String,
     val doNotText: Boolean
-)
\ No newline at end of file
+)
+
+data class DoNotTextEntry @JvmOverloads constructor(
+    val contactId: String? = null,
+    val phone: String? = null,
+    val doNotText: Boolean = true
+)
+
+/**
+ * Options for [ContactService.setDoNotTextBulk].
+ *
+ * Entries before [startIndex] are skipped, so a run can be resumed from the last
+ * checkpoint reported through [onCheckpoint]. A checkpoint value means every entry
+ * with a lower index has completed.
+ */
+data class BulkDoNotTextOptions @JvmOverloads constructor(
+    val concurrency: Int = 8,
+    val requestsPerSecond: Double = 0.0,
+    val startIndex: Long = 0,
+    val checkpointInterval: Int = 1000,
+    val onCheckpoint: ((Long) -> Unit)? = null
+) {
+    init {
+        require(concurrency > 0) { "Concurrency must be positive" }
+        require(requestsPerSecond >= 0) { "Requests per second must be non-negative" }
+        require(startIndex >= 0) { "Start index must be non-negative" }
+        require(checkpointInterval > 0) { "Checkpoint interval must be positive" }
+    }
+}
+
+data class DoNotTextResult(
+    val index: Long,
+    val entry: DoNotTextEntry,
+    val response: ContactDoNotTextResponse? = null,
+    val error: String? = null
+) {
+    val success: Boolean get() = response != null
+}
+
+data class BulkDoNotTextResult(
+    val results: List<DoNotTextResult>,
+    val succeeded: Int,
+    val failed: Int,
+    val checkpoint: Long,
+    val elapsedMs: Long
+) {
+    val entriesPerSecond: Double
+        get() = if (elapsedMs > 0) results.size * 1000.0 / elapsedMs else results.size.toDouble()
+}
@@ -2,6 +2,14 @@ package com.cloudcontactai.sdk.contact
 
 import com.cloudcontactai.sdk.common.ApiClient
 import com.cloudcontactai.sdk.common.CCAIConfig
+import com.cloudcontactai.sdk.common.RateLimiter
+import java.util.BitSet
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.stream.Stream
 
 class ContactService(private val config: CCAIConfig, private val apiClient: ApiClient) {
 
@@ -24,4 +32,107 @@ class ContactService(private val config: CCAIConfig, private val apiClient: ApiC
             responseClass = ContactDoNotTextResponse::class.java
         )
     }
-}
\ No newline at end of file
+
+    fun setDoNotTextBulk(entries: Stream<DoNotTextEntry>, options: BulkDoNotTextOptions): BulkDoNotTextResult {
+        return entries.use { setDoNotTextBulk(Iterable { it.iterator() }, options) }
+    }
+
+    /**
+     * Applies do-not-text updates for many contacts with bounded concurrency.
+     *
+     * Entries are pulled from [entries] lazily, so at most [BulkDoNotTextOptions.concurrency]
+     * updates are in flight at once. Failures are recorded per entry and do not stop the run.
+     */
+    @JvmOverloads
+    fun setDoNotTextBulk(
+        entries: Iterable<DoNotTextEntry>,
+        options: BulkDoNotTextOptions = BulkDoNotTextOptions()
+    ): BulkDoNotTextResult {
+        val rateLimiter = if (options.requestsPerSecond > 0) RateLimiter(options.requestsPerSecond) else null
+        val executor = Executors.newFixedThreadPool(options.concurrency)
+        val permits = Semaphore(options.concurrency)
+        val results = ConcurrentLinkedQueue<DoNotTextResult>()
+        val succeeded = AtomicInteger()
+        val failed = AtomicInteger()
+        val checkpoints = CheckpointTracker(options.startIndex, options.checkpointInterval, options.onCheckpoint)
+        val startTime = System.currentTimeMillis()
+
+        try {
+            var index = 0L
+            for (entry in entries) {
+                val entryIndex = index++
+                if (entryIndex < options.startIndex) continue
+
+                permits.acquire()
+                rateLimiter?.acquire()
+                executor.execute {
+                    try {
+                        val response = setDoNotText(entry.contactId, entry.phone, entry.doNotText)
+                        succeeded.incrementAndGet()
+                        results.add(DoNotTextResult(entryIndex, entry, response = response))
+                    } catch (e: Exception) {
+                        failed.incrementAndGet()
+                        results.add(DoNotTextResult(entryIndex, entry, error = e.message ?: e.javaClass.simpleName))
+                    } finally {
+                        permits.release()
+                        checkpoints.complete(entryIndex)
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown()
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)
+        }
+
+        val checkpoint = checkpoints.flush()
+        return BulkDoNotTextResult(
+            results = results.sortedBy { it.index },
+            succeeded = succeeded.get(),
+            failed = failed.get(),
+            checkpoint = checkpoint,
+            elapsedMs = System.currentTimeMillis() - startTime
+        )
+    }
+
+    /**
+     * Tracks the low watermark of completed entries while updates finish out of order.
+     */
+    private class CheckpointTracker(
+        start: Long,
+        private val interval: Int,
+        private val listener: ((Long) -> Unit)?
+    ) {
+        private var watermark = start
+        private var lastReported = start
+        private val completedAhead = BitSet()
+
+        fun complete(index: Long) {
+            val report = synchronized(this) {
+                completedAhead.set((index - watermark).toInt())
+                val advance = completedAhead.nextClearBit(0)
+                if (advance > 0) {
+                    watermark += advance
+                    val shifted = completedAhead.get(advance, maxOf(advance, completedAhead.length()))
+                    completedAhead.clear()
+                    completedAhead.or(shifted)
+                }
+                if (watermark - lastReported >= interval) {
+                    lastReported = watermark
+                    watermark
+                } else {
+                    null
+                }
+            }
+            report?.let { listener?.invoke(it) }
+        }
+
+        fun flush(): Long {
+            val checkpoint = synchronized(this) {
+                lastReported = watermark
+                watermark
+            }
+            listener?.invoke(checkpoint)
+            return checkpoint
+        }
+    }
+}
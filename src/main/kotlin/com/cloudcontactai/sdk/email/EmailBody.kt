@@ -0,0 +1,232 @@
+package com.cloudcontactai.sdk.email
+
+import com.cloudcontactai.sdk.common.JsonPayload
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.io.JsonStringEncoder
+import com.fasterxml.jackson.databind.BeanDescription
+import com.fasterxml.jackson.databind.ObjectWriter
+import com.fasterxml.jackson.databind.SerializationConfig
+import com.fasterxml.jackson.databind.SerializerProvider
+import com.fasterxml.jackson.databind.module.SimpleModule
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter
+import com.fasterxml.jackson.databind.ser.BeanSerializerModifier
+import com.fasterxml.jackson.module.kotlin.jacksonObjectMapper
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Whitespace and comment removal for email HTML.
+ *
+ * Runs of whitespace collapse to one space and disappear next to block and table tags, where
+ * they do not render. Comments are dropped except Outlook conditional comments. The content of
+ * `pre`, `textarea`, `script` and `style` elements and of quoted attribute values is kept as is.
+ */
+object HtmlMinifier {
+    private val VERBATIM = setOf("pre", "textarea", "script", "style")
+
+    private val BLOCK = setOf(
+        "!doctype", "html", "head", "body", "meta", "link", "title", "style", "table", "caption",
+        "colgroup", "col", "thead", "tbody", "tfoot", "tr", "td", "th", "div", "p", "pre", "blockquote",
+        "section", "header", "footer", "ul", "ol", "li", "dl", "dt", "dd", "br", "hr", "center",
+        "h1", "h2", "h3", "h4", "h5", "h6"
+    )
+
+    @JvmStatic
+    fun minify(html: String): String {
+        val out = StringBuilder(html.length)
+        var previousTag = ""
+        var i = 0
+        while (i < html.length) {
+            val c = html[i]
+            when {
+                html.startsWith("<!--", i) -> {
+                    val end = html.indexOf("-->", i + 4).let { if (it < 0) html.length else it + 3 }
+                    if (html.startsWith("[if", i + 4) || html.startsWith("<![endif]", i + 4)) {
+                        out.append(html, i, end)
+                    }
+                    i = end
+                }
+                c == '<' -> {
+                    val name = tagName(html, i)
+                    val end = copyTag(html, i, out)
+                    previousTag = name
+                    i = end
+                    if (name in VERBATIM) {
+                        val close = html.indexOf("</$name", i, ignoreCase = true).let { if (it < 0) html.length else it }
+                        out.append(html, i, close)
+                        i = close
+                    }
+                }
+                c.isWhitespace() -> {
+                    val start = i
+                    while (i < html.length && html[i].isWhitespace()) i++
+                    val next = if (i < html.length && html[i] == '<') tagName(html, i) else null
+                    val afterTag = start > 0 && html[start - 1] == '>'
+                    val insignificant = i == html.length || start == 0 ||
+                        next?.removePrefix("/") in BLOCK || (afterTag && previousTag.removePrefix("/") in BLOCK)
+                    if (!insignificant) out.append(' ')
+                }
+                else -> {
+                    out.append(c)
+                    i++
+                }
+            }
+        }
+        return out.toString()
+    }
+
+    /**
+     * Lower-case name of the tag starting at [start], with a leading `/` for closing tags.
+     */
+    private fun tagName(html: String, start: Int): String {
+        var end = start + 1
+        if (end < html.length && html[end] == '/') end++
+        while (end < html.length && (html[end].isLetterOrDigit() || html[end] == '!')) end++
+        return html.substring(start + 1, end).lowercase()
+    }
+
+    /**
+     * Copies the tag at [start] collapsing whitespace between attributes, and returns the
+     * index after it.
+     */
+    private fun copyTag(html: String, start: Int, out: StringBuilder): Int {
+        var quote = 0.toChar()
+        var i = start
+        while (i < html.length) {
+            val c = html[i]
+            when {
+                quote != 0.toChar() -> {
+                    out.append(c)
+                    if (c == quote) quote = 0.toChar()
+                }
+                c == '"' || c == '\'' -> {
+                    quote = c
+                    out.append(c)
+                }
+                c.isWhitespace() -> {
+                    while (i + 1 < html.length && html[i + 1].isWhitespace()) i++
+                    if (i + 1 < html.length && html[i + 1] != '>' && !out.endsWith("=")) out.append(' ')
+                }
+                else -> {
+                    out.append(c)
+                    if (c == '>') return i + 1
+                }
+            }
+            i++
+        }
+        return i
+    }
+}
+
+data class EmailBodyStats(
+    val hits: Long,
+    val misses: Long,
+    val htmlChars: Long,
+    val encodedBytes: Long,
+    val encodeTimeMs: Double
+) {
+    val hitRate: Double get() = if (hits + misses > 0) hits.toDouble() / (hits + misses) else 0.0
+}
+
+/**
+ * The message field of an email campaign, already escaped as UTF-8 JSON string content.
+ */
+internal class EncodedEmailBody(val json: ByteArray)
+
+/**
+ * Escapes email bodies for JSON once and keeps the result for the last [maxEntries] distinct
+ * bodies, optionally minifying them first. Entries hold the original HTML as their key.
+ */
+internal class EmailBodyEncoder(private val minify: Boolean, private val maxEntries: Int) {
+    private val cache = object : LinkedHashMap<String, EncodedEmailBody>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, EncodedEmailBody>?) = size > maxEntries
+    }
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+    private val htmlChars = AtomicLong()
+    private val encodedBytes = AtomicLong()
+    private val encodeNanos = AtomicLong()
+
+    fun encode(html: String): EncodedEmailBody {
+        if (maxEntries > 0) {
+            synchronized(cache) { cache[html] }?.let {
+                hits.incrementAndGet()
+                return it
+            }
+        }
+        misses.incrementAndGet()
+        val start = System.nanoTime()
+        val body = EncodedEmailBody(JsonStringEncoder.getInstance().quoteAsUTF8(if (minify) HtmlMinifier.minify(html) else html))
+        encodeNanos.addAndGet(System.nanoTime() - start)
+        htmlChars.addAndGet(html.length.toLong())
+        encodedBytes.addAndGet(body.json.size.toLong())
+        if (maxEntries > 0) synchronized(cache) { cache[html] = body }
+        return body
+    }
+
+    fun stats(): EmailBodyStats = EmailBodyStats(
+        hits = hits.get(),
+        misses = misses.get(),
+        htmlChars = htmlChars.get(),
+        encodedBytes = encodedBytes.get(),
+        encodeTimeMs = encodeNanos.get() / 1_000_000.0
+    )
+}
+
+/**
+ * [EmailCampaign] written with its message spliced in from an [EncodedEmailBody] instead of
+ * being escaped again. Every other field is written by Jackson from the model itself.
+ */
+internal class EncodedEmailCampaign(
+    private val campaign: EmailCampaign,
+    private val body: EncodedEmailBody
+) : JsonPayload {
+    override fun writeJson(generator: JsonGenerator) {
+        WRITER.withAttribute(EncodedEmailBody::class.java, body).writeValue(generator, campaign)
+    }
+
+    override fun estimatedBytes(): Long {
+        val fields = campaign.subject.length * 2 + campaign.senderEmail.length + campaign.replyEmail.length + campaign.senderName.length
+        return body.json.size + campaign.accounts.sumOf { estimatedJsonBytes(it) } + fields * 3L + 256
+    }
+
+    private companion object {
+        val WRITER: ObjectWriter = jacksonObjectMapper()
+            .registerModule(SimpleModule().setSerializerModifier(object : BeanSerializerModifier() {
+                override fun changeProperties(
+                    config: SerializationConfig,
+                    beanDesc: BeanDescription,
+                    beanProperties: MutableList<BeanPropertyWriter>
+                ): MutableList<BeanPropertyWriter> {
+                    if (beanDesc.beanClass != EmailCampaign::class.java) return beanProperties
+                    return beanProperties.mapTo(ArrayList()) { if (it.name == "message") EncodedMessageWriter(it) else it }
+                }
+            }))
+            .writerFor(EmailCampaign::class.java)
+    }
+}
+
+/**
+ * Writes the campaign message from the [EncodedEmailBody] attribute of the current write, or
+ * as a plain string when there is none.
+ */
+private class EncodedMessageWriter(base: BeanPropertyWriter) : BeanPropertyWriter(base) {
+    override fun serializeAsField(bean: Any, gen: JsonGenerator, prov: SerializerProvider) {
+        val body = prov.getAttribute(EncodedEmailBody::class.java) as? EncodedEmailBody
+            ?: return super.serializeAsField(bean, gen, prov)
+        gen.writeFieldName(_name)
+        gen.writeRawUTF8String(body.json, 0, body.json.size)
+    }
+}
+
+/**
+ * Rough serialized size of one account, used to bound batches and for admission control.
+ */
+internal fun estimatedJsonBytes(account: EmailAccount): Long {
+    var bytes = ACCOUNT_JSON_OVERHEAD + account.firstName.length + account.lastName.length + account.email.length
+    account.customAccountId?.let { bytes += it.length + 20 }
+    account.customFields.forEach { (key, value) -> bytes += key.length + value.length + 6 }
+    return bytes.toLong()
+}
+
+// Field names, quotes and separators of one serialized EmailAccount
+private const val ACCOUNT_JSON_OVERHEAD = 80
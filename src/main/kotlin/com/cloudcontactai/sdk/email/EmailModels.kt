@@ -1,5 +1,6 @@
 package com.cloudcontactai.sdk.email
 
+import com.cloudcontactai.sdk.common.SendPriority
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties
 import com.fasterxml.jackson.annotation.JsonProperty
 
@@ -45,3 +46,66 @@ data class EmailCampaignStatus(
     @JsonProperty("sentEmails") val sentEmails: Int,
     @JsonProperty("failedEmails") val failedEmails: Int = 0
 )
+
+/**
+ * Result of [EmailService.sendFiltered]; [response] is null when no recipient was left to send to.
+ */
+data class FilteredEmailResponse(
+    val response: EmailResponse?,
+    val report: EmailHygieneReport
+)
+
+/**
+ * A sending identity. Bulk sends rotate through several to spread volume and reputation.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+data class EmailSender @JvmOverloads constructor(
+    @JsonProperty("email") val email: String,
+    @JsonProperty("name") val name: String,
+    @JsonProperty("replyEmail") val replyEmail: String = email
+)
+
+/**
+ * Batching for [EmailService.sendBulk]. A batch is closed at [maxBatchSize] recipients or at
+ * about [maxBatchBytes] of serialized recipients, whichever comes first, and batches take
+ * turns through [senders]; with no senders the default no-reply identity is used.
+ */
+data class EmailBulkOptions @JvmOverloads constructor(
+    val senders: List<EmailSender> = emptyList(),
+    val maxBatchSize: Int = 1000,
+    val maxBatchBytes: Long = 4L * 1024 * 1024,
+    val parallelism: Int = 4,
+    val priority: SendPriority = SendPriority.NORMAL
+) {
+    init {
+        require(maxBatchSize > 0) { "Max batch size must be positive" }
+        require(maxBatchBytes > 0) { "Max batch bytes must be positive" }
+        require(parallelism > 0) { "Parallelism must be positive" }
+    }
+}
+
+data class EmailBatchResult(
+    val sender: EmailSender,
+    val fromIndex: Int,
+    val recipientCount: Int,
+    val response: EmailResponse? = null,
+    val error: String? = null
+) {
+    val success: Boolean get() = response != null
+}
+
+/**
+ * Batches of a bulk send in input order. A failed batch is reported here rather than thrown.
+ */
+data class EmailBulkResult(
+    val batches: List<EmailBatchResult>
+) {
+    val responses: List<EmailResponse> get() = batches.mapNotNull { it.response }
+
+    val sentRecipients: Int get() = batches.filter { it.success }.sumOf { it.recipientCount }
+
+    val failedRecipients: Int get() = batches.filterNot { it.success }.sumOf { it.recipientCount }
+
+    val recipientsBySender: Map<String, Int>
+        get() = batches.filter { it.success }.groupingBy { it.sender.email }.fold(0) { total, batch -> total + batch.recipientCount }
+}
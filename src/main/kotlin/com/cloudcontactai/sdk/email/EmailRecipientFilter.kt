@@ -0,0 +1,224 @@
+package com.cloudcontactai.sdk.email
+
+import java.util.stream.IntStream
+
+/**
+ * Addresses that must not be emailed, such as unsubscribes and hard bounces.
+ *
+ * Implementations receive the address trimmed and lower-cased.
+ */
+fun interface EmailSuppressionList {
+    fun isSuppressed(email: String): Boolean
+
+    companion object {
+        @JvmStatic
+        fun of(emails: Collection<String>): EmailSuppressionList {
+            val suppressed = emails.mapTo(HashSet(emails.size * 2)) { EmailAddresses.normalize(it) }
+            return EmailSuppressionList { it in suppressed }
+        }
+    }
+}
+
+enum class EmailDropReason { INVALID, SUPPRESSED, DUPLICATE }
+
+data class DroppedRecipient(
+    val index: Int,
+    val account: EmailAccount,
+    val reason: EmailDropReason
+)
+
+/**
+ * Recipients that passed the filter, in input order, and the ones that were dropped.
+ */
+data class EmailHygieneReport(
+    val accepted: List<EmailAccount>,
+    val dropped: List<DroppedRecipient>
+) {
+    val invalid: Int get() = dropped.count { it.reason == EmailDropReason.INVALID }
+    val suppressed: Int get() = dropped.count { it.reason == EmailDropReason.SUPPRESSED }
+    val duplicates: Int get() = dropped.count { it.reason == EmailDropReason.DUPLICATE }
+}
+
+/**
+ * [parallelThreshold] is the list size from which validation and suppression lookups run on
+ * the common fork-join pool.
+ */
+data class EmailHygieneOptions @JvmOverloads constructor(
+    val suppression: EmailSuppressionList? = null,
+    val parallelThreshold: Int = 10000
+) {
+    init {
+        require(parallelThreshold > 0) { "Parallel threshold must be positive" }
+    }
+}
+
+/**
+ * Syntax check and case-folding hash for email addresses, both a single pass over the
+ * characters without regular expressions or intermediate strings.
+ */
+object EmailAddresses {
+    private const val MAX_LENGTH = 254
+    private const val MAX_LOCAL_LENGTH = 64
+    private const val MAX_LABEL_LENGTH = 63
+
+    // Characters allowed in an unquoted local part besides letters, digits and dots
+    private val LOCAL = BooleanArray(128).also { table ->
+        "!#\$%&'*+-/=?^_`{|}~".forEach { table[it.code] = true }
+        for (c in 'a'..'z') table[c.code] = true
+        for (c in 'A'..'Z') table[c.code] = true
+        for (c in '0'..'9') table[c.code] = true
+    }
+
+    /**
+     * Checks `local@domain` syntax: a dot-atom local part and a domain of at least two
+     * hostname labels. Quoted local parts and IP literals are rejected. Non-ASCII characters
+     * are accepted for internationalized addresses. Surrounding whitespace is ignored.
+     */
+    @JvmStatic
+    fun isValid(email: CharSequence): Boolean {
+        var start = 0
+        var end = email.length
+        while (start < end && email[start].isWhitespace()) start++
+        while (end > start && email[end - 1].isWhitespace()) end--
+        if (end - start > MAX_LENGTH) return false
+
+        var at = -1
+        for (i in start until end) {
+            if (email[i] == '@') {
+                if (at >= 0) return false
+                at = i
+            }
+        }
+        if (at <= start || at - start > MAX_LOCAL_LENGTH || at == end - 1) return false
+        return validLocal(email, start, at) && validDomain(email, at + 1, end)
+    }
+
+    /**
+     * Trimmed, lower-cased form used for suppression lookups.
+     */
+    @JvmStatic
+    fun normalize(email: String): String = email.trim().lowercase()
+
+    /**
+     * 64-bit hash of the trimmed address with letters case-folded, so addresses differing
+     * only in case or surrounding whitespace hash the same.
+     */
+    @JvmStatic
+    fun foldedHash(email: CharSequence): Long {
+        var start = 0
+        var end = email.length
+        while (start < end && email[start].isWhitespace()) start++
+        while (end > start && email[end - 1].isWhitespace()) end--
+        // FNV-1a
+        var hash = -0x340d631b7bdddcdbL
+        for (i in start until end) {
+            hash = (hash xor fold(email[i]).code.toLong()) * 0x100000001b3L
+        }
+        return hash
+    }
+
+    internal fun foldedEquals(a: String, b: String): Boolean = a.trim().equals(b.trim(), ignoreCase = true)
+
+    private fun fold(c: Char): Char = if (c in 'A'..'Z') c + 32 else if (c.code < 128) c else c.lowercaseChar()
+
+    private fun validLocal(email: CharSequence, start: Int, end: Int): Boolean {
+        var previousDot = true
+        for (i in start until end) {
+            val c = email[i]
+            if (c == '.') {
+                if (previousDot) return false
+                previousDot = true
+            } else {
+                if (c.code < 128 && !LOCAL[c.code]) return false
+                previousDot = false
+            }
+        }
+        return !previousDot
+    }
+
+    private fun validDomain(email: CharSequence, start: Int, end: Int): Boolean {
+        var labels = 0
+        var labelStart = start
+        var lastLabelAllDigits = true
+        for (i in start..end) {
+            if (i == end || email[i] == '.') {
+                val length = i - labelStart
+                if (length == 0 || length > MAX_LABEL_LENGTH) return false
+                if (email[labelStart] == '-' || email[i - 1] == '-') return false
+                labels++
+                if (i < end) {
+                    labelStart = i + 1
+                    lastLabelAllDigits = true
+                }
+                continue
+            }
+            val c = email[i]
+            val digit = c in '0'..'9'
+            if (!digit) lastLabelAllDigits = false
+            if (c.code < 128 && !digit && c != '-' && c !in 'a'..'z' && c !in 'A'..'Z') return false
+        }
+        return labels >= 2 && !lastLabelAllDigits
+    }
+}
+
+/**
+ * Drops invalid, suppressed and duplicate email recipients before a campaign is sent.
+ *
+ * Duplicates are found by case-folded address; the first occurrence is kept. Validation and
+ * suppression lookups run in parallel for large lists, deduplication then walks the list once
+ * in order so the result does not depend on scheduling.
+ */
+class EmailRecipientFilter @JvmOverloads constructor(private val options: EmailHygieneOptions = EmailHygieneOptions()) {
+
+    fun filter(accounts: List<EmailAccount>): EmailHygieneReport {
+        val size = accounts.size
+        val drops = arrayOfNulls<EmailDropReason>(size)
+        val hashes = LongArray(size)
+        val suppression = options.suppression
+
+        val range = IntStream.range(0, size)
+        (if (size >= options.parallelThreshold) range.parallel() else range).forEach { i ->
+            val email = accounts[i].email
+            drops[i] = when {
+                !EmailAddresses.isValid(email) -> EmailDropReason.INVALID
+                suppression != null && suppression.isSuppressed(EmailAddresses.normalize(email)) -> EmailDropReason.SUPPRESSED
+                else -> {
+                    hashes[i] = EmailAddresses.foldedHash(email)
+                    null
+                }
+            }
+        }
+
+        // First index seen per hash; colliding but different addresses fall back to a list scan
+        val seen = HashMap<Long, Any>(size * 2)
+        val accepted = ArrayList<EmailAccount>(size)
+        val dropped = ArrayList<DroppedRecipient>()
+        for (i in 0 until size) {
+            val reason = drops[i] ?: if (isDuplicate(seen, hashes[i], i, accounts)) EmailDropReason.DUPLICATE else null
+            if (reason == null) {
+                accepted.add(accounts[i])
+            } else {
+                dropped.add(DroppedRecipient(i, accounts[i], reason))
+            }
+        }
+        return EmailHygieneReport(accepted, dropped)
+    }
+
+    private fun isDuplicate(seen: HashMap<Long, Any>, hash: Long, index: Int, accounts: List<EmailAccount>): Boolean {
+        val email = accounts[index].email
+        when (val existing = seen[hash]) {
+            null -> seen[hash] = index
+            is Int -> {
+                if (EmailAddresses.foldedEquals(accounts[existing].email, email)) return true
+                seen[hash] = mutableListOf(existing, index)
+            }
+            else -> {
+                @Suppress("UNCHECKED_CAST")
+                val indexes = existing as MutableList<Int>
+                if (indexes.any { EmailAddresses.foldedEquals(accounts[it].email, email) }) return true
+                indexes.add(index)
+            }
+        }
+        return false
+    }
+}
@@ -1,9 +1,22 @@
 package com.cloudcontactai.sdk.email
 
+import com.cloudcontactai.sdk.campaign.CampaignStatuses
 import com.cloudcontactai.sdk.common.ApiClient
 import com.cloudcontactai.sdk.common.CCAIConfig
+import com.cloudcontactai.sdk.common.CacheStats
+import com.cloudcontactai.sdk.common.ExpiringCache
+import com.cloudcontactai.sdk.common.SendPriority
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
 
 class EmailService(private val config: CCAIConfig, private val apiClient: ApiClient) {
+    private val statusCache = if (config.statusCacheTtlMs > 0) {
+        ExpiringCache<String, EmailCampaignStatus>(config.statusCacheMaxEntries)
+    } else {
+        null
+    }
+    private val bodyEncoder = EmailBodyEncoder(config.minifyEmailHtml, config.emailBodyCacheMaxEntries)
     
     fun sendSingle(
         firstName: String,
@@ -32,13 +45,15 @@ class EmailService(private val config: CCAIConfig, private val apiClient: ApiCli
         )
     }
     
+    @JvmOverloads
     fun send(
         accounts: List<EmailAccount>,
         subject: String,
         htmlContent: String,
         senderEmail: String = "noreply@cloudcontactai.com",
         replyEmail: String = "noreply@cloudcontactai.com",
-        senderName: String = "CloudContactAI"
+        senderName: String = "CloudContactAI",
+        priority: SendPriority = SendPriority.NORMAL
     ): EmailResponse {
         val campaign = EmailCampaign(
             subject = subject,
@@ -50,6 +65,76 @@ class EmailService(private val config: CCAIConfig, private val apiClient: ApiCli
             accounts = accounts
         )
         
+        return post(campaign, bodyEncoder.encode(htmlContent), priority)
+    }
+    
+    /**
+     * Sends to a large audience in batches bounded by [EmailBulkOptions], with up to
+     * [EmailBulkOptions.parallelism] requests in flight. Each batch is sent from the next
+     * sender in [EmailBulkOptions.senders], which is also listed in the campaign's `senders`.
+     */
+    @JvmOverloads
+    fun sendBulk(
+        accounts: List<EmailAccount>,
+        subject: String,
+        htmlContent: String,
+        options: EmailBulkOptions = EmailBulkOptions()
+    ): EmailBulkResult {
+        val senders = options.senders.ifEmpty { listOf(DEFAULT_SENDER) }
+        val batches = chunk(accounts, options)
+        if (batches.isEmpty()) return EmailBulkResult(emptyList())
+        // Escaped once and spliced into every batch
+        val body = bodyEncoder.encode(htmlContent)
+
+        val threadCount = AtomicInteger()
+        val executor = Executors.newFixedThreadPool(minOf(options.parallelism, batches.size)) { runnable ->
+            Thread(runnable, "ccai-email-bulk-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+        }
+        try {
+            val futures = batches.mapIndexed { index, (from, to) ->
+                val sender = senders[index % senders.size]
+                CompletableFuture.supplyAsync({
+                    val campaign = EmailCampaign(
+                        subject = subject,
+                        title = subject,
+                        message = htmlContent,
+                        senderEmail = sender.email,
+                        replyEmail = sender.replyEmail,
+                        senderName = sender.name,
+                        accounts = accounts.subList(from, to),
+                        senders = listOf(sender)
+                    )
+                    try {
+                        EmailBatchResult(sender, from, to - from, response = post(campaign, body, options.priority))
+                    } catch (e: Exception) {
+                        EmailBatchResult(sender, from, to - from, error = e.message ?: e.javaClass.simpleName)
+                    }
+                }, executor)
+            }
+            return EmailBulkResult(futures.map { it.join() })
+        } finally {
+            executor.shutdown()
+        }
+    }
+    
+    private fun chunk(accounts: List<EmailAccount>, options: EmailBulkOptions): List<Pair<Int, Int>> {
+        val batches = ArrayList<Pair<Int, Int>>()
+        var from = 0
+        var bytes = 0L
+        accounts.forEachIndexed { index, account ->
+            val accountBytes = estimatedJsonBytes(account)
+            if (index > from && (index - from >= options.maxBatchSize || bytes + accountBytes > options.maxBatchBytes)) {
+                batches.add(from to index)
+                from = index
+                bytes = 0
+            }
+            bytes += accountBytes
+        }
+        if (from < accounts.size) batches.add(from to accounts.size)
+        return batches
+    }
+    
+    private fun post(campaign: EmailCampaign, body: EncodedEmailBody, priority: SendPriority): EmailResponse {
         val headers = mapOf(
             "AccountId" to config.clientId,
             "ClientId" to config.clientId
@@ -58,14 +143,56 @@ class EmailService(private val config: CCAIConfig, private val apiClient: ApiCli
         return apiClient.request(
             method = "POST",
             endpoint = "/campaigns",
-            data = campaign,
+            data = EncodedEmailCampaign(campaign, body),
             baseUrl = config.emailBaseUrl,
             headers = headers,
-            responseClass = EmailResponse::class.java
+            responseClass = EmailResponse::class.java,
+            priority = priority
         )
     }
     
+    /**
+     * Drops invalid, suppressed and duplicate recipients before sending and reports what was
+     * dropped.
+     */
+    @JvmOverloads
+    fun sendFiltered(
+        accounts: List<EmailAccount>,
+        subject: String,
+        htmlContent: String,
+        senderEmail: String = "noreply@cloudcontactai.com",
+        replyEmail: String = "noreply@cloudcontactai.com",
+        senderName: String = "CloudContactAI",
+        hygiene: EmailHygieneOptions = EmailHygieneOptions()
+    ): FilteredEmailResponse {
+        val report = EmailRecipientFilter(hygiene).filter(accounts)
+        if (report.accepted.isEmpty()) return FilteredEmailResponse(null, report)
+
+        val response = send(report.accepted, subject, htmlContent, senderEmail, replyEmail, senderName)
+        return FilteredEmailResponse(response, report)
+    }
+    
+    /**
+     * Cache hits and encoding cost of email bodies.
+     */
+    fun emailBodyStats(): EmailBodyStats = bodyEncoder.stats()
+    
     fun getCampaignStatus(campaignId: String): EmailCampaignStatus {
+        val cache = statusCache ?: return fetchCampaignStatus(campaignId)
+        cache.get(campaignId)?.let { return it }
+
+        val status = fetchCampaignStatus(campaignId)
+        val terminal = CampaignStatuses.isTerminal(status.status, status.totalEmails, status.sentEmails + status.failedEmails)
+        cache.put(campaignId, status, if (terminal) config.statusCacheTerminalTtlMs else config.statusCacheTtlMs)
+        return status
+    }
+
+    /**
+     * Hit and miss counts of the campaign status cache, or null when caching is disabled.
+     */
+    fun statusCacheStats(): CacheStats? = statusCache?.stats()
+
+    internal fun fetchCampaignStatus(campaignId: String): EmailCampaignStatus {
         val headers = mapOf(
             "AccountId" to config.clientId,
             "ClientId" to config.clientId
@@ -79,4 +206,8 @@ class EmailService(private val config: CCAIConfig, private val apiClient: ApiCli
             responseClass = EmailCampaignStatus::class.java
         )
     }
+
+    private companion object {
+        val DEFAULT_SENDER = EmailSender("noreply@cloudcontactai.com", "CloudContactAI")
+    }
 }
@@ -0,0 +1,72 @@
+package com.cloudcontactai.sdk.mms
+
+import com.cloudcontactai.sdk.common.RateLimiter
+import okhttp3.MediaType
+import okhttp3.RequestBody
+import okio.Buffer
+import okio.BufferedSink
+import okio.ForwardingSink
+import okio.buffer
+
+/**
+ * Settings for [MMSService.uploadBulk]. [maxBytesPerSecond] caps the combined upload
+ * bandwidth of all workers, 0 leaves it unthrottled.
+ */
+data class BulkMediaUploadOptions @JvmOverloads constructor(
+    val parallelism: Int = 4,
+    val maxBytesPerSecond: Long = 0
+) {
+    init {
+        require(parallelism > 0) { "Parallelism must be positive" }
+        require(maxBytesPerSecond >= 0) { "Max bytes per second must be non-negative" }
+    }
+}
+
+/**
+ * Outcome of a bulk upload.
+ *
+ * [mediaKeys] is aligned with the input list and holds null where hashing or uploading that
+ * item failed. [fileKeys] maps each content hash to the file key to pass to [MMSService.send].
+ */
+data class BulkMediaUploadResult(
+    val mediaKeys: List<MediaKey?>,
+    val fileKeys: Map<String, String>,
+    val uploaded: Int,
+    val alreadyStored: Int,
+    val duplicates: Int,
+    val bytesUploaded: Long,
+    val failures: Map<Int, Exception>,
+    val elapsedMs: Long
+)
+
+/**
+ * Request body that draws every chunk it writes from a shared byte [limiter].
+ */
+internal class ThrottledRequestBody(
+    private val delegate: RequestBody,
+    private val limiter: RateLimiter
+) : RequestBody() {
+    override fun contentType(): MediaType? = delegate.contentType()
+
+    override fun contentLength(): Long = delegate.contentLength()
+
+    override fun writeTo(sink: BufferedSink) {
+        val throttled = object : ForwardingSink(sink) {
+            override fun write(source: Buffer, byteCount: Long) {
+                var remaining = byteCount
+                while (remaining > 0) {
+                    val chunk = minOf(remaining, CHUNK_BYTES)
+                    limiter.acquire(chunk.toInt())
+                    super.write(source, chunk)
+                    remaining -= chunk
+                }
+            }
+        }.buffer()
+        delegate.writeTo(throttled)
+        throttled.emit()
+    }
+
+    private companion object {
+        const val CHUNK_BYTES = 16L * 1024
+    }
+}
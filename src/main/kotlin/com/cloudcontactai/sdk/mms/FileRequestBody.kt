@@ -0,0 +1,63 @@
+package com.cloudcontactai.sdk.mms
+
+import okhttp3.MediaType
+import okhttp3.RequestBody
+import okio.BufferedSink
+import java.io.File
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+
+/**
+ * Receives the number of bytes written so far while a file is uploaded.
+ */
+fun interface UploadProgressListener {
+    fun onProgress(bytesWritten: Long, totalBytes: Long)
+}
+
+/**
+ * Request body that streams [file] from a [FileChannel] through one fixed-size buffer, so
+ * memory use stays constant regardless of file size.
+ *
+ * [offset] and [count] select a byte range, as used for the parts of a chunked upload.
+ * OkHttp may write a body more than once when it retries, so each write starts from the
+ * beginning of the range and progress restarts with it.
+ */
+class FileRequestBody @JvmOverloads constructor(
+    private val file: File,
+    private val contentType: MediaType?,
+    private val progress: UploadProgressListener? = null,
+    private val bufferSize: Int = 64 * 1024,
+    private val offset: Long = 0,
+    count: Long = file.length() - offset
+) : RequestBody() {
+    private val length = count
+
+    init {
+        require(bufferSize > 0) { "Buffer size must be positive" }
+        require(offset >= 0 && count >= 0) { "Offset and count must be non-negative" }
+    }
+
+    override fun contentType(): MediaType? = contentType
+
+    override fun contentLength(): Long = length
+
+    override fun writeTo(sink: BufferedSink) {
+        val buffer = ByteBuffer.allocate(bufferSize)
+        var written = 0L
+        FileChannel.open(file.toPath(), StandardOpenOption.READ).use { channel ->
+            channel.position(offset)
+            while (written < length) {
+                buffer.clear()
+                if (length - written < bufferSize) buffer.limit((length - written).toInt())
+                if (channel.read(buffer) == -1) break
+                buffer.flip()
+                while (buffer.hasRemaining()) {
+                    written += sink.write(buffer)
+                }
+                progress?.onProgress(written, length)
+            }
+        }
+        check(written == length) { "File ${file.name} changed size during upload" }
+    }
+}
@@ -63,3 +63,27 @@ data class SignedUploadUrlResponse(
 data class StoredUrlResponse(
     val storedUrl: String
 )
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+data class MultipartUploadRequest(
+    val fileName: String,
+    val fileType: String,
+    val fileBasePath: String,
+    val publicFile: Boolean,
+    val fileSize: Long,
+    val partSize: Long
+)
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+data class MultipartUploadResponse(
+    val uploadId: String
+)
+
+data class UploadedPart(
+    val partNumber: Int,
+    val etag: String
+)
+
+data class CompleteMultipartUploadRequest(
+    val parts: List<UploadedPart>
+)
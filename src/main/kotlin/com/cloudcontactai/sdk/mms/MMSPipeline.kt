@@ -0,0 +1,201 @@
+package com.cloudcontactai.sdk.mms
+
+import java.io.File
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.Semaphore
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+enum class MMSPipelineStage { HASH, CHECK, UPLOAD, SEND }
+
+/**
+ * Thread count per stage of an [MMSPipeline]. [HASH] includes image optimization when it is
+ * configured, and [CHECK] covers the stored-file lookup and the
+ * signed URL request. Each stage accepts at most [queueCapacity] waiting tasks; beyond that
+ * the stage feeding it blocks, so a slow stage throttles the ones before it.
+ */
+data class MMSPipelineOptions @JvmOverloads constructor(
+    val hashThreads: Int = 2,
+    val checkThreads: Int = 8,
+    val uploadThreads: Int = 4,
+    val sendThreads: Int = 4,
+    val queueCapacity: Int = 256
+) {
+    init {
+        require(hashThreads > 0) { "Hash threads must be positive" }
+        require(checkThreads > 0) { "Check threads must be positive" }
+        require(uploadThreads > 0) { "Upload threads must be positive" }
+        require(sendThreads > 0) { "Send threads must be positive" }
+        require(queueCapacity > 0) { "Queue capacity must be positive" }
+    }
+}
+
+data class MMSStageStats(
+    val stage: MMSPipelineStage,
+    val queued: Int,
+    val active: Int,
+    val completed: Long,
+    val failed: Long,
+    val averageQueueWaitMs: Double,
+    val averageLatencyMs: Double,
+    val maxLatencyMs: Double
+)
+
+/**
+ * Sends MMS campaigns through overlapping hash, check, upload and send stages, each with its
+ * own threads, so many campaigns progress at once instead of one round trip at a time.
+ *
+ * Campaigns submitted with the same image while its upload is still in flight share that
+ * upload.
+ */
+class MMSPipeline @JvmOverloads constructor(
+    private val mms: MMSService,
+    options: MMSPipelineOptions = MMSPipelineOptions()
+) : AutoCloseable {
+    private val hash = Stage(MMSPipelineStage.HASH, options.hashThreads, options.queueCapacity)
+    private val check = Stage(MMSPipelineStage.CHECK, options.checkThreads, options.queueCapacity)
+    private val upload = Stage(MMSPipelineStage.UPLOAD, options.uploadThreads, options.queueCapacity)
+    private val send = Stage(MMSPipelineStage.SEND, options.sendThreads, options.queueCapacity)
+    private val pendingUploads = ConcurrentHashMap<String, CompletableFuture<String>>()
+    @Volatile private var closed = false
+
+    @JvmOverloads
+    fun submit(
+        accounts: List<Account>,
+        message: String,
+        title: String,
+        imageFile: File,
+        senderPhone: String? = null
+    ): CompletableFuture<MMSResponse> = submit(accounts, message, title, MediaSource.of(imageFile), senderPhone)
+
+    @JvmOverloads
+    fun submit(
+        accounts: List<Account>,
+        message: String,
+        title: String,
+        media: MediaSource,
+        senderPhone: String? = null
+    ): CompletableFuture<MMSResponse> {
+        check(!closed) { "MMS pipeline is closed" }
+        return hash.submit { mms.prepare(media) }
+            .thenCompose { prepared -> uploadOnce(prepared) }
+            .thenCompose { fileKey -> send.submit { mms.send(accounts, message, title, fileKey, senderPhone) } }
+    }
+
+    fun stats(): List<MMSStageStats> = listOf(hash, check, upload, send).map { it.stats() }
+
+    /**
+     * Waits for every submitted campaign to finish and stops the stage threads.
+     */
+    override fun close() {
+        closed = true
+        listOf(hash, check, upload, send).forEach { it.drain() }
+    }
+
+    private fun uploadOnce(prepared: PreparedMedia): CompletableFuture<String> {
+        val fileKey = prepared.key.fileKey
+        val created = CompletableFuture<String>()
+        val existing = pendingUploads.putIfAbsent(fileKey, created)
+        if (existing != null) return existing
+
+        val checked = try {
+            check.submit {
+                if (mms.checkFileUploaded(fileKey).storedUrl.isEmpty()) mms.signedUploadUrlFor(prepared.media, fileKey) else null
+            }
+        } catch (e: Exception) {
+            // Rejected after close or interrupted while waiting for capacity
+            pendingUploads.remove(fileKey, created)
+            created.completeExceptionally(e)
+            return created
+        }
+        checked.thenCompose { signedUrl ->
+            if (signedUrl == null) {
+                CompletableFuture.completedFuture(fileKey)
+            } else {
+                upload.submit { mms.uploadMedia(signedUrl, prepared.media, null); fileKey }
+            }
+        }.whenComplete { key, error ->
+            pendingUploads.remove(fileKey, created)
+            if (error != null) created.completeExceptionally(error) else created.complete(key)
+        }
+        return created
+    }
+
+    private class Stage(private val stage: MMSPipelineStage, threads: Int, queueCapacity: Int) {
+        private val executor: ExecutorService
+        private val capacity = Semaphore(queueCapacity + threads)
+        private val queued = AtomicInteger()
+        private val active = AtomicInteger()
+        private val completed = AtomicLong()
+        private val failed = AtomicLong()
+        private val queueWaitNanos = AtomicLong()
+        private val latencyNanos = AtomicLong()
+        private val maxLatencyNanos = AtomicLong()
+
+        init {
+            val threadCount = AtomicInteger()
+            val name = stage.name.lowercase()
+            executor = Executors.newFixedThreadPool(threads) { runnable ->
+                Thread(runnable, "ccai-mms-$name-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+            }
+        }
+
+        fun <T> submit(block: () -> T): CompletableFuture<T> {
+            capacity.acquire()
+            val future = CompletableFuture<T>()
+            val enqueued = System.nanoTime()
+            queued.incrementAndGet()
+            try {
+                executor.execute {
+                    val started = System.nanoTime()
+                    queued.decrementAndGet()
+                    active.incrementAndGet()
+                    queueWaitNanos.addAndGet(started - enqueued)
+                    val result = runCatching(block)
+                    val latency = System.nanoTime() - started
+                    latencyNanos.addAndGet(latency)
+                    maxLatencyNanos.accumulateAndGet(latency, ::maxOf)
+                    if (result.isSuccess) completed.incrementAndGet() else failed.incrementAndGet()
+                    capacity.release()
+                    // Completing runs the hand-off to the next stage, which must happen while still active
+                    result.fold({ future.complete(it) }, { future.completeExceptionally(it) })
+                    active.decrementAndGet()
+                }
+            } catch (e: RejectedExecutionException) {
+                queued.decrementAndGet()
+                capacity.release()
+                throw e
+            }
+            return future
+        }
+
+        fun stats(): MMSStageStats {
+            val finished = completed.get() + failed.get()
+            return MMSStageStats(
+                stage = stage,
+                queued = queued.get(),
+                active = active.get(),
+                completed = completed.get(),
+                failed = failed.get(),
+                averageQueueWaitMs = if (finished > 0) queueWaitNanos.get() / 1_000_000.0 / finished else 0.0,
+                averageLatencyMs = if (finished > 0) latencyNanos.get() / 1_000_000.0 / finished else 0.0,
+                maxLatencyMs = maxLatencyNanos.get() / 1_000_000.0
+            )
+        }
+
+        /**
+         * Shuts this stage down and waits for its tasks, including their hand-offs to the next
+         * stage. Stages are drained in pipeline order, so later stages have received all their
+         * work by the time they are drained.
+         */
+        fun drain() {
+            executor.shutdown()
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)
+        }
+    }
+}
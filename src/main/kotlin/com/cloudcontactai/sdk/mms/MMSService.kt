@@ -3,18 +3,41 @@ package com.cloudcontactai.sdk.mms
 import com.cloudcontactai.sdk.common.ApiClient
 import com.cloudcontactai.sdk.common.CCAIConfig
 import com.cloudcontactai.sdk.common.CCAIException
+import com.cloudcontactai.sdk.common.CacheStats
+import com.cloudcontactai.sdk.common.RateLimiter
+import com.cloudcontactai.sdk.common.SendPriority
+import com.cloudcontactai.sdk.sender.SenderPoolDispatcher
+import com.cloudcontactai.sdk.sender.SenderPoolResult
 import com.fasterxml.jackson.module.kotlin.jacksonObjectMapper
 import okhttp3.MediaType.Companion.toMediaType
 import okhttp3.OkHttpClient
 import okhttp3.Request
+import okhttp3.RequestBody
 import okhttp3.RequestBody.Companion.toRequestBody
 import java.io.File
-import java.io.FileInputStream
-import java.security.MessageDigest
+import java.io.InputStream
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+import java.nio.ByteBuffer
 
 class MMSService(private val config: CCAIConfig, private val apiClient: ApiClient) {
     private val httpClient = OkHttpClient()
     private val objectMapper = jacksonObjectMapper()
+    private val mediaCache = if (config.mediaCacheMaxEntries > 0) {
+        // Room for every entry in half the journal, which is all a compaction keeps
+        val journalBytes = (config.mediaCacheMaxEntries.toLong() * 2 * MEDIA_CACHE_RECORD_BYTES)
+            .coerceIn(MEDIA_CACHE_MIN_JOURNAL_BYTES, MEDIA_CACHE_MAX_JOURNAL_BYTES)
+        MediaKeyCache(config.mediaCacheMaxEntries, config.mediaCacheFile?.let { File(it) }, journalBytes.toInt())
+    } else {
+        null
+    }
+    private val optimizer = config.mediaOptimizer?.let { MediaOptimizer(it) }
+    // Content hash of an original image to the key of its optimized form
+    private val optimizedKeys = object : LinkedHashMap<String, MediaKey>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, MediaKey>?) = size > OPTIMIZED_KEYS_MAX_ENTRIES
+    }
 
     fun getSignedUploadUrl(request: SignedUploadUrlRequest): SignedUploadUrlResponse {
         val url = "${config.filesBaseUrl}/upload/url"
@@ -55,10 +78,21 @@ class MMSService(private val config: CCAIConfig, private val apiClient: ApiClien
         }
     }
 
-    fun uploadImageToSignedUrl(signedUrl: String, imageFile: File, contentType: String = "image/jpeg") {
+    /**
+     * Streams [imageFile] to the signed URL without loading it into memory.
+     */
+    @JvmOverloads
+    fun uploadImageToSignedUrl(
+        signedUrl: String,
+        imageFile: File,
+        contentType: String = "image/jpeg",
+        progress: UploadProgressListener? = null
+    ) {
         val mediaType = contentType.toMediaType()
-        val requestBody = imageFile.readBytes().toRequestBody(mediaType)
-        
+        upload(signedUrl, FileRequestBody(imageFile, mediaType, progress), contentType)
+    }
+
+    private fun upload(signedUrl: String, requestBody: RequestBody, contentType: String) {
         val request = Request.Builder()
             .url(signedUrl)
             .put(requestBody)
@@ -72,12 +106,39 @@ class MMSService(private val config: CCAIConfig, private val apiClient: ApiClien
         }
     }
 
+    /**
+     * Authenticated call to the files API. Returns the response body and its ETag header.
+     */
+    internal fun filesCall(method: String, path: String, body: RequestBody?): Pair<String, String?> {
+        val request = Request.Builder()
+            .url("${config.filesBaseUrl}$path")
+            .method(method, body)
+            .addHeader("Authorization", "Bearer ${config.apiKey}")
+            .build()
+
+        httpClient.newCall(request).execute().use { response ->
+            val responseBody = response.body?.string() ?: ""
+            if (!response.isSuccessful) {
+                throw CCAIException("HTTP ${response.code}: $responseBody", statusCode = response.code)
+            }
+            return responseBody to response.header("ETag")
+        }
+    }
+
+    internal fun jsonBody(data: Any): RequestBody {
+        return objectMapper.writeValueAsString(data).toRequestBody("application/json".toMediaType())
+    }
+
+    internal fun <T> readJson(json: String, type: Class<T>): T = objectMapper.readValue(json, type)
+
+    @JvmOverloads
     fun send(
         accounts: List<Account>,
         message: String,
         title: String,
         pictureFileKey: String,
-        senderPhone: String? = null
+        senderPhone: String? = null,
+        priority: SendPriority = SendPriority.NORMAL
     ): MMSResponse {
         val campaign = MMSCampaign(
             accounts = accounts,
@@ -91,10 +152,26 @@ class MMSService(private val config: CCAIConfig, private val apiClient: ApiClien
             method = "POST",
             endpoint = "/clients/${config.clientId}/campaigns/direct",
             data = campaign,
-            responseClass = MMSResponse::class.java
+            responseClass = MMSResponse::class.java,
+            priority = priority
         )
     }
 
+    /**
+     * Sends to [accounts] through every number in [senderPool], one campaign per scheduled batch.
+     */
+    fun send(
+        accounts: List<Account>,
+        message: String,
+        title: String,
+        pictureFileKey: String,
+        senderPool: SenderPoolDispatcher
+    ): SenderPoolResult<MMSResponse> {
+        return senderPool.dispatch(accounts) { batch, senderPhone ->
+            send(batch, message, title, pictureFileKey, senderPhone)
+        }.join()
+    }
+
     fun sendSingle(
         firstName: String,
         lastName: String,
@@ -139,52 +216,246 @@ class MMSService(private val config: CCAIConfig, private val apiClient: ApiClien
         return send(listOf(account), message, title, pictureFileKey, senderPhone)
     }
 
+    @JvmOverloads
     fun sendWithImage(
         accounts: List<Account>,
         message: String,
         title: String,
         imageFile: File,
-        senderPhone: String? = null
+        senderPhone: String? = null,
+        progress: UploadProgressListener? = null
     ): MMSResponse {
-        val md5Image = md5(imageFile)
-        val extension = imageFile.extension.lowercase()
-        val fileName = "${md5Image}.${extension}"
-        val fileKey = "${config.clientId}/campaign/${fileName}"
+        val fileId = mediaCache?.let { MediaFileId.of(imageFile) }
+        // A file unchanged since its last upload needs neither hashing nor a storedUrl check
+        fileId?.let { id -> mediaCache?.get(id) }?.let { cached ->
+            return send(accounts, message, title, cached.fileKey, senderPhone)
+        }
+
+        val mediaKey = uploadIfMissing(prepare(MediaSource.of(imageFile)), progress)
+        fileId?.let { id -> mediaCache?.put(id, mediaKey) }
+        return send(accounts, message, title, mediaKey.fileKey, senderPhone)
+    }
+
+    /**
+     * Sends an image held in memory; the content type is detected from its magic bytes.
+     */
+    @JvmOverloads
+    fun sendWithImage(
+        accounts: List<Account>,
+        message: String,
+        title: String,
+        image: ByteArray,
+        senderPhone: String? = null,
+        progress: UploadProgressListener? = null
+    ): MMSResponse = sendWithMedia(accounts, message, title, MediaSource.of(image), senderPhone, progress)
+
+    /**
+     * Sends the remaining bytes of [image], which may be a direct or memory-mapped buffer.
+     */
+    @JvmOverloads
+    fun sendWithImage(
+        accounts: List<Account>,
+        message: String,
+        title: String,
+        image: ByteBuffer,
+        senderPhone: String? = null,
+        progress: UploadProgressListener? = null
+    ): MMSResponse = sendWithMedia(accounts, message, title, MediaSource.of(image), senderPhone, progress)
+
+    /**
+     * Reads [length] bytes of [image] once, hashing them on the way, and sends them.
+     */
+    @JvmOverloads
+    fun sendWithImage(
+        accounts: List<Account>,
+        message: String,
+        title: String,
+        image: InputStream,
+        length: Long,
+        senderPhone: String? = null,
+        progress: UploadProgressListener? = null
+    ): MMSResponse = sendWithMedia(accounts, message, title, MediaSource.of(image, length), senderPhone, progress)
+
+    @JvmOverloads
+    fun sendWithMedia(
+        accounts: List<Account>,
+        message: String,
+        title: String,
+        media: MediaSource,
+        senderPhone: String? = null,
+        progress: UploadProgressListener? = null
+    ): MMSResponse {
+        val mediaKey = uploadIfMissing(prepare(media), progress)
+        return send(accounts, message, title, mediaKey.fileKey, senderPhone)
+    }
+
+    /**
+     * Hashes every item, then checks and uploads each distinct hash once with bounded
+     * parallelism. Items that fail are reported in the result rather than thrown.
+     */
+    @JvmOverloads
+    fun uploadBulk(media: List<MediaSource>, options: BulkMediaUploadOptions = BulkMediaUploadOptions()): BulkMediaUploadResult {
+        val startTime = System.currentTimeMillis()
+        val limiter = if (options.maxBytesPerSecond > 0) {
+            RateLimiter(options.maxBytesPerSecond.toDouble(), maxOf(options.maxBytesPerSecond.toDouble(), 64.0 * 1024))
+        } else {
+            null
+        }
+        val threadCount = AtomicInteger()
+        val executor = Executors.newFixedThreadPool(options.parallelism) { runnable ->
+            Thread(runnable, "ccai-mms-bulk-upload-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+        }
+        val failures = ConcurrentHashMap<Int, Exception>()
+        try {
+            val hashed = media.mapIndexed { index, item ->
+                executor.submit<Pair<PreparedMedia, MediaKey>?> {
+                    try {
+                        val prepared = prepare(item)
+                        prepared to prepared.key
+                    } catch (e: Exception) {
+                        failures[index] = e
+                        null
+                    }
+                }
+            }.map { it.get() }
+
+            val unique = LinkedHashMap<String, PreparedMedia>()
+            hashed.filterNotNull().forEach { (prepared, key) -> unique.putIfAbsent(key.fileKey, prepared) }
+
+            val uploaded = AtomicInteger()
+            val alreadyStored = AtomicInteger()
+            val bytesUploaded = AtomicLong()
+            val failedKeys = ConcurrentHashMap<String, Exception>()
+            unique.map { (fileKey, prepared) ->
+                executor.submit {
+                    try {
+                        if (checkFileUploaded(fileKey).storedUrl.isNotEmpty()) {
+                            alreadyStored.incrementAndGet()
+                        } else {
+                            val optimized = prepared.media
+                            val body = optimized.requestBody(optimized.contentType.toMediaType(), null)
+                            upload(signedUploadUrlFor(optimized, fileKey), limiter?.let { ThrottledRequestBody(body, it) } ?: body, optimized.contentType)
+                            uploaded.incrementAndGet()
+                            bytesUploaded.addAndGet(optimized.length)
+                        }
+                    } catch (e: Exception) {
+                        failedKeys[fileKey] = e
+                    }
+                }
+            }.forEach { it.get() }
+
+            val mediaKeys = hashed.mapIndexed { index, entry ->
+                val key = entry?.second ?: return@mapIndexed null
+                failedKeys[key.fileKey]?.let { error ->
+                    failures[index] = error
+                    return@mapIndexed null
+                }
+                key
+            }
+            return BulkMediaUploadResult(
+                mediaKeys = mediaKeys,
+                fileKeys = mediaKeys.filterNotNull().associate { it.md5 to it.fileKey },
+                uploaded = uploaded.get(),
+                alreadyStored = alreadyStored.get(),
+                duplicates = hashed.count { it != null } - unique.size,
+                bytesUploaded = bytesUploaded.get(),
+                failures = failures.toSortedMap(),
+                elapsedMs = System.currentTimeMillis() - startTime
+            )
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    /**
+     * [uploadBulk] for files on disk.
+     */
+    @JvmOverloads
+    fun uploadFiles(files: List<File>, options: BulkMediaUploadOptions = BulkMediaUploadOptions()): BulkMediaUploadResult {
+        return uploadBulk(files.map { MediaSource.of(it) }, options)
+    }
+
+    /**
+     * Uploads [file] in parts that are retried individually and resumed after a restart, and
+     * returns the file key to pass to [send]. Experimental, see [ResumableUploadOptions] for the
+     * endpoints it needs.
+     */
+    @JvmOverloads
+    fun uploadResumable(file: File, options: ResumableUploadOptions, progress: UploadProgressListener? = null): String {
+        return ResumableUploader(this, options).upload(file, progress)
+    }
+
+    /**
+     * Uploads [media] under its content hash unless a file with that key is already stored.
+     */
+    private fun uploadIfMissing(prepared: PreparedMedia, progress: UploadProgressListener?): MediaKey {
+        val fileKey = prepared.key.fileKey
 
         //Check if the same image has already been uploaded
         val storedUrlResponse = checkFileUploaded(fileKey)
-        if(storedUrlResponse.storedUrl.isNotEmpty()){
-            return send(accounts, message, title, fileKey, senderPhone)
+        if(storedUrlResponse.storedUrl.isEmpty()){
+            uploadMedia(signedUploadUrlFor(prepared.media, fileKey), prepared.media, progress)
         }
+        return prepared.key
+    }
+
+    /**
+     * Time spent shrinking images against the bytes saved, null unless an optimizer is configured.
+     */
+    fun mediaOptimizerStats(): MediaOptimizerStats? = optimizer?.stats()
 
-        val contentType = when (extension) {
-            "jpg", "jpeg" -> "image/jpeg"
-            "png" -> "image/png"
-            "gif" -> "image/gif"
-            else -> "image/jpeg"
+    /**
+     * Key [media] is stored under once optimized. An image seen before is only hashed; it is
+     * optimized again only if its optimized form has to be uploaded.
+     */
+    internal fun prepare(media: MediaSource): PreparedMedia {
+        val optimizer = optimizer ?: return PreparedMedia(keyOf(media), media)
+        val original = media.md5()
+        synchronized(optimizedKeys) { optimizedKeys[original] }?.let { key ->
+            return PreparedMedia(key) { optimizer.optimize(media) }
         }
+        val optimized = optimizer.optimize(media)
+        val key = if (optimized === media) MediaKey(original, fileKeyFor(media, original)) else keyOf(optimized)
+        synchronized(optimizedKeys) { optimizedKeys[original] = key }
+        return PreparedMedia(key, optimized)
+    }
+
+    private fun keyOf(media: MediaSource): MediaKey {
+        val md5 = media.md5()
+        return MediaKey(md5, fileKeyFor(media, md5))
+    }
+
+    internal fun fileKeyFor(media: MediaSource, md5: String): String {
+        return "${config.clientId}/campaign/${md5}.${media.extension}"
+    }
+
+    internal fun signedUploadUrlFor(media: MediaSource, fileKey: String): String {
         val uploadRequest = SignedUploadUrlRequest(
-            fileName = fileName,
-            fileType = contentType,
+            fileName = fileKey.substringAfterLast('/'),
+            fileType = media.contentType,
             publicFile = true
         )
-        val uploadResponse = getSignedUploadUrl(uploadRequest)
-        uploadImageToSignedUrl(uploadResponse.signedS3Url, imageFile, contentType)
-        return send(accounts, message, title, fileKey, senderPhone)
+        return getSignedUploadUrl(uploadRequest).signedS3Url
     }
 
-    private fun md5(file: File): String {
-        val digest = MessageDigest.getInstance("MD5")
-        FileInputStream(file).use { fis ->
-            val buffer = ByteArray(8192)
-            var bytesRead: Int
+    internal fun uploadMedia(signedUrl: String, media: MediaSource, progress: UploadProgressListener?) {
+        upload(signedUrl, media.requestBody(media.contentType.toMediaType(), progress), media.contentType)
+    }
 
-            while (fis.read(buffer).also { bytesRead = it } != -1) {
-                digest.update(buffer, 0, bytesRead)
-            }
-        }
+    /**
+     * Hit and miss counts of the local media cache, null when it is disabled.
+     */
+    fun mediaCacheStats(): CacheStats? = mediaCache?.stats()
+
+    /**
+     * Forgets the uploaded file key of [imageFile], e.g. after the stored file was removed.
+     */
+    fun invalidateMediaCache(imageFile: File) {
+        mediaCache?.invalidate(MediaFileId.of(imageFile))
+    }
 
-        return digest.digest().joinToString("") { "%02x".format(it) }
+    internal fun close() {
+        mediaCache?.close()
     }
 
     fun checkFileUploaded(fileKey: String):StoredUrlResponse{
@@ -199,4 +470,20 @@ class MMSService(private val config: CCAIConfig, private val apiClient: ApiClien
             StoredUrlResponse("")
         }
     }
+
+    private companion object {
+        const val OPTIMIZED_KEYS_MAX_ENTRIES = 1000
+        const val MEDIA_CACHE_RECORD_BYTES = 256L
+        const val MEDIA_CACHE_MIN_JOURNAL_BYTES = 1024L * 1024
+        const val MEDIA_CACHE_MAX_JOURNAL_BYTES = 64L * 1024 * 1024
+    }
+}
+
+/**
+ * Storage key of a media item with its optimized content, produced only when it is needed.
+ */
+internal class PreparedMedia(val key: MediaKey, load: () -> MediaSource) {
+    constructor(key: MediaKey, media: MediaSource) : this(key, { media })
+
+    val media: MediaSource by lazy(load)
 }
@@ -0,0 +1,253 @@
+package com.cloudcontactai.sdk.mms
+
+import com.cloudcontactai.sdk.common.CacheStats
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.AtomicMoveNotSupportedException
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.zip.CRC32
+
+/**
+ * Identity of a local media file as seen by the file system. A file that is rewritten gets a
+ * new size or modification time and therefore a new cache entry.
+ */
+data class MediaFileId(val path: String, val size: Long, val lastModified: Long) {
+    companion object {
+        @JvmStatic
+        fun of(file: File): MediaFileId = MediaFileId(file.canonicalPath, file.length(), file.lastModified())
+    }
+}
+
+/**
+ * Content hash and uploaded file key of a media file.
+ */
+data class MediaKey(val md5: String, val fileKey: String)
+
+/**
+ * Bounded LRU map from [MediaFileId] to the [MediaKey] it was uploaded under.
+ *
+ * With a [persistFile] every put and invalidation is also appended to a memory-mapped journal
+ * of [persistBytes] and replayed on startup. When the journal fills, the most recently used
+ * entries that fit in half of it are written to a new file that then replaces it, so a crash
+ * during compaction leaves one complete journal behind and the other half stays free for
+ * appends. Older entries beyond that stay cached in memory but are not persisted.
+ */
+class MediaKeyCache @JvmOverloads constructor(
+    private val maxEntries: Int = 10000,
+    private val persistFile: File? = null,
+    private val persistBytes: Int = 1024 * 1024
+) : AutoCloseable {
+    private val entries = object : LinkedHashMap<MediaFileId, MediaKey>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<MediaFileId, MediaKey>): Boolean {
+            val evict = size > maxEntries
+            if (evict) evictions++
+            return evict
+        }
+    }
+    private var journal: MappedByteBuffer? = null
+    private var hits = 0L
+    private var misses = 0L
+    private var evictions = 0L
+    private var compactions = 0L
+
+    init {
+        require(maxEntries > 0) { "Max entries must be positive" }
+        require(persistBytes >= 4096) { "Persist bytes must be at least 4096" }
+        persistFile?.let { file ->
+            file.absoluteFile.parentFile?.mkdirs()
+            // Left behind by a compaction interrupted before it replaced the journal
+            tempOf(file).delete()
+            val buffer = map(file)
+            journal = buffer
+            load(buffer)
+        }
+    }
+
+    @Synchronized
+    fun get(id: MediaFileId): MediaKey? {
+        val key = entries[id]
+        if (key == null) misses++ else hits++
+        return key
+    }
+
+    @Synchronized
+    fun put(id: MediaFileId, key: MediaKey) {
+        if (entries.put(id, key) == key) return
+        write(encode(id, key))
+    }
+
+    @Synchronized
+    fun invalidate(id: MediaFileId) {
+        if (entries.remove(id) != null) write(encode(id, null))
+    }
+
+    @Synchronized
+    fun stats(): CacheStats = CacheStats(hits, misses, evictions, 0, entries.size)
+
+    @Synchronized
+    internal fun compactions(): Long = compactions
+
+    @Synchronized
+    override fun close() {
+        journal?.force()
+        journal = null
+    }
+
+    private fun load(buffer: MappedByteBuffer) {
+        buffer.position(0)
+        while (buffer.remaining() >= RECORD_OVERHEAD) {
+            val start = buffer.position()
+            val length = buffer.getInt()
+            if (length <= 0 || length + 4 > buffer.remaining()) {
+                buffer.position(start)
+                break
+            }
+            val record = ByteArray(length)
+            buffer.get(record)
+            val crc = buffer.getInt()
+            val decoded = if (crc == checksum(record)) decode(record) else null
+            if (decoded == null) {
+                // Torn or corrupt tail from a crash, later appends overwrite it
+                buffer.position(start)
+                break
+            }
+            val (id, key) = decoded
+            if (key == null) entries.remove(id) else entries[id] = key
+        }
+        clearFrom(buffer, buffer.position())
+        evictions = 0
+    }
+
+    /**
+     * Appends [record] to the journal, compacting it first when the record does not fit. A
+     * compaction already writes the current state, so the record is not appended after one.
+     */
+    private fun write(record: ByteArray) {
+        val buffer = journal ?: return
+        if (record.size + RECORD_OVERHEAD <= buffer.remaining()) {
+            append(buffer, record)
+        } else {
+            compact()
+        }
+    }
+
+    /**
+     * Writes the most recently used entries that fit in half the journal to a fresh file next to
+     * the current one and moves it into place, keeping the current journal when that fails.
+     */
+    private fun compact() {
+        val file = persistFile ?: return
+        val budget = persistBytes / 2
+        val records = ArrayList<ByteArray>()
+        var used = 0
+        for ((id, key) in entries.entries.reversed()) {
+            val record = encode(id, key)
+            if (used + record.size + RECORD_OVERHEAD > budget) break
+            records.add(record)
+            used += record.size + RECORD_OVERHEAD
+        }
+        val temp = tempOf(file)
+        try {
+            temp.delete()
+            // A new file maps as zeros, so nothing past the last record needs clearing
+            val buffer = map(temp)
+            // Least recently used first, so replaying the journal restores the access order
+            for (i in records.indices.reversed()) append(buffer, records[i])
+            buffer.force()
+            replace(temp, file)
+            journal = buffer
+            compactions++
+        } catch (e: IOException) {
+            temp.delete()
+        }
+    }
+
+    private fun tempOf(file: File) = File(file.absoluteFile.parentFile, "${file.name}.tmp")
+
+    private fun replace(source: File, target: File) {
+        try {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING)
+        } catch (e: AtomicMoveNotSupportedException) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        }
+    }
+
+    private fun map(file: File): MappedByteBuffer {
+        return RandomAccessFile(file, "rw").use { raf ->
+            raf.channel.map(FileChannel.MapMode.READ_WRITE, 0, persistBytes.toLong())
+        }
+    }
+
+    /**
+     * Zeroes the journal from [start] to its end and leaves the position at [start].
+     */
+    private fun clearFrom(buffer: MappedByteBuffer, start: Int) {
+        buffer.position(start)
+        while (buffer.hasRemaining()) {
+            buffer.put(ZEROS, 0, minOf(ZEROS.size, buffer.remaining()))
+        }
+        buffer.position(start)
+    }
+
+    private fun append(buffer: MappedByteBuffer, record: ByteArray) {
+        val start = buffer.position()
+        // Length goes in last so a partially written record reads as the end of the journal
+        buffer.putInt(0)
+        buffer.put(record)
+        buffer.putInt(checksum(record))
+        buffer.putInt(start, record.size)
+    }
+
+    /**
+     * Encodes a put of [key], or a tombstone for [id] when [key] is null.
+     */
+    private fun encode(id: MediaFileId, key: MediaKey?): ByteArray {
+        val bytes = ByteArrayOutputStream(128)
+        DataOutputStream(bytes).use { out ->
+            out.writeByte(if (key == null) OP_REMOVE else OP_PUT)
+            out.writeUTF(id.path)
+            out.writeLong(id.size)
+            out.writeLong(id.lastModified)
+            if (key != null) {
+                out.writeUTF(key.md5)
+                out.writeUTF(key.fileKey)
+            }
+        }
+        return bytes.toByteArray()
+    }
+
+    private fun decode(record: ByteArray): Pair<MediaFileId, MediaKey?>? {
+        return try {
+            val input = DataInputStream(record.inputStream())
+            val op = input.readByte().toInt()
+            val id = MediaFileId(input.readUTF(), input.readLong(), input.readLong())
+            when (op) {
+                OP_PUT -> id to MediaKey(input.readUTF(), input.readUTF())
+                OP_REMOVE -> id to null
+                else -> null
+            }
+        } catch (e: IOException) {
+            null
+        }
+    }
+
+    private fun checksum(record: ByteArray): Int {
+        val crc = CRC32()
+        crc.update(record)
+        return crc.value.toInt()
+    }
+
+    private companion object {
+        const val RECORD_OVERHEAD = 8
+        const val OP_PUT = 1
+        const val OP_REMOVE = 2
+        val ZEROS = ByteArray(4096)
+    }
+}
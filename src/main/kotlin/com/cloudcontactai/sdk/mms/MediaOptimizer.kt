@@ -0,0 +1,302 @@
+package com.cloudcontactai.sdk.mms
+
+import com.cloudcontactai.sdk.common.CCAIException
+import java.awt.RenderingHints
+import java.awt.geom.AffineTransform
+import java.awt.image.BufferedImage
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.IOException
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.util.concurrent.atomic.AtomicLong
+import javax.imageio.IIOImage
+import javax.imageio.ImageIO
+import javax.imageio.ImageWriteParam
+import javax.imageio.stream.MemoryCacheImageInputStream
+import javax.imageio.stream.MemoryCacheImageOutputStream
+import kotlin.math.sqrt
+
+/**
+ * Byte and pixel budget for images before they are uploaded.
+ *
+ * Opaque images are re-encoded as JPEG, stepping the quality down from [initialQuality] to
+ * [minQuality] and then shrinking the image until it fits [maxBytes]. Images with
+ * transparency stay PNG and are only shrunk. Images with more than [maxSourcePixels] are
+ * rejected before they are decoded.
+ */
+data class MediaOptimizerOptions @JvmOverloads constructor(
+    val maxBytes: Long = 600L * 1024,
+    val maxDimension: Int = 1600,
+    val maxPixels: Long = 1600L * 1200,
+    val initialQuality: Float = 0.85f,
+    val minQuality: Float = 0.5f,
+    val maxSourcePixels: Long = 100_000_000L
+) {
+    init {
+        require(maxBytes > 0) { "Max bytes must be positive" }
+        require(maxDimension > 0) { "Max dimension must be positive" }
+        require(maxPixels > 0) { "Max pixels must be positive" }
+        require(initialQuality in 0.0f..1.0f) { "Initial quality must be between 0 and 1" }
+        require(minQuality in 0.0f..initialQuality) { "Min quality must be between 0 and the initial quality" }
+        require(maxSourcePixels > 0) { "Max source pixels must be positive" }
+    }
+}
+
+/**
+ * Counters for the time spent optimizing against the bytes it kept off the wire.
+ */
+data class MediaOptimizerStats(
+    val optimized: Long,
+    val unchanged: Long,
+    val bytesIn: Long,
+    val bytesOut: Long,
+    val totalTimeMs: Double
+) {
+    val bytesSaved: Long get() = bytesIn - bytesOut
+}
+
+/**
+ * Downsizes and re-encodes JPEG, PNG and BMP images to fit [MediaOptimizerOptions] using
+ * `javax.imageio`, entirely in memory. Other formats, such as possibly animated GIFs, and
+ * images already within budget pass through untouched. Re-encoding drops metadata, so JPEGs
+ * are first turned upright according to their EXIF orientation.
+ */
+class MediaOptimizer @JvmOverloads constructor(private val options: MediaOptimizerOptions = MediaOptimizerOptions()) {
+    private val optimized = AtomicLong()
+    private val unchanged = AtomicLong()
+    private val bytesIn = AtomicLong()
+    private val bytesOut = AtomicLong()
+    private val timeNanos = AtomicLong()
+
+    fun optimize(media: MediaSource): MediaSource {
+        if (media.contentType !in OPTIMIZABLE) return media
+        val start = System.nanoTime()
+        val result = try {
+            shrink(media)
+        } catch (e: IOException) {
+            // Undecodable images are uploaded as they are
+            null
+        } finally {
+            timeNanos.addAndGet(System.nanoTime() - start)
+        }
+        bytesIn.addAndGet(media.length)
+        if (result == null) {
+            unchanged.incrementAndGet()
+            bytesOut.addAndGet(media.length)
+            return media
+        }
+        optimized.incrementAndGet()
+        bytesOut.addAndGet(result.size.toLong())
+        return MediaSource.of(result)
+    }
+
+    fun stats(): MediaOptimizerStats = MediaOptimizerStats(
+        optimized = optimized.get(),
+        unchanged = unchanged.get(),
+        bytesIn = bytesIn.get(),
+        bytesOut = bytesOut.get(),
+        totalTimeMs = timeNanos.get() / 1_000_000.0
+    )
+
+    /**
+     * Returns the re-encoded image, or null when the original should be kept.
+     */
+    private fun shrink(media: MediaSource): ByteArray? {
+        val image = media.openStream().use { stream ->
+            val input = MemoryCacheImageInputStream(stream)
+            val reader = ImageIO.getImageReaders(input).asSequence().firstOrNull() ?: return null
+            try {
+                reader.input = input
+                val width = reader.getWidth(0)
+                val height = reader.getHeight(0)
+                if (media.length <= options.maxBytes && withinPixelLimits(width, height)) return null
+                if (width.toLong() * height > options.maxSourcePixels) {
+                    throw CCAIException("Image of ${width}x$height pixels exceeds the limit of ${options.maxSourcePixels} pixels")
+                }
+                // Skip source pixels while decoding, keeping twice the target size for the resize to filter
+                val step = maxOf(1, (1 / (2 * targetScale(width, height))).toInt())
+                val param = reader.defaultReadParam.apply { setSourceSubsampling(step, step, 0, 0) }
+                reader.read(0, param)
+            } finally {
+                reader.dispose()
+            }
+        }.let { decoded ->
+            if (media.contentType == "image/jpeg") orient(decoded, media.openStream().use { readExifOrientation(it) }) else decoded
+        }
+
+        val alpha = image.colorModel.hasAlpha()
+        var scale = targetScale(image.width, image.height)
+        var smallest: ByteArray? = null
+        while (true) {
+            val scaled = resize(image, scale, alpha)
+            val encodings = if (alpha) {
+                sequenceOf(encodePng(scaled))
+            } else {
+                qualities().map { encodeJpeg(scaled, it) }
+            }
+            for (encoded in encodings) {
+                if (smallest == null || encoded.size < smallest.size) smallest = encoded
+                if (encoded.size <= options.maxBytes) return keepSmaller(encoded, media)
+            }
+            if (scaled.width <= MIN_DIMENSION || scaled.height <= MIN_DIMENSION) return keepSmaller(smallest!!, media)
+            scale *= SCALE_STEP
+        }
+    }
+
+    private fun keepSmaller(encoded: ByteArray, media: MediaSource): ByteArray? {
+        return if (encoded.size < media.length) encoded else null
+    }
+
+    private fun targetScale(width: Int, height: Int): Double {
+        return minOf(
+            1.0,
+            options.maxDimension.toDouble() / maxOf(width, height),
+            sqrt(options.maxPixels.toDouble() / (width.toLong() * height))
+        )
+    }
+
+    private fun withinPixelLimits(width: Int, height: Int): Boolean {
+        return maxOf(width, height) <= options.maxDimension && width.toLong() * height <= options.maxPixels
+    }
+
+    private fun qualities(): Sequence<Float> {
+        return generateSequence(options.initialQuality) { quality ->
+            (quality - QUALITY_STEP).takeIf { it >= options.minQuality - 0.001f }
+        }
+    }
+
+    private fun resize(image: BufferedImage, scale: Double, alpha: Boolean): BufferedImage {
+        val targetWidth = maxOf(1, (image.width * scale).toInt())
+        val targetHeight = maxOf(1, (image.height * scale).toInt())
+        var current = image
+        // Halve repeatedly before the final step so bilinear sampling does not skip pixels
+        do {
+            val width = maxOf(targetWidth, current.width / 2)
+            val height = maxOf(targetHeight, current.height / 2)
+            val next = BufferedImage(width, height, if (alpha) BufferedImage.TYPE_INT_ARGB else BufferedImage.TYPE_INT_RGB)
+            val graphics = next.createGraphics()
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR)
+                graphics.drawImage(current, 0, 0, width, height, null)
+            } finally {
+                graphics.dispose()
+            }
+            current = next
+        } while (current.width != targetWidth || current.height != targetHeight)
+        return current
+    }
+
+    /**
+     * Applies EXIF [orientation] 2 to 8 to the pixels, so the image displays the same without it.
+     */
+    private fun orient(image: BufferedImage, orientation: Int): BufferedImage {
+        val w = image.width.toDouble()
+        val h = image.height.toDouble()
+        val transform = when (orientation) {
+            2 -> AffineTransform(-1.0, 0.0, 0.0, 1.0, w, 0.0)
+            3 -> AffineTransform(-1.0, 0.0, 0.0, -1.0, w, h)
+            4 -> AffineTransform(1.0, 0.0, 0.0, -1.0, 0.0, h)
+            5 -> AffineTransform(0.0, 1.0, 1.0, 0.0, 0.0, 0.0)
+            6 -> AffineTransform(0.0, 1.0, -1.0, 0.0, h, 0.0)
+            7 -> AffineTransform(0.0, -1.0, -1.0, 0.0, h, w)
+            8 -> AffineTransform(0.0, -1.0, 1.0, 0.0, 0.0, w)
+            else -> return image
+        }
+        val swap = orientation >= 5
+        val oriented = BufferedImage(
+            if (swap) image.height else image.width,
+            if (swap) image.width else image.height,
+            BufferedImage.TYPE_INT_RGB
+        )
+        val graphics = oriented.createGraphics()
+        try {
+            graphics.drawImage(image, transform, null)
+        } finally {
+            graphics.dispose()
+        }
+        return oriented
+    }
+
+    /**
+     * Orientation tag from the EXIF segment of a JPEG, or 1 when there is none.
+     */
+    private fun readExifOrientation(stream: InputStream): Int {
+        val input = DataInputStream(stream)
+        try {
+            if (input.readUnsignedShort() != 0xFFD8) return 1
+            while (true) {
+                val marker = input.readUnsignedShort()
+                // Metadata segments all come before the image data starts
+                if (marker and 0xFF00 != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) return 1
+                val length = input.readUnsignedShort() - 2
+                if (length < 0) return 1
+                if (marker != 0xFFE1) {
+                    var remaining = length
+                    while (remaining > 0) {
+                        val skipped = input.skipBytes(remaining)
+                        if (skipped <= 0) return 1
+                        remaining -= skipped
+                    }
+                    continue
+                }
+                val segment = ByteArray(length)
+                input.readFully(segment)
+                if (length >= 6 && String(segment, 0, 6, Charsets.ISO_8859_1) == "Exif\u0000\u0000") {
+                    return tiffOrientation(ByteBuffer.wrap(segment, 6, length - 6).slice())
+                }
+            }
+        } catch (e: IOException) {
+            return 1
+        }
+    }
+
+    private fun tiffOrientation(tiff: ByteBuffer): Int {
+        if (tiff.remaining() < 8) return 1
+        tiff.order(if (tiff.get(0) == 'I'.code.toByte()) ByteOrder.LITTLE_ENDIAN else ByteOrder.BIG_ENDIAN)
+        val ifd = tiff.getInt(4)
+        if (ifd < 8 || ifd + 2 > tiff.limit()) return 1
+        val count = tiff.getShort(ifd).toInt() and 0xFFFF
+        for (i in 0 until count) {
+            val entry = ifd + 2 + i * 12
+            if (entry + 12 > tiff.limit()) return 1
+            if (tiff.getShort(entry).toInt() and 0xFFFF == ORIENTATION_TAG) {
+                return (tiff.getShort(entry + 8).toInt() and 0xFFFF).takeIf { it in 1..8 } ?: 1
+            }
+        }
+        return 1
+    }
+
+    private fun encodeJpeg(image: BufferedImage, quality: Float): ByteArray {
+        val writer = ImageIO.getImageWritersByFormatName("jpeg").next()
+        val bytes = ByteArrayOutputStream()
+        try {
+            MemoryCacheImageOutputStream(bytes).use { output ->
+                writer.output = output
+                val param = writer.defaultWriteParam.apply {
+                    compressionMode = ImageWriteParam.MODE_EXPLICIT
+                    compressionQuality = quality
+                }
+                writer.write(null, IIOImage(image, null, null), param)
+            }
+        } finally {
+            writer.dispose()
+        }
+        return bytes.toByteArray()
+    }
+
+    private fun encodePng(image: BufferedImage): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        MemoryCacheImageOutputStream(bytes).use { output -> ImageIO.write(image, "png", output) }
+        return bytes.toByteArray()
+    }
+
+    private companion object {
+        val OPTIMIZABLE = setOf("image/jpeg", "image/png", "image/bmp")
+        const val QUALITY_STEP = 0.1f
+        const val SCALE_STEP = 0.8
+        const val MIN_DIMENSION = 64
+        const val ORIENTATION_TAG = 0x0112
+    }
+}
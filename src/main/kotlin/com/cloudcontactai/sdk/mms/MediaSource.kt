@@ -0,0 +1,213 @@
+package com.cloudcontactai.sdk.mms
+
+import okhttp3.MediaType
+import okhttp3.RequestBody
+import okio.BufferedSink
+import java.io.EOFException
+import java.io.File
+import java.io.InputStream
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.StandardOpenOption
+import java.security.MessageDigest
+
+/**
+ * Image content for an MMS campaign, from a file or from memory.
+ *
+ * In-memory sources are hashed and uploaded straight from the caller's bytes without copies
+ * or temporary files. An [InputStream] is read exactly once, hashing as it is buffered.
+ */
+sealed class MediaSource {
+    abstract val length: Long
+
+    /**
+     * Content type from the leading magic bytes, falling back to the file extension for files.
+     */
+    val contentType: String by lazy { detectContentType(header()) ?: fallbackContentType() }
+
+    /**
+     * Extension used for the uploaded file name.
+     */
+    open val extension: String get() = EXTENSIONS.getValue(contentType)
+
+    internal abstract fun md5(): String
+
+    internal abstract fun requestBody(mediaType: MediaType, progress: UploadProgressListener?): RequestBody
+
+    internal abstract fun openStream(): InputStream
+
+    protected abstract fun header(): ByteArray
+
+    protected open fun fallbackContentType(): String = "image/jpeg"
+
+    private class FileSource(val file: File) : MediaSource() {
+        override val length: Long get() = file.length()
+
+        override val extension: String get() = file.extension.lowercase().ifEmpty { super.extension }
+
+        override fun md5(): String {
+            val digest = MessageDigest.getInstance("MD5")
+            val buffer = ByteBuffer.allocate(64 * 1024)
+            FileChannel.open(file.toPath(), StandardOpenOption.READ).use { channel ->
+                while (channel.read(buffer.clear()) != -1) {
+                    digest.update(buffer.flip())
+                }
+            }
+            return hex(digest.digest())
+        }
+
+        override fun requestBody(mediaType: MediaType, progress: UploadProgressListener?): RequestBody {
+            return FileRequestBody(file, mediaType, progress)
+        }
+
+        override fun openStream(): InputStream = file.inputStream().buffered()
+
+        override fun header(): ByteArray {
+            val header = ByteArray(HEADER_BYTES)
+            val read = file.inputStream().use { it.read(header) }
+            return if (read <= 0) ByteArray(0) else header.copyOf(read)
+        }
+
+        override fun fallbackContentType(): String = when (file.extension.lowercase()) {
+            "jpg", "jpeg" -> "image/jpeg"
+            "png" -> "image/png"
+            "gif" -> "image/gif"
+            else -> "image/jpeg"
+        }
+    }
+
+    private class BufferSource(data: ByteBuffer) : MediaSource() {
+        // Private view so the caller's position and limit are never touched
+        private val data = data.duplicate()
+
+        override val length: Long get() = data.remaining().toLong()
+
+        override fun md5(): String {
+            val digest = MessageDigest.getInstance("MD5")
+            digest.update(data.duplicate())
+            return hex(digest.digest())
+        }
+
+        override fun requestBody(mediaType: MediaType, progress: UploadProgressListener?): RequestBody {
+            return object : RequestBody() {
+                override fun contentType() = mediaType
+
+                override fun contentLength() = length
+
+                override fun writeTo(sink: BufferedSink) {
+                    val view = data.duplicate()
+                    val end = view.limit()
+                    var written = 0L
+                    while (view.position() < end) {
+                        view.limit(minOf(end, view.position() + CHUNK_BYTES))
+                        while (view.hasRemaining()) written += sink.write(view)
+                        progress?.onProgress(written, length)
+                    }
+                }
+            }
+        }
+
+        override fun openStream(): InputStream {
+            val view = data.duplicate()
+            return object : InputStream() {
+                override fun read(): Int = if (view.hasRemaining()) view.get().toInt() and 0xFF else -1
+
+                override fun read(b: ByteArray, off: Int, len: Int): Int {
+                    if (len == 0) return 0
+                    if (!view.hasRemaining()) return -1
+                    val count = minOf(len, view.remaining())
+                    view.get(b, off, count)
+                    return count
+                }
+
+                override fun available(): Int = view.remaining()
+            }
+        }
+
+        override fun header(): ByteArray {
+            val view = data.duplicate()
+            val header = ByteArray(minOf(HEADER_BYTES, view.remaining()))
+            view.get(header)
+            return header
+        }
+    }
+
+    private class StreamSource(private val bytes: ByteArray, private val md5: String) : MediaSource() {
+        private val delegate = BufferSource(ByteBuffer.wrap(bytes))
+
+        override val length: Long get() = bytes.size.toLong()
+
+        override fun md5(): String = md5
+
+        override fun requestBody(mediaType: MediaType, progress: UploadProgressListener?) =
+            delegate.requestBody(mediaType, progress)
+
+        override fun openStream(): InputStream = bytes.inputStream()
+
+        override fun header(): ByteArray = bytes.copyOf(minOf(HEADER_BYTES, bytes.size))
+    }
+
+    companion object {
+        private const val HEADER_BYTES = 12
+        private const val CHUNK_BYTES = 64 * 1024
+
+        private val EXTENSIONS = mapOf(
+            "image/jpeg" to "jpg",
+            "image/png" to "png",
+            "image/gif" to "gif",
+            "image/webp" to "webp",
+            "image/bmp" to "bmp"
+        )
+
+        @JvmStatic
+        fun of(file: File): MediaSource = FileSource(file)
+
+        @JvmStatic
+        fun of(bytes: ByteArray): MediaSource = BufferSource(ByteBuffer.wrap(bytes))
+
+        /**
+         * Uses the remaining bytes of [buffer]; direct and memory-mapped buffers are read in place.
+         */
+        @JvmStatic
+        fun of(buffer: ByteBuffer): MediaSource = BufferSource(buffer)
+
+        /**
+         * Reads exactly [length] bytes from [stream], computing the hash while buffering them.
+         * The stream is not closed.
+         */
+        @JvmStatic
+        fun of(stream: InputStream, length: Long): MediaSource {
+            require(length in 0..Int.MAX_VALUE) { "Length must be between 0 and ${Int.MAX_VALUE}" }
+            val bytes = ByteArray(length.toInt())
+            val digest = MessageDigest.getInstance("MD5")
+            var offset = 0
+            while (offset < bytes.size) {
+                val read = stream.read(bytes, offset, minOf(CHUNK_BYTES, bytes.size - offset))
+                if (read == -1) throw EOFException("Stream ended after $offset of $length bytes")
+                digest.update(bytes, offset, read)
+                offset += read
+            }
+            return StreamSource(bytes, hex(digest.digest()))
+        }
+
+        /**
+         * Image content type from magic bytes, or null when the format is not recognized.
+         */
+        @JvmStatic
+        fun detectContentType(header: ByteArray): String? {
+            fun startsWith(vararg bytes: Int, offset: Int = 0) =
+                header.size >= offset + bytes.size && bytes.indices.all { header[offset + it] == bytes[it].toByte() }
+
+            return when {
+                startsWith(0xFF, 0xD8, 0xFF) -> "image/jpeg"
+                startsWith(0x89, 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A) -> "image/png"
+                startsWith(0x47, 0x49, 0x46, 0x38) -> "image/gif"
+                startsWith(0x52, 0x49, 0x46, 0x46) && startsWith(0x57, 0x45, 0x42, 0x50, offset = 8) -> "image/webp"
+                startsWith(0x42, 0x4D) -> "image/bmp"
+                else -> null
+            }
+        }
+
+        private fun hex(digest: ByteArray): String = digest.joinToString("") { "%02x".format(it) }
+    }
+}
@@ -0,0 +1,200 @@
+package com.cloudcontactai.sdk.mms
+
+import com.cloudcontactai.sdk.common.CCAIException
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties
+import com.fasterxml.jackson.module.kotlin.jacksonObjectMapper
+import java.io.File
+import java.io.IOException
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Settings for chunked uploads. Progress of each upload is kept in [stateDirectory] so an
+ * upload interrupted by a crash or restart continues with the parts that are still missing.
+ *
+ * Experimental: the files service does not offer multipart uploads yet. [startPath],
+ * [partPath] and [completePath] are resolved against the files base URL and must point at a
+ * service that implements them; `{uploadId}` and `{partNumber}` are filled in.
+ */
+data class ResumableUploadOptions @JvmOverloads constructor(
+    val stateDirectory: File,
+    val partSize: Long = 5L * 1024 * 1024,
+    val parallelism: Int = 4,
+    val maxRetries: Int = 3,
+    val retryBackoffMs: Long = 500,
+    val startPath: String = "/upload/multipart",
+    val partPath: String = "/upload/multipart/{uploadId}/parts/{partNumber}",
+    val completePath: String = "/upload/multipart/{uploadId}/complete"
+) {
+    init {
+        require(partSize > 0) { "Part size must be positive" }
+        require(parallelism > 0) { "Parallelism must be positive" }
+        require(maxRetries >= 0) { "Max retries must be non-negative" }
+        require(retryBackoffMs >= 0) { "Retry backoff must be non-negative" }
+    }
+}
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+internal data class ResumableUploadState(
+    val uploadId: String,
+    val fileKey: String,
+    val fileSize: Long,
+    val lastModified: Long,
+    val partSize: Long,
+    val parts: Map<Int, String> = emptyMap()
+)
+
+/**
+ * Experimental multipart upload against the endpoints in [ResumableUploadOptions]: the file is
+ * split into parts of [ResumableUploadOptions.partSize] that are uploaded in parallel and
+ * retried on their own, then assembled under the same MD5-based file key that
+ * [MMSService.sendWithImage] uses. A resumed upload the service no longer knows is started
+ * over.
+ */
+class ResumableUploader(private val mms: MMSService, private val options: ResumableUploadOptions) {
+    private val objectMapper = jacksonObjectMapper()
+
+    @JvmOverloads
+    fun upload(file: File, progress: UploadProgressListener? = null): String {
+        val media = MediaSource.of(file)
+        val md5 = media.md5()
+        val fileKey = mms.fileKeyFor(media, md5)
+        val stateFile = File(options.stateDirectory, "upload-$md5.json")
+
+        if (mms.checkFileUploaded(fileKey).storedUrl.isNotEmpty()) {
+            stateFile.delete()
+            return fileKey
+        }
+
+        val saved = loadState(stateFile, file, fileKey)
+        try {
+            transfer(file, stateFile, saved ?: start(file, media, fileKey).also { saveState(stateFile, it) }, progress)
+        } catch (e: CCAIException) {
+            if (saved == null || !expired(e)) throw e
+            // The saved upload expired or was aborted on the service, its parts are gone with it
+            stateFile.delete()
+            transfer(file, stateFile, start(file, media, fileKey).also { saveState(stateFile, it) }, progress)
+        }
+        stateFile.delete()
+        return fileKey
+    }
+
+    private fun transfer(file: File, stateFile: File, initial: ResumableUploadState, progress: UploadProgressListener?) {
+        var state = initial
+        val partCount = ((state.fileSize + state.partSize - 1) / state.partSize).toInt().coerceAtLeast(1)
+        val done = AtomicLong(state.parts.keys.sumOf { partLength(state, it) })
+        val missing = (1..partCount).filter { it !in state.parts }
+
+        val threadCount = AtomicInteger()
+        val executor = Executors.newFixedThreadPool(minOf(options.parallelism, maxOf(1, missing.size))) { runnable ->
+            Thread(runnable, "ccai-mms-resumable-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+        }
+        try {
+            val uploads = missing.map { partNumber ->
+                executor.submit {
+                    val etag = uploadPart(file, state, partNumber)
+                    synchronized(this) {
+                        state = state.copy(parts = state.parts + (partNumber to etag))
+                        saveState(stateFile, state)
+                    }
+                    progress?.onProgress(done.addAndGet(partLength(state, partNumber)), state.fileSize)
+                }
+            }
+            uploads.forEach { upload ->
+                try {
+                    upload.get()
+                } catch (e: ExecutionException) {
+                    val cause = e.cause
+                    throw CCAIException("Upload of ${file.name} interrupted, completed parts are kept for resume: ${cause?.message}", cause)
+                }
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+
+        val parts = state.parts.toSortedMap().map { (partNumber, etag) -> UploadedPart(partNumber, etag) }
+        val completePath = options.completePath.replace("{uploadId}", state.uploadId)
+        mms.filesCall("POST", completePath, mms.jsonBody(CompleteMultipartUploadRequest(parts)))
+    }
+
+    private fun start(file: File, media: MediaSource, fileKey: String): ResumableUploadState {
+        val request = MultipartUploadRequest(
+            fileName = fileKey.substringAfterLast('/'),
+            fileType = media.contentType,
+            fileBasePath = fileKey.substringBeforeLast('/'),
+            publicFile = true,
+            fileSize = file.length(),
+            partSize = options.partSize
+        )
+        val (body, _) = mms.filesCall("POST", options.startPath, mms.jsonBody(request))
+        val response = mms.readJson(body, MultipartUploadResponse::class.java)
+        return ResumableUploadState(
+            uploadId = response.uploadId,
+            fileKey = fileKey,
+            fileSize = file.length(),
+            lastModified = file.lastModified(),
+            partSize = options.partSize
+        )
+    }
+
+    private fun uploadPart(file: File, state: ResumableUploadState, partNumber: Int): String {
+        val offset = (partNumber - 1) * state.partSize
+        val path = options.partPath.replace("{uploadId}", state.uploadId).replace("{partNumber}", partNumber.toString())
+        var attempt = 0
+        while (true) {
+            try {
+                val body = FileRequestBody(file, null, null, offset = offset, count = partLength(state, partNumber))
+                val (response, etag) = mms.filesCall("PUT", path, body)
+                return etag ?: mms.readJson(response, UploadedPart::class.java).etag
+            } catch (e: Exception) {
+                if (attempt >= options.maxRetries || !retryable(e)) throw e
+                Thread.sleep(options.retryBackoffMs shl attempt)
+                attempt++
+            }
+        }
+    }
+
+    private fun retryable(e: Exception): Boolean = when (e) {
+        is IOException -> true
+        is CCAIException -> e.statusCode == null || e.statusCode == 429 || e.statusCode >= 500
+        else -> false
+    }
+
+    private fun expired(e: Throwable): Boolean {
+        return generateSequence(e) { it.cause }.any { it is CCAIException && (it.statusCode == 404 || it.statusCode == 410) }
+    }
+
+    private fun partLength(state: ResumableUploadState, partNumber: Int): Long {
+        val offset = (partNumber - 1) * state.partSize
+        return minOf(state.partSize, state.fileSize - offset)
+    }
+
+    /**
+     * Returns the saved state if it still describes [file], otherwise discards it.
+     */
+    private fun loadState(stateFile: File, file: File, fileKey: String): ResumableUploadState? {
+        if (!stateFile.exists()) return null
+        val state = try {
+            objectMapper.readValue(stateFile, ResumableUploadState::class.java)
+        } catch (e: IOException) {
+            null
+        }
+        if (state == null || state.fileKey != fileKey || state.fileSize != file.length() ||
+            state.lastModified != file.lastModified() || state.partSize != options.partSize) {
+            stateFile.delete()
+            return null
+        }
+        return state
+    }
+
+    private fun saveState(stateFile: File, state: ResumableUploadState) {
+        options.stateDirectory.mkdirs()
+        val temp = File(options.stateDirectory, "${stateFile.name}.tmp")
+        objectMapper.writeValue(temp, state)
+        Files.move(temp.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE)
+    }
+}
@@ -0,0 +1,70 @@
+package com.cloudcontactai.sdk.outbox
+
+import com.cloudcontactai.sdk.common.SendPriority
+import com.cloudcontactai.sdk.sms.Account
+import com.cloudcontactai.sdk.sms.SMSCampaign
+import com.cloudcontactai.sdk.sms.SMSResponse
+import com.cloudcontactai.sdk.sms.SMSService
+import com.fasterxml.jackson.module.kotlin.jacksonObjectMapper
+import java.util.UUID
+
+/**
+ * Sends SMS campaigns through a [SendOutbox] so a crash between send and response can be recovered.
+ *
+ * Every campaign is journaled with a fresh token before it is sent, and the token travels with the
+ * request as its `Idempotency-Key` header. Call [replayPending] on startup to resend whatever was
+ * journaled but never acknowledged, with the same tokens.
+ */
+class DurableSMSSender(
+    private val sms: SMSService,
+    private val outbox: SendOutbox
+) {
+    private val objectMapper = jacksonObjectMapper()
+
+    @JvmOverloads
+    fun send(
+        accounts: List<Account>,
+        message: String,
+        title: String,
+        senderPhone: String? = null,
+        priority: SendPriority = SendPriority.NORMAL
+    ): SMSResponse {
+        val campaign = SMSCampaign(accounts, message, title, senderPhone)
+        val token = UUID.randomUUID().toString()
+        outbox.append(token, KIND, objectMapper.writeValueAsBytes(campaign))
+        return deliver(token, campaign, priority)
+    }
+
+    /**
+     * Resends every unacknowledged SMS entry with its original token. Entries that fail again stay
+     * in the outbox and their errors are returned alongside the successful responses.
+     */
+    fun replayPending(): ReplayResult {
+        val responses = LinkedHashMap<String, SMSResponse>()
+        val errors = LinkedHashMap<String, String>()
+        outbox.pending().filter { it.kind == KIND }.forEach { entry ->
+            try {
+                val campaign = objectMapper.readValue(entry.payload, SMSCampaign::class.java)
+                responses[entry.token] = deliver(entry.token, campaign, SendPriority.NORMAL)
+            } catch (e: Exception) {
+                errors[entry.token] = e.message ?: e.javaClass.simpleName
+            }
+        }
+        return ReplayResult(responses, errors)
+    }
+
+    private fun deliver(token: String, campaign: SMSCampaign, priority: SendPriority): SMSResponse {
+        val response = sms.send(campaign, token, priority)
+        outbox.acknowledge(token)
+        return response
+    }
+
+    data class ReplayResult(
+        val responses: Map<String, SMSResponse>,
+        val errors: Map<String, String>
+    )
+
+    private companion object {
+        const val KIND = "sms"
+    }
+}
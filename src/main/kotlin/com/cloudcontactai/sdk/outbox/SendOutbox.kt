@@ -0,0 +1,260 @@
+package com.cloudcontactai.sdk.outbox
+
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.MappedByteBuffer
+import java.nio.channels.FileChannel
+import java.util.ArrayDeque
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.locks.ReentrantLock
+import java.util.zip.CRC32
+import kotlin.concurrent.withLock
+
+/**
+ * An unacknowledged send recovered from the outbox.
+ */
+class OutboxEntry(
+    val token: String,
+    val kind: String,
+    val payload: ByteArray
+)
+
+/**
+ * Crash-safe write-ahead journal of sends, stored in memory-mapped segment files.
+ *
+ * [append] writes a record sequentially to the active segment and returns once a background
+ * group commit has forced it to disk; concurrent appends share one fsync per [syncIntervalMs].
+ * [acknowledge] marks an entry done. Segments are deleted oldest first as soon as every entry
+ * they hold is acknowledged. Entries that were never acknowledged before a crash are returned
+ * by [pending] when the outbox is reopened.
+ *
+ * Record layout: `length:int crc32:int type:byte tokenLength:short token [kindLength:short kind payload]`.
+ */
+class SendOutbox @JvmOverloads constructor(
+    private val directory: File,
+    private val segmentBytes: Int = 16 * 1024 * 1024,
+    private val syncIntervalMs: Long = 5
+) : AutoCloseable {
+    private class Segment(val id: Long, val file: File, val buffer: MappedByteBuffer) {
+        var outstanding = 0
+        var dirty = false
+    }
+
+    private class PendingEntry(val entry: OutboxEntry, val segment: Segment)
+
+    private val lock = ReentrantLock()
+    private val synced = lock.newCondition()
+    private val segments = ArrayDeque<Segment>()
+    private val pendingEntries = LinkedHashMap<String, PendingEntry>()
+    private var writePosition = 0
+    private var appendedSequence = 0L
+    private var syncedSequence = 0L
+    @Volatile private var closed = false
+    private val syncThread: Thread
+
+    init {
+        require(segmentBytes >= 1024) { "Segment size must be at least 1024 bytes" }
+        require(syncIntervalMs > 0) { "Sync interval must be positive" }
+        directory.mkdirs()
+        recover()
+        syncThread = Thread({ syncLoop() }, "ccai-outbox-sync").apply {
+            isDaemon = true
+            start()
+        }
+    }
+
+    /**
+     * Journals a send and blocks until it is durable.
+     */
+    fun append(token: String, kind: String, payload: ByteArray) {
+        val tokenBytes = token.toByteArray(Charsets.UTF_8)
+        val kindBytes = kind.toByteArray(Charsets.UTF_8)
+        val bodyLength = 1 + 2 + tokenBytes.size + 2 + kindBytes.size + payload.size
+        require(bodyLength + HEADER_BYTES <= segmentBytes) { "Outbox entry does not fit in a segment" }
+
+        lock.withLock {
+            check(!closed) { "Outbox is closed" }
+            require(!pendingEntries.containsKey(token)) { "Token $token is already pending" }
+            val segment = segmentFor(bodyLength)
+            val buffer = segment.buffer
+            val start = writePosition
+            buffer.position(start + HEADER_BYTES)
+            buffer.put(APPEND)
+            buffer.putShort(tokenBytes.size.toShort())
+            buffer.put(tokenBytes)
+            buffer.putShort(kindBytes.size.toShort())
+            buffer.put(kindBytes)
+            buffer.put(payload)
+            finishRecord(segment, start, bodyLength)
+
+            segment.outstanding++
+            pendingEntries[token] = PendingEntry(OutboxEntry(token, kind, payload), segment)
+            val sequence = ++appendedSequence
+            while (syncedSequence < sequence) {
+                check(!closed) { "Outbox closed before entry was synced" }
+                synced.await()
+            }
+        }
+    }
+
+    /**
+     * Marks an entry as sent. Acknowledgements are not synced eagerly; losing one to a crash
+     * only means the entry is replayed with its original token.
+     */
+    fun acknowledge(token: String) {
+        val tokenBytes = token.toByteArray(Charsets.UTF_8)
+        val bodyLength = 1 + 2 + tokenBytes.size
+        lock.withLock {
+            if (closed) return
+            val entry = pendingEntries.remove(token) ?: return
+            val segment = segmentFor(bodyLength)
+            val start = writePosition
+            segment.buffer.position(start + HEADER_BYTES)
+            segment.buffer.put(ACK)
+            segment.buffer.putShort(tokenBytes.size.toShort())
+            segment.buffer.put(tokenBytes)
+            finishRecord(segment, start, bodyLength)
+
+            entry.segment.outstanding--
+            compact()
+        }
+    }
+
+    /**
+     * Entries appended but not yet acknowledged, oldest first.
+     */
+    fun pending(): List<OutboxEntry> = lock.withLock { pendingEntries.values.map { it.entry } }
+
+    val segmentCount: Int get() = lock.withLock { segments.size }
+
+    override fun close() {
+        lock.withLock {
+            if (closed) return
+            closed = true
+            synced.signalAll()
+        }
+        syncThread.interrupt()
+        syncThread.join()
+        lock.withLock { segments.forEach { it.buffer.force() } }
+    }
+
+    private fun finishRecord(segment: Segment, start: Int, bodyLength: Int) {
+        val buffer = segment.buffer
+        val crc = CRC32()
+        val body = buffer.duplicate()
+        body.limit(start + HEADER_BYTES + bodyLength).position(start + HEADER_BYTES)
+        crc.update(body)
+        buffer.putInt(start + 4, crc.value.toInt())
+        // Length goes last so a torn write never looks like a complete record
+        buffer.putInt(start, bodyLength)
+        writePosition = start + HEADER_BYTES + bodyLength
+        segment.dirty = true
+    }
+
+    private fun segmentFor(bodyLength: Int): Segment {
+        val active = segments.peekLast()
+        if (active != null && writePosition + HEADER_BYTES + bodyLength <= segmentBytes) {
+            return active
+        }
+        val segment = openSegment((active?.id ?: -1) + 1)
+        segments.addLast(segment)
+        writePosition = 0
+        compact()
+        return segment
+    }
+
+    private fun compact() {
+        while (segments.size > 1 && segments.peekFirst().outstanding == 0) {
+            segments.removeFirst().file.delete()
+        }
+    }
+
+    private fun openSegment(id: Long): Segment {
+        val file = File(directory, "outbox-%016d.log".format(id))
+        val buffer = RandomAccessFile(file, "rw").use { raf ->
+            raf.channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes.toLong())
+        }
+        return Segment(id, file, buffer)
+    }
+
+    private fun recover() {
+        val files = directory.listFiles { file -> SEGMENT_NAME.matches(file.name) }.orEmpty()
+            .sortedBy { it.name }
+        for (file in files) {
+            val segment = openSegment(SEGMENT_NAME.matchEntire(file.name)!!.groupValues[1].toLong())
+            segments.addLast(segment)
+            writePosition = scan(segment)
+        }
+        if (segments.isEmpty()) {
+            segments.addLast(openSegment(0))
+            writePosition = 0
+        } else {
+            // Clear any torn tail so it cannot be mistaken for records appended later
+            val tail = segments.peekLast().buffer
+            for (position in writePosition until segmentBytes) tail.put(position, 0)
+        }
+        compact()
+    }
+
+    private fun scan(segment: Segment): Int {
+        val buffer = segment.buffer
+        var position = 0
+        while (position + HEADER_BYTES <= segmentBytes) {
+            val length = buffer.getInt(position)
+            if (length <= 0 || position + HEADER_BYTES + length > segmentBytes) break
+            val body = buffer.duplicate()
+            body.limit(position + HEADER_BYTES + length).position(position + HEADER_BYTES)
+            val crc = CRC32()
+            crc.update(body.duplicate())
+            if (crc.value.toInt() != buffer.getInt(position + 4)) break
+
+            val type = body.get()
+            val token = readString(body)
+            if (type == APPEND) {
+                val kind = readString(body)
+                val payload = ByteArray(body.remaining())
+                body.get(payload)
+                pendingEntries[token] = PendingEntry(OutboxEntry(token, kind, payload), segment)
+                segment.outstanding++
+            } else if (type == ACK) {
+                pendingEntries.remove(token)?.let { it.segment.outstanding-- }
+            }
+            position += HEADER_BYTES + length
+        }
+        return position
+    }
+
+    private fun readString(buffer: java.nio.ByteBuffer): String {
+        val bytes = ByteArray(buffer.short.toInt())
+        buffer.get(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    private fun syncLoop() {
+        while (!closed) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(syncIntervalMs)
+            } catch (e: InterruptedException) {
+                continue
+            }
+            val (target, dirty) = lock.withLock {
+                val dirty = segments.filter { it.dirty }
+                dirty.forEach { it.dirty = false }
+                appendedSequence to dirty
+            }
+            if (target == syncedSequence && dirty.isEmpty()) continue
+            dirty.forEach { it.buffer.force() }
+            lock.withLock {
+                syncedSequence = maxOf(syncedSequence, target)
+                synced.signalAll()
+            }
+        }
+    }
+
+    private companion object {
+        const val HEADER_BYTES = 8
+        const val APPEND: Byte = 1
+        const val ACK: Byte = 2
+        val SEGMENT_NAME = Regex("outbox-(\\d{16})\\.log")
+    }
+}
@@ -0,0 +1,192 @@
+package com.cloudcontactai.sdk.sender
+
+import com.cloudcontactai.sdk.common.CCAIException
+import com.cloudcontactai.sdk.common.TimingWheel
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Spreads recipients across a pool of sender numbers without exceeding any number's throughput.
+ *
+ * Recipients are cut into batches of at most one [windowMs] worth of a number's capacity, and
+ * each batch goes to the number expected to become free first, so faster numbers take
+ * proportionally more traffic. Every number then sends its batches one at a time from its own
+ * queue, each no sooner than the previous one actually went out plus the time it takes to drain
+ * at the number's rate, so a late release never shortens the gap to the next. The queues are
+ * shared by all campaigns dispatched through the same pool, so concurrent campaigns cannot
+ * overrun a number.
+ */
+class SenderPoolDispatcher @JvmOverloads constructor(
+    senders: List<SenderNumber>,
+    private val windowMs: Long = 1000,
+    workerThreads: Int = senders.size
+) : AutoCloseable {
+    private class Batch(val size: Int, val send: () -> Unit, val fail: (Throwable) -> Unit)
+
+    private class Lane(val sender: SenderNumber) {
+        // Planning estimate for picking lanes, pushed back when sends fall behind it
+        var plannedFreeAtMs = 0L
+        val queue = ArrayDeque<Batch>()
+        var releaseNotBeforeNanos = 0L
+        var draining = false
+    }
+
+    private val lanes: List<Lane>
+    private val workers: ExecutorService
+    private val wheel: TimingWheel
+    private val startNanos = System.nanoTime()
+    @Volatile private var closed = false
+
+    init {
+        require(senders.isNotEmpty()) { "Sender pool cannot be empty" }
+        require(senders.map { it.phone }.toSet().size == senders.size) { "Sender phones must be unique" }
+        require(windowMs > 0) { "Window must be positive" }
+        require(workerThreads > 0) { "Worker threads must be positive" }
+
+        lanes = senders.map { Lane(it) }
+        val threadCount = AtomicInteger()
+        workers = Executors.newFixedThreadPool(workerThreads) { runnable ->
+            Thread(runnable, "ccai-sender-pool-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+        }
+        wheel = TimingWheel(workers, threadName = "ccai-sender-pool-wheel")
+    }
+
+    val senders: List<SenderNumber> get() = lanes.map { it.sender }
+
+    /**
+     * Schedules [recipients] across the pool and calls [send] with each batch and its sender phone.
+     * The future completes once every batch has been sent or has failed, and completes
+     * exceptionally if the pool is closed before all batches went out.
+     */
+    fun <T, R> dispatch(recipients: List<T>, send: (List<T>, String) -> R): CompletableFuture<SenderPoolResult<R>> {
+        check(!closed) { "Sender pool is closed" }
+        if (recipients.isEmpty()) {
+            return CompletableFuture.completedFuture(SenderPoolResult(emptyList()))
+        }
+
+        val batchFutures = plan(recipients.size).map { slot ->
+            val future = CompletableFuture<SenderBatchResult<R>>()
+            val batch = recipients.subList(slot.from, slot.to)
+            enqueue(slot.lane, Batch(batch.size, {
+                val result = try {
+                    SenderBatchResult(slot.lane.sender.phone, batch.size, slot.delayMs, response = send(batch, slot.lane.sender.phone))
+                } catch (e: Exception) {
+                    SenderBatchResult<R>(slot.lane.sender.phone, batch.size, slot.delayMs, error = e.message ?: e.javaClass.simpleName)
+                }
+                future.complete(result)
+            }, { future.completeExceptionally(it) }))
+            future
+        }
+
+        return CompletableFuture.allOf(*batchFutures.toTypedArray())
+            .thenApply { SenderPoolResult(batchFutures.map { it.join() }) }
+    }
+
+    /**
+     * Stops sending; batches that have not gone out yet fail their dispatch.
+     */
+    override fun close() {
+        closed = true
+        wheel.close()
+        workers.shutdown()
+        lanes.forEach { failQueued(it) }
+    }
+
+    private class Slot(val lane: Lane, val from: Int, val to: Int, val delayMs: Long)
+
+    @Synchronized
+    private fun plan(recipientCount: Int): List<Slot> {
+        val nowMs = elapsedMs()
+        val slots = ArrayList<Slot>()
+        var offset = 0
+        while (offset < recipientCount) {
+            val lane = lanes.minWith(
+                compareBy<Lane> { maxOf(plannedFreeAt(it), nowMs) }.thenByDescending { it.sender.messagesPerSecond }
+            )
+            val startMs = maxOf(plannedFreeAt(lane), nowMs)
+            val capacity = (lane.sender.messagesPerSecond * windowMs / 1000).toInt().coerceAtLeast(1)
+            val size = minOf(capacity, recipientCount - offset)
+            synchronized(lane) { lane.plannedFreeAtMs = startMs + drainNanos(lane, size) / 1_000_000 }
+            slots.add(Slot(lane, offset, offset + size, startMs - nowMs))
+            offset += size
+        }
+        return slots
+    }
+
+    private fun plannedFreeAt(lane: Lane): Long = synchronized(lane) { lane.plannedFreeAtMs }
+
+    private fun enqueue(lane: Lane, batch: Batch) {
+        val start = synchronized(lane) {
+            lane.queue.addLast(batch)
+            if (lane.draining) {
+                false
+            } else {
+                lane.draining = true
+                true
+            }
+        }
+        if (start) scheduleDrain(lane)
+        // A close racing with the enqueue may have missed this batch
+        if (closed) failQueued(lane)
+    }
+
+    /**
+     * Runs the lane's next batch once its rate allows, on a worker thread.
+     */
+    private fun scheduleDrain(lane: Lane) {
+        try {
+            val waitNanos = synchronized(lane) { lane.releaseNotBeforeNanos } - System.nanoTime()
+            if (waitNanos <= 0) {
+                workers.execute { drain(lane) }
+            } else {
+                wheel.schedule((waitNanos + 999_999) / 1_000_000) { drain(lane) }
+            }
+        } catch (e: IllegalStateException) {
+            // The wheel is closed
+            failQueued(lane)
+        } catch (e: RejectedExecutionException) {
+            failQueued(lane)
+        }
+    }
+
+    private fun drain(lane: Lane) {
+        if (closed) {
+            failQueued(lane)
+            return
+        }
+        synchronized(lane) { nextBatch(lane) }?.send?.invoke()
+        val more = synchronized(lane) {
+            if (lane.queue.isEmpty()) lane.draining = false
+            lane.draining
+        }
+        if (more) scheduleDrain(lane)
+    }
+
+    /**
+     * Takes the lane's next batch if its rate allows a send now. Call with the lane locked.
+     */
+    private fun nextBatch(lane: Lane): Batch? {
+        val now = System.nanoTime()
+        if (now < lane.releaseNotBeforeNanos) return null
+        val batch = lane.queue.removeFirstOrNull() ?: return null
+        // Pace from the actual release, not from the plan
+        lane.releaseNotBeforeNanos = now + drainNanos(lane, batch.size)
+        lane.plannedFreeAtMs = maxOf(lane.plannedFreeAtMs, elapsedMs() + drainNanos(lane, batch.size) / 1_000_000)
+        return batch
+    }
+
+    private fun failQueued(lane: Lane) {
+        val failed = synchronized(lane) {
+            lane.draining = false
+            lane.queue.toList().also { lane.queue.clear() }
+        }
+        failed.forEach { it.fail(CCAIException("Sender pool is closed")) }
+    }
+
+    private fun drainNanos(lane: Lane, size: Int): Long = Math.ceil(size * 1e9 / lane.sender.messagesPerSecond).toLong()
+
+    private fun elapsedMs(): Long = (System.nanoTime() - startNanos) / 1_000_000
+}
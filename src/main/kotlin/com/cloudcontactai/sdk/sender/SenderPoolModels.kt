@@ -0,0 +1,35 @@
+package com.cloudcontactai.sdk.sender
+
+/**
+ * A sender phone number and the carrier throughput it may use.
+ */
+data class SenderNumber(
+    val phone: String,
+    val messagesPerSecond: Double
+) {
+    init {
+        require(phone.isNotBlank()) { "Sender phone cannot be blank" }
+        require(messagesPerSecond > 0) { "Messages per second must be positive" }
+    }
+}
+
+data class SenderBatchResult<R>(
+    val senderPhone: String,
+    val recipientCount: Int,
+    val scheduledDelayMs: Long,
+    val response: R? = null,
+    val error: String? = null
+) {
+    val success: Boolean get() = response != null
+}
+
+data class SenderPoolResult<R>(
+    val batches: List<SenderBatchResult<R>>
+) {
+    val sentRecipients: Int get() = batches.filter { it.success }.sumOf { it.recipientCount }
+
+    val failedRecipients: Int get() = batches.filterNot { it.success }.sumOf { it.recipientCount }
+
+    val recipientsBySender: Map<String, Int>
+        get() = batches.groupBy { it.senderPhone }.mapValues { (_, batches) -> batches.sumOf { it.recipientCount } }
+}
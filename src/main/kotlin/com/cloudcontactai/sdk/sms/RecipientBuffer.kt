@@ -0,0 +1,281 @@
+package com.cloudcontactai.sdk.sms
+
+import com.fasterxml.jackson.core.JsonGenerator
+import com.fasterxml.jackson.core.io.SerializedString
+import java.nio.ByteBuffer
+import java.nio.CharBuffer
+import java.nio.charset.CodingErrorAction
+import java.util.BitSet
+
+/**
+ * Compact, column-oriented store for very large SMS audiences.
+ *
+ * Names, custom data and custom field values are kept as packed UTF-8 in direct (off-heap)
+ * buffers, phone numbers as a `long[]`, and custom field keys are interned into a shared
+ * dictionary. [SMSService.send] serializes the campaign straight from these columns, so no
+ * per-recipient objects are created on the send path.
+ *
+ * Phone numbers must be digits with an optional leading `+` and no leading zero.
+ * Not thread-safe; fill the buffer from one thread before sending it.
+ */
+class RecipientBuffer @JvmOverloads constructor(initialCapacity: Int = 1024) {
+    private val firstNames = Utf8Column(initialCapacity)
+    private val lastNames = Utf8Column(initialCapacity)
+    private val customData = Utf8Column(initialCapacity)
+    private val fieldValues = Utf8Column(initialCapacity)
+    private var phones = LongArray(initialCapacity)
+    private var fieldEnds = IntArray(initialCapacity)
+    private var fieldKeys = IntArray(initialCapacity)
+    private val keyIds = HashMap<String, Int>()
+    private val keys = ArrayList<SerializedString>()
+
+    var size = 0
+        private set
+
+    init {
+        require(initialCapacity > 0) { "Initial capacity must be positive" }
+    }
+
+    /**
+     * Bytes held in direct buffers by the string columns.
+     */
+    val offHeapBytes: Long
+        get() = firstNames.offHeapBytes + lastNames.offHeapBytes + customData.offHeapBytes + fieldValues.offHeapBytes
+
+    /**
+     * Upper bound on the size of the serialized `accounts` array, ignoring JSON escapes.
+     */
+    internal fun estimatedJsonBytes(): Long {
+        val fieldCount = if (size == 0) 0 else fieldEnds[size - 1]
+        val strings = firstNames.usedBytes + lastNames.usedBytes + customData.usedBytes + fieldValues.usedBytes
+        // Field names, quotes and punctuation per recipient plus the phone number
+        return strings + size * (ACCOUNT_OVERHEAD + 20L) + fieldCount * (MAX_KEY_OVERHEAD + maxKeyLength)
+    }
+
+    private val maxKeyLength: Int get() = keys.maxOfOrNull { it.charLength() } ?: 0
+
+    fun add(account: Account) {
+        add(account.firstName, account.lastName, account.phone, account.customFields, account.customData)
+    }
+
+    @JvmOverloads
+    fun add(
+        firstName: String,
+        lastName: String,
+        phone: String,
+        customFields: Map<String, String> = emptyMap(),
+        customData: String? = null
+    ) {
+        val encodedPhone = encodePhone(phone)
+        if (size == phones.size) {
+            phones = phones.copyOf(size * 2)
+            fieldEnds = fieldEnds.copyOf(size * 2)
+        }
+
+        var fieldCount = if (size == 0) 0 else fieldEnds[size - 1]
+        for ((key, value) in customFields) {
+            if (fieldCount == fieldKeys.size) {
+                fieldKeys = fieldKeys.copyOf(fieldCount * 2)
+            }
+            fieldKeys[fieldCount++] = keyIds.getOrPut(key) {
+                keys.add(SerializedString(key))
+                keys.size - 1
+            }
+            fieldValues.add(value)
+        }
+
+        firstNames.add(firstName)
+        lastNames.add(lastName)
+        this.customData.add(customData)
+        phones[size] = encodedPhone
+        fieldEnds[size] = fieldCount
+        size++
+    }
+
+    fun firstName(index: Int): String = firstNames.get(checkIndex(index))!!
+
+    fun lastName(index: Int): String = lastNames.get(checkIndex(index))!!
+
+    fun customData(index: Int): String? = customData.get(checkIndex(index))
+
+    fun phone(index: Int): String {
+        val encoded = phones[checkIndex(index)]
+        return if (encoded > 0) "+$encoded" else (-encoded).toString()
+    }
+
+    fun customFields(index: Int): Map<String, String> {
+        checkIndex(index)
+        val start = if (index == 0) 0 else fieldEnds[index - 1]
+        return (start until fieldEnds[index]).associate { field ->
+            keys[fieldKeys[field]].value to fieldValues.get(field)!!
+        }
+    }
+
+    /**
+     * Writes the recipients as the `accounts` array of a campaign request.
+     */
+    internal fun writeAccounts(generator: JsonGenerator) {
+        var scratch = ByteArray(256)
+        val phoneChars = CharArray(20)
+        var field = 0
+
+        generator.writeStartArray()
+        for (index in 0 until size) {
+            generator.writeStartObject()
+            scratch = writeColumn(generator, FIRST_NAME, firstNames, index, scratch)
+            scratch = writeColumn(generator, LAST_NAME, lastNames, index, scratch)
+
+            generator.writeFieldName(PHONE)
+            val phoneLength = formatPhone(phones[index], phoneChars)
+            generator.writeString(phoneChars, phoneChars.size - phoneLength, phoneLength)
+
+            generator.writeFieldName(CUSTOM_FIELDS)
+            generator.writeStartObject()
+            while (field < fieldEnds[index]) {
+                generator.writeFieldName(keys[fieldKeys[field]])
+                scratch = fieldValues.ensureScratch(field, scratch)
+                generator.writeUTF8String(scratch, 0, fieldValues.copyTo(field, scratch))
+                field++
+            }
+            generator.writeEndObject()
+
+            scratch = writeColumn(generator, MESSAGE_DATA, customData, index, scratch)
+            generator.writeEndObject()
+        }
+        generator.writeEndArray()
+    }
+
+    private fun writeColumn(
+        generator: JsonGenerator,
+        name: SerializedString,
+        column: Utf8Column,
+        index: Int,
+        scratch: ByteArray
+    ): ByteArray {
+        generator.writeFieldName(name)
+        if (column.isNull(index)) {
+            generator.writeNull()
+            return scratch
+        }
+        val buffer = column.ensureScratch(index, scratch)
+        generator.writeUTF8String(buffer, 0, column.copyTo(index, buffer))
+        return buffer
+    }
+
+    private fun checkIndex(index: Int): Int {
+        if (index < 0 || index >= size) throw IndexOutOfBoundsException("Index $index out of bounds for size $size")
+        return index
+    }
+
+    private fun encodePhone(phone: String): Long {
+        val plus = phone.startsWith("+")
+        val digits = if (plus) phone.length - 1 else phone.length
+        require(digits in 1..18) { "Phone must have between 1 and 18 digits: $phone" }
+        var value = 0L
+        for (i in (if (plus) 1 else 0) until phone.length) {
+            val c = phone[i]
+            require(c in '0'..'9') { "Phone must contain only digits: $phone" }
+            value = value * 10 + (c - '0')
+        }
+        require(phone[if (plus) 1 else 0] != '0') { "Phone cannot start with 0: $phone" }
+        // Numbers without a leading + are stored negated
+        return if (plus) value else -value
+    }
+
+    /**
+     * Formats right-aligned into [chars] and returns the number of characters written.
+     */
+    private fun formatPhone(encoded: Long, chars: CharArray): Int {
+        var value = if (encoded > 0) encoded else -encoded
+        var position = chars.size
+        while (value > 0) {
+            chars[--position] = '0' + (value % 10).toInt()
+            value /= 10
+        }
+        if (encoded > 0) chars[--position] = '+'
+        return chars.size - position
+    }
+
+    /**
+     * Append-only column of nullable strings packed as UTF-8 in a direct buffer.
+     */
+    private class Utf8Column(initialCount: Int) {
+        private var data: ByteBuffer = ByteBuffer.allocateDirect(initialCount * 16)
+        // Reused read cursor, absolute bulk gets only arrived in Java 13
+        private var view: ByteBuffer = data.duplicate()
+        private var ends = IntArray(initialCount)
+        private val nulls = BitSet()
+        private val encoder = Charsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE)
+        private var count = 0
+
+        val offHeapBytes: Long get() = data.capacity().toLong()
+
+        val usedBytes: Long get() = if (count == 0) 0 else ends[count - 1].toLong()
+
+        fun add(value: String?) {
+            if (count == ends.size) {
+                ends = ends.copyOf(count * 2)
+            }
+            val start = if (count == 0) 0 else ends[count - 1]
+            if (value == null) {
+                nulls.set(count)
+            } else {
+                ensureCapacity(start + value.length * 3)
+                data.clear().position(start)
+                encoder.reset()
+                encoder.encode(CharBuffer.wrap(value), data, true)
+                encoder.flush(data)
+            }
+            ends[count++] = if (value == null) start else data.position()
+        }
+
+        fun isNull(index: Int): Boolean = nulls.get(index)
+
+        fun length(index: Int): Int = ends[index] - start(index)
+
+        fun get(index: Int): String? {
+            if (isNull(index)) return null
+            val bytes = ByteArray(length(index))
+            copyTo(index, bytes)
+            return String(bytes, Charsets.UTF_8)
+        }
+
+        fun ensureScratch(index: Int, scratch: ByteArray): ByteArray {
+            val length = length(index)
+            return if (length <= scratch.size) scratch else ByteArray(maxOf(length, scratch.size * 2))
+        }
+
+        fun copyTo(index: Int, target: ByteArray): Int {
+            val start = start(index)
+            val length = ends[index] - start
+            view.clear()
+            view.position(start)
+            view.get(target, 0, length)
+            return length
+        }
+
+        private fun start(index: Int): Int = if (index == 0) 0 else ends[index - 1]
+
+        private fun ensureCapacity(required: Int) {
+            if (required <= data.capacity()) return
+            val grown = ByteBuffer.allocateDirect(maxOf(required, data.capacity() * 2))
+            val used = if (count == 0) 0 else ends[count - 1]
+            data.clear().limit(used)
+            grown.put(data)
+            data = grown
+            view = data.duplicate()
+        }
+    }
+
+    private companion object {
+        val FIRST_NAME = SerializedString("firstName")
+        val LAST_NAME = SerializedString("lastName")
+        val PHONE = SerializedString("phone")
+        val CUSTOM_FIELDS = SerializedString("customFields")
+        val MESSAGE_DATA = SerializedString("messageData")
+        const val ACCOUNT_OVERHEAD = 80L
+        const val MAX_KEY_OVERHEAD = 6L
+    }
+}
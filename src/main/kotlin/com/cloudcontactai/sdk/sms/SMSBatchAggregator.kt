@@ -0,0 +1,139 @@
+package com.cloudcontactai.sdk.sms
+
+import com.cloudcontactai.sdk.common.CCAIException
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.ScheduledFuture
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Merges concurrent single-recipient sends into multi-account campaigns.
+ *
+ * Sends sharing the same message, title and sender phone are buffered for up to [windowMs],
+ * or until [maxBatchSize] recipients are waiting, and then go out as one [SMSService.send].
+ * Every caller's future completes with the response of the campaign its recipient was sent in.
+ */
+class SMSBatchAggregator @JvmOverloads constructor(
+    private val sms: SMSService,
+    private val windowMs: Long = 50,
+    private val maxBatchSize: Int = 500,
+    sendThreads: Int = 4
+) : AutoCloseable {
+    private data class GroupKey(val message: String, val title: String, val senderPhone: String?)
+
+    private class PendingSend(val account: Account, val future: CompletableFuture<SMSResponse>)
+
+    private class Group {
+        val sends = ArrayList<PendingSend>()
+        var timer: ScheduledFuture<*>? = null
+    }
+
+    private val groups = HashMap<GroupKey, Group>()
+    private val timer: ScheduledExecutorService
+    private val senders: ExecutorService
+    @Volatile private var closed = false
+
+    init {
+        require(windowMs > 0) { "Window must be positive" }
+        require(maxBatchSize > 0) { "Max batch size must be positive" }
+        require(sendThreads > 0) { "Send threads must be positive" }
+
+        timer = Executors.newSingleThreadScheduledExecutor { runnable ->
+            Thread(runnable, "ccai-sms-aggregator-timer").apply { isDaemon = true }
+        }
+        val threadCount = AtomicInteger()
+        senders = Executors.newFixedThreadPool(sendThreads) { runnable ->
+            Thread(runnable, "ccai-sms-aggregator-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+        }
+    }
+
+    @JvmOverloads
+    fun sendSingle(
+        firstName: String,
+        lastName: String,
+        phone: String,
+        message: String,
+        title: String,
+        customData: String? = null,
+        senderPhone: String? = null
+    ): CompletableFuture<SMSResponse> {
+        val account = Account(
+            firstName = firstName,
+            lastName = lastName,
+            phone = phone,
+            customData = customData
+        )
+        return submit(account, message, title, senderPhone)
+    }
+
+    fun submit(account: Account, message: String, title: String, senderPhone: String? = null): CompletableFuture<SMSResponse> {
+        val key = GroupKey(message, title, senderPhone)
+        val future = CompletableFuture<SMSResponse>()
+
+        val full = synchronized(groups) {
+            check(!closed) { "SMS batch aggregator is closed" }
+            val group = groups.getOrPut(key) {
+                Group().also { group ->
+                    group.timer = timer.schedule({ flushExpired(key, group) }, windowMs, TimeUnit.MILLISECONDS)
+                }
+            }
+            group.sends.add(PendingSend(account, future))
+            if (group.sends.size >= maxBatchSize) {
+                groups.remove(key)
+                group.timer?.cancel(false)
+                group
+            } else {
+                null
+            }
+        }
+        full?.let { group -> submitFlush(key, group) }
+        return future
+    }
+
+    /**
+     * Sends everything still buffered and stops accepting new sends.
+     */
+    override fun close() {
+        val remaining = synchronized(groups) {
+            closed = true
+            val snapshot = groups.toMap()
+            groups.clear()
+            snapshot
+        }
+        // A window that expired just before the snapshot hands its group over before the senders stop
+        timer.shutdownNow()
+        timer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)
+        remaining.forEach { (key, group) -> submitFlush(key, group) }
+        senders.shutdown()
+        senders.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS)
+    }
+
+    private fun flushExpired(key: GroupKey, group: Group) {
+        val expired = synchronized(groups) { groups.remove(key, group) }
+        if (expired) {
+            submitFlush(key, group)
+        }
+    }
+
+    private fun submitFlush(key: GroupKey, group: Group) {
+        try {
+            senders.execute { flush(key, group) }
+        } catch (e: RejectedExecutionException) {
+            val error = CCAIException("SMS batch aggregator is closed", e)
+            group.sends.forEach { it.future.completeExceptionally(error) }
+        }
+    }
+
+    private fun flush(key: GroupKey, group: Group) {
+        try {
+            val response = sms.send(group.sends.map { it.account }, key.message, key.title, key.senderPhone)
+            group.sends.forEach { it.future.complete(response) }
+        } catch (e: Exception) {
+            group.sends.forEach { it.future.completeExceptionally(e) }
+        }
+    }
+}
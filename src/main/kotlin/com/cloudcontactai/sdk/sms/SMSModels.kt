@@ -1,7 +1,9 @@
 package com.cloudcontactai.sdk.sms
 
+import com.cloudcontactai.sdk.common.JsonPayload
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties
 import com.fasterxml.jackson.annotation.JsonProperty
+import com.fasterxml.jackson.core.JsonGenerator
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 data class Account(
@@ -20,6 +22,30 @@ data class SMSCampaign(
     @JsonProperty("senderPhone") val senderPhone: String? = null
 )
 
+/**
+ * [SMSCampaign] whose accounts are streamed from a [RecipientBuffer].
+ */
+internal class BufferedSMSCampaign(
+    private val recipients: RecipientBuffer,
+    private val message: String,
+    private val title: String,
+    private val senderPhone: String?
+) : JsonPayload {
+    override fun writeJson(generator: JsonGenerator) {
+        generator.writeStartObject()
+        generator.writeFieldName("accounts")
+        recipients.writeAccounts(generator)
+        generator.writeStringField("message", message)
+        generator.writeStringField("title", title)
+        generator.writeStringField("senderPhone", senderPhone)
+        generator.writeEndObject()
+    }
+
+    override fun estimatedBytes(): Long {
+        return recipients.estimatedJsonBytes() + (message.length + title.length + (senderPhone?.length ?: 0)) * 3L + 64
+    }
+}
+
 @JsonIgnoreProperties(ignoreUnknown = true)
 data class SMSResponse(
     @JsonProperty("id") val id: String,
@@ -37,3 +63,48 @@ data class SMSCampaignStatus(
     @JsonProperty("sentMessages") val sentMessages: Int,
     @JsonProperty("failedMessages") val failedMessages: Int = 0
 )
+
+/**
+ * A recipient together with the message rendered for them.
+ */
+data class PersonalizedMessage(
+    val account: Account,
+    val message: String
+)
+
+data class PersonalizedBatchResult(
+    val message: String,
+    val recipientIndexes: List<Int>,
+    val response: SMSResponse? = null,
+    val error: String? = null
+) {
+    val success: Boolean get() = response != null
+}
+
+data class PersonalizedSendResult(
+    val batches: List<PersonalizedBatchResult>,
+    val recipientCount: Int
+) {
+    val distinctMessages: Int get() = batches.map { it.message }.distinct().size
+
+    /**
+     * Response of the campaign each input recipient was sent in, in input order; null where its batch failed.
+     */
+    val responses: List<SMSResponse?>
+        get() {
+            val responses = arrayOfNulls<SMSResponse>(recipientCount)
+            batches.forEach { batch -> batch.recipientIndexes.forEach { responses[it] = batch.response } }
+            return responses.toList()
+        }
+}
+
+data class TransliteratedSMSResponse(
+    val response: SMSResponse,
+    val report: SmsTransliterationReport,
+    val recipientCount: Int
+) {
+    /**
+     * Segments saved across the campaign, before variable substitution.
+     */
+    val savedSegments: Int get() = report.savedSegmentsPerMessage * recipientCount
+}
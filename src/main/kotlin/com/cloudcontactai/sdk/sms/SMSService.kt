@@ -1,9 +1,22 @@
 package com.cloudcontactai.sdk.sms
 
+import com.cloudcontactai.sdk.campaign.CampaignStatuses
 import com.cloudcontactai.sdk.common.ApiClient
 import com.cloudcontactai.sdk.common.CCAIConfig
+import com.cloudcontactai.sdk.common.CacheStats
+import com.cloudcontactai.sdk.common.ExpiringCache
+import com.cloudcontactai.sdk.common.SendPriority
+import com.cloudcontactai.sdk.sender.SenderPoolDispatcher
+import com.cloudcontactai.sdk.sender.SenderPoolResult
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.Executors
 
 class SMSService(private val config: CCAIConfig, private val apiClient: ApiClient) {
+    private val statusCache = if (config.statusCacheTtlMs > 0) {
+        ExpiringCache<String, SMSCampaignStatus>(config.statusCacheMaxEntries)
+    } else {
+        null
+    }
     
     fun sendSingle(
         firstName: String,
@@ -38,6 +51,24 @@ class SMSService(private val config: CCAIConfig, private val apiClient: ApiClien
         return send(listOf(account), message, title, senderPhone)
     }
 
+    fun sendSingle(
+        firstName: String,
+        lastName: String,
+        phone: String,
+        message: String,
+        title: String,
+        senderPhone: String?,
+        priority: SendPriority
+    ): SMSResponse {
+        val account = Account(
+            firstName = firstName,
+            lastName = lastName,
+            phone = phone
+        )
+
+        return send(listOf(account), message, title, senderPhone, priority)
+    }
+
     fun sendSingle(
         firstName: String,
         lastName: String,
@@ -57,11 +88,13 @@ class SMSService(private val config: CCAIConfig, private val apiClient: ApiClien
         return send(listOf(account), message, title, senderPhone)
     }
     
+    @JvmOverloads
     fun send(
         accounts: List<Account>,
         message: String,
         title: String,
-        senderPhone: String? = null
+        senderPhone: String? = null,
+        priority: SendPriority = SendPriority.NORMAL
     ): SMSResponse {
         val campaign = SMSCampaign(
             accounts = accounts,
@@ -70,18 +103,163 @@ class SMSService(private val config: CCAIConfig, private val apiClient: ApiClien
             senderPhone = senderPhone
         )
         
-        val headers = mapOf("ForceNewCampaign" to "false")
+        return send(campaign, null, priority)
+    }
+
+    internal fun send(campaign: SMSCampaign, idempotencyKey: String?, priority: SendPriority = SendPriority.NORMAL): SMSResponse {
+        val headers = mutableMapOf("ForceNewCampaign" to "false")
+        idempotencyKey?.let { headers["Idempotency-Key"] = it }
         
         return apiClient.request(
             method = "POST",
             endpoint = "/clients/${config.clientId}/campaigns/direct",
             data = campaign,
             headers = headers,
-            responseClass = SMSResponse::class.java
+            responseClass = SMSResponse::class.java,
+            priority = priority
+        )
+    }
+
+    /**
+     * Sends without blocking the caller; when admission control is configured the campaign
+     * waits in line for in-flight budget instead of holding a thread.
+     */
+    @JvmOverloads
+    fun sendAsync(
+        accounts: List<Account>,
+        message: String,
+        title: String,
+        senderPhone: String? = null,
+        priority: SendPriority = SendPriority.NORMAL
+    ): CompletableFuture<SMSResponse> {
+        val campaign = SMSCampaign(
+            accounts = accounts,
+            message = message,
+            title = title,
+            senderPhone = senderPhone
+        )
+
+        return apiClient.requestAsync(
+            method = "POST",
+            endpoint = "/clients/${config.clientId}/campaigns/direct",
+            data = campaign,
+            headers = mapOf("ForceNewCampaign" to "false"),
+            responseClass = SMSResponse::class.java,
+            priority = priority
+        )
+    }
+
+    /**
+     * Transliterates common Unicode punctuation in [message] to GSM-7 before sending, when
+     * that lowers the segment count, and reports the savings for the campaign.
+     */
+    @JvmOverloads
+    fun sendTransliterated(
+        accounts: List<Account>,
+        message: String,
+        title: String,
+        senderPhone: String? = null,
+        priority: SendPriority = SendPriority.NORMAL
+    ): TransliteratedSMSResponse {
+        val report = SmsSegments.transliterate(message)
+        val response = send(accounts, report.message, title, senderPhone, priority)
+        return TransliteratedSMSResponse(response, report, accounts.size)
+    }
+
+    /**
+     * Sends individually rendered messages with one campaign per distinct message body.
+     *
+     * Recipients whose rendered messages are identical are grouped into the same campaign, split
+     * into batches of at most [maxBatchSize], and the batches are sent with up to [parallelism]
+     * requests in flight. A failed batch is reported in the result rather than thrown.
+     */
+    @JvmOverloads
+    fun sendPersonalized(
+        messages: List<PersonalizedMessage>,
+        title: String,
+        senderPhone: String? = null,
+        maxBatchSize: Int = 1000,
+        parallelism: Int = 4
+    ): PersonalizedSendResult {
+        require(maxBatchSize > 0) { "Max batch size must be positive" }
+        require(parallelism > 0) { "Parallelism must be positive" }
+
+        val groups = LinkedHashMap<String, MutableList<Int>>()
+        messages.forEachIndexed { index, personalized ->
+            groups.getOrPut(personalized.message) { ArrayList() }.add(index)
+        }
+
+        val batches = groups.flatMap { (message, indexes) -> indexes.chunked(maxBatchSize).map { message to it } }
+
+        val executor = Executors.newFixedThreadPool(minOf(parallelism, maxOf(1, batches.size)))
+        try {
+            val futures = batches.map { (message, batch) ->
+                CompletableFuture.supplyAsync({
+                    try {
+                        val response = send(batch.map { messages[it].account }, message, title, senderPhone)
+                        PersonalizedBatchResult(message, batch, response = response)
+                    } catch (e: Exception) {
+                        PersonalizedBatchResult(message, batch, error = e.message ?: e.javaClass.simpleName)
+                    }
+                }, executor)
+            }
+            return PersonalizedSendResult(futures.map { it.join() }, messages.size)
+        } finally {
+            executor.shutdown()
+        }
+    }
+
+    /**
+     * Sends to every recipient in [recipients], serializing the request directly from its columns.
+     */
+    @JvmOverloads
+    fun send(
+        recipients: RecipientBuffer,
+        message: String,
+        title: String,
+        senderPhone: String? = null,
+        priority: SendPriority = SendPriority.NORMAL
+    ): SMSResponse {
+        val headers = mapOf("ForceNewCampaign" to "false")
+
+        return apiClient.request(
+            method = "POST",
+            endpoint = "/clients/${config.clientId}/campaigns/direct",
+            data = BufferedSMSCampaign(recipients, message, title, senderPhone),
+            headers = headers,
+            responseClass = SMSResponse::class.java,
+            priority = priority
         )
     }
+
+    /**
+     * Sends to [accounts] through every number in [senderPool], one campaign per scheduled batch.
+     */
+    fun send(
+        accounts: List<Account>,
+        message: String,
+        title: String,
+        senderPool: SenderPoolDispatcher
+    ): SenderPoolResult<SMSResponse> {
+        return senderPool.dispatch(accounts) { batch, senderPhone -> send(batch, message, title, senderPhone) }.join()
+    }
     
     fun getCampaignStatus(campaignId: String): SMSCampaignStatus {
+        val cache = statusCache ?: return fetchCampaignStatus(campaignId)
+        cache.get(campaignId)?.let { return it }
+
+        val status = fetchCampaignStatus(campaignId)
+        val terminal = CampaignStatuses.isTerminal(status.status, status.totalMessages, status.sentMessages + status.failedMessages)
+        cache.put(campaignId, status, if (terminal) config.statusCacheTerminalTtlMs else config.statusCacheTtlMs)
+        return status
+    }
+
+    /**
+     * Hit and miss counts of the campaign status cache, or null when caching is disabled.
+     */
+    fun statusCacheStats(): CacheStats? = statusCache?.stats()
+
+    internal fun fetchCampaignStatus(campaignId: String): SMSCampaignStatus {
         return apiClient.request(
             method = "GET",
             endpoint = "/campaigns/$campaignId/status",
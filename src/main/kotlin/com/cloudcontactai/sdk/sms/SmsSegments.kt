@@ -0,0 +1,167 @@
+package com.cloudcontactai.sdk.sms
+
+enum class SmsEncoding { GSM_7, UCS_2 }
+
+/**
+ * Encoding and segment count of a message.
+ *
+ * [units] is septets for GSM-7 and UTF-16 code units for UCS-2.
+ */
+data class SmsSegmentInfo(
+    val encoding: SmsEncoding,
+    val units: Int,
+    val segments: Int
+)
+
+/**
+ * Result of [SmsSegments.transliterate] with the segment counts before and after.
+ *
+ * The transliterated text is only [applied] when it needs fewer segments than the original.
+ */
+data class SmsTransliterationReport(
+    val original: String,
+    val transliterated: String,
+    val originalSegments: SmsSegmentInfo,
+    val transliteratedSegments: SmsSegmentInfo,
+    val replacedCharacters: Int
+) {
+    val applied: Boolean get() = transliteratedSegments.segments < originalSegments.segments
+
+    val message: String get() = if (applied) transliterated else original
+
+    val savedSegmentsPerMessage: Int get() = if (applied) originalSegments.segments - transliteratedSegments.segments else 0
+}
+
+/**
+ * Table-driven SMS segment calculator and GSM-7 transliteration.
+ *
+ * Counting walks the text once with array lookups only. GSM-7 extension characters cost two
+ * septets and, like UCS-2 surrogate pairs, are never split across segment boundaries.
+ */
+object SmsSegments {
+    private const val GSM_SINGLE = 160
+    private const val GSM_MULTI = 153
+    private const val UCS2_SINGLE = 70
+    private const val UCS2_MULTI = 67
+    private const val EURO = '€'
+
+    private const val BASIC = "@£\$¥èéùìòÇ\nØø\rÅåΔ_ΦΓΛΩΠΨΣΘΞÆæßÉ !\"#¤%&'()*+,-./0123456789:;<=>?" +
+        "¡ABCDEFGHIJKLMNOPQRSTUVWXYZÄÖÑÜ§¿abcdefghijklmnopqrstuvwxyzäöñüà"
+    private const val EXTENSION = "\u000C^{}\\[~]|"
+
+    // Septet cost per character below 0x400, which covers all of GSM-7 except the euro sign
+    private val SEPTETS = ByteArray(0x400).also { table ->
+        BASIC.forEach { table[it.code] = 1 }
+        EXTENSION.forEach { table[it.code] = 2 }
+    }
+
+    private val REPLACEMENTS: Map<Char, String> = mapOf(
+        '‘' to "'", '’' to "'", '‚' to "'", '‛' to "'", '′' to "'", '´' to "'", '`' to "'",
+        '“' to "\"", '”' to "\"", '„' to "\"", '‟' to "\"", '″' to "\"",
+        '«' to "\"", '»' to "\"", '‹' to "<", '›' to ">",
+        '‐' to "-", '‑' to "-", '‒' to "-", '–' to "-", '—' to "-", '―' to "-", '−' to "-",
+        '…' to "...", '•' to "*", '·' to ".", '⁄' to "/",
+        '\u00A0' to " ", '\u2002' to " ", '\u2003' to " ", '\u2009' to " ", '\u200A' to " ", '\u202F' to " ", '\u3000' to " ",
+        '\u200B' to "", '\u200C' to "", '\u200D' to "", '\uFEFF' to "",
+        '©' to "(c)", '®' to "(R)", '™' to "TM"
+    )
+
+    /**
+     * Septets needed for [c] in GSM-7, or 0 when it forces UCS-2.
+     */
+    @JvmStatic
+    fun gsmSeptets(c: Char): Int {
+        if (c.code < SEPTETS.size) return SEPTETS[c.code].toInt()
+        return if (c == EURO) 2 else 0
+    }
+
+    @JvmStatic
+    fun isGsm7(text: CharSequence): Boolean {
+        for (i in 0 until text.length) {
+            if (gsmSeptets(text[i]) == 0) return false
+        }
+        return true
+    }
+
+    @JvmStatic
+    fun calculate(text: CharSequence): SmsSegmentInfo {
+        return if (isGsm7(text)) {
+            var septets = 0
+            for (i in 0 until text.length) septets += gsmSeptets(text[i])
+            SmsSegmentInfo(SmsEncoding.GSM_7, septets, gsmSegments(text, septets))
+        } else {
+            SmsSegmentInfo(SmsEncoding.UCS_2, text.length, ucs2Segments(text))
+        }
+    }
+
+    /**
+     * Segment count without allocating a result object.
+     */
+    @JvmStatic
+    fun segmentCount(text: CharSequence): Int {
+        if (!isGsm7(text)) return ucs2Segments(text)
+        var septets = 0
+        for (i in 0 until text.length) septets += gsmSeptets(text[i])
+        return gsmSegments(text, septets)
+    }
+
+    /**
+     * Replaces common Unicode punctuation and spacing with GSM-7 equivalents.
+     */
+    @JvmStatic
+    fun transliterate(text: String): SmsTransliterationReport {
+        var builder: StringBuilder? = null
+        var replaced = 0
+        for (i in text.indices) {
+            val replacement = REPLACEMENTS[text[i]]
+            if (replacement == null) {
+                builder?.append(text[i])
+            } else {
+                val target = builder ?: StringBuilder(text.length).append(text, 0, i).also { builder = it }
+                target.append(replacement)
+                replaced++
+            }
+        }
+        val transliterated = builder?.toString() ?: text
+        val originalSegments = calculate(text)
+        return SmsTransliterationReport(
+            original = text,
+            transliterated = transliterated,
+            originalSegments = originalSegments,
+            transliteratedSegments = if (replaced == 0) originalSegments else calculate(transliterated),
+            replacedCharacters = replaced
+        )
+    }
+
+    private fun gsmSegments(text: CharSequence, septets: Int): Int {
+        if (septets <= GSM_SINGLE) return 1
+        var segments = 1
+        var used = 0
+        for (i in 0 until text.length) {
+            val cost = gsmSeptets(text[i])
+            if (used + cost > GSM_MULTI) {
+                segments++
+                used = 0
+            }
+            used += cost
+        }
+        return segments
+    }
+
+    private fun ucs2Segments(text: CharSequence): Int {
+        if (text.length <= UCS2_SINGLE) return 1
+        var segments = 1
+        var used = 0
+        var i = 0
+        while (i < text.length) {
+            val cost = if (Character.isHighSurrogate(text[i]) && i + 1 < text.length && Character.isLowSurrogate(text[i + 1])) 2 else 1
+            if (used + cost > UCS2_MULTI) {
+                segments++
+                used = 0
+            }
+            used += cost
+            i += cost
+        }
+        return segments
+    }
+}
@@ -0,0 +1,147 @@
+package com.cloudcontactai.sdk.webhook
+
+import com.cloudcontactai.sdk.common.CCAIException
+import com.fasterxml.jackson.core.JsonFactory
+import com.fasterxml.jackson.core.JsonLocation
+import com.fasterxml.jackson.core.JsonParser
+import com.fasterxml.jackson.core.JsonToken
+import java.io.IOException
+
+/**
+ * Reads webhook payloads token by token into [TypedWebhookEvent]s, without an intermediate
+ * tree or map. Fields may arrive in any order; the event class is chosen once the whole
+ * payload has been read. Thread-safe.
+ */
+class WebhookEventParser @JvmOverloads constructor(private val factory: JsonFactory = JsonFactory()) {
+
+    fun parse(payload: String): TypedWebhookEvent = parse(factory.createParser(payload), payload, null)
+
+    /**
+     * Parses UTF-8 [payload]. The array backs [WebhookEventData.raw] and must not be modified
+     * while the event is in use.
+     */
+    fun parse(payload: ByteArray): TypedWebhookEvent = parse(factory.createParser(payload), null, payload)
+
+    private fun parse(parser: JsonParser, text: String?, bytes: ByteArray?): TypedWebhookEvent {
+        try {
+            parser.use {
+                if (parser.nextToken() != JsonToken.START_OBJECT) throw CCAIException("Webhook payload is not a JSON object")
+                var eventType: String? = null
+                var eventHash = ""
+                var data: WebhookEventData? = null
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    val name = parser.currentName
+                    parser.nextToken()
+                    when (name) {
+                        "eventType" -> eventType = readString(parser)
+                        "eventHash" -> eventHash = readString(parser) ?: ""
+                        "data" -> data = readData(parser, text, bytes)
+                        else -> parser.skipChildren()
+                    }
+                }
+                return create(
+                    eventType ?: throw CCAIException("Webhook payload has no eventType"),
+                    eventHash,
+                    data ?: EMPTY_DATA
+                )
+            }
+        } catch (e: IOException) {
+            throw CCAIException("Invalid webhook payload: ${e.message}", e)
+        }
+    }
+
+    private fun readData(parser: JsonParser, text: String?, bytes: ByteArray?): WebhookEventData? {
+        if (parser.currentToken != JsonToken.START_OBJECT) {
+            parser.skipChildren()
+            return null
+        }
+        val start = offset(parser.tokenLocation, bytes != null)
+
+        var id: Long? = null
+        var campaignId: Long? = null
+        var campaignTitle: String? = null
+        var messageStatus: String? = null
+        var from: String? = null
+        var to: String? = null
+        var message: String? = null
+        var customData: String? = null
+        var error: String? = null
+        var email: String? = null
+        var subject: String? = null
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            val name = parser.currentName
+            parser.nextToken()
+            when (name) {
+                "id", "Id", "MessageId", "messageId" -> id = readLong(parser)
+                "CampaignId", "campaignId" -> campaignId = readLong(parser)
+                "CampaignTitle", "campaignTitle" -> campaignTitle = readString(parser)
+                "MessageStatus", "messageStatus", "Status", "status" -> messageStatus = readString(parser)
+                "From", "from" -> from = readString(parser)
+                "To", "to" -> to = readString(parser)
+                "Message", "message" -> message = readString(parser)
+                "CustomData", "customData" -> customData = readString(parser)
+                "Error", "error", "ErrorMessage", "errorMessage" -> error = readString(parser)
+                "Email", "email" -> email = readString(parser)
+                "Subject", "subject" -> subject = readString(parser)
+                else -> parser.skipChildren()
+            }
+        }
+        val end = offset(parser.currentLocation, bytes != null)
+
+        return WebhookEventData(
+            id, campaignId, campaignTitle, messageStatus, from, to, message, customData, error, email, subject,
+            RawJson(text, bytes, start, end)
+        )
+    }
+
+    private fun create(eventType: String, eventHash: String, data: WebhookEventData): TypedWebhookEvent {
+        return when (eventType) {
+            "sms.sent" -> SmsSentEvent(eventType, eventHash, data)
+            "sms.delivered" -> SmsDeliveredEvent(eventType, eventHash, data)
+            "sms.failed" -> SmsFailedEvent(eventType, eventHash, data)
+            "sms.replied", "sms.received" -> SmsReplyEvent(eventType, eventHash, data)
+            "contact.unsubscribed", "sms.opt_out" -> OptOutEvent(eventType, eventHash, data)
+            else -> if (eventType.startsWith("email.")) {
+                EmailEvent(eventType, eventHash, data)
+            } else {
+                UnknownWebhookEvent(eventType, eventHash, data)
+            }
+        }
+    }
+
+    /**
+     * Numbers and numeric strings; anything else reads as null.
+     */
+    private fun readLong(parser: JsonParser): Long? {
+        return when (parser.currentToken) {
+            JsonToken.VALUE_NUMBER_INT -> parser.longValue
+            JsonToken.VALUE_STRING -> parser.text.toLongOrNull()
+            else -> {
+                parser.skipChildren()
+                null
+            }
+        }
+    }
+
+    /**
+     * Scalars as text; objects and arrays are skipped and read as null.
+     */
+    private fun readString(parser: JsonParser): String? {
+        return when (parser.currentToken) {
+            JsonToken.START_OBJECT, JsonToken.START_ARRAY -> {
+                parser.skipChildren()
+                null
+            }
+            JsonToken.VALUE_NULL -> null
+            else -> parser.valueAsString
+        }
+    }
+
+    private fun offset(location: JsonLocation, bytes: Boolean): Int {
+        return (if (bytes) location.byteOffset else location.charOffset).toInt()
+    }
+
+    private companion object {
+        val EMPTY_DATA = WebhookEventData(null, null, null, null, null, null, null, null, null, null, null, RawJson.EMPTY)
+    }
+}
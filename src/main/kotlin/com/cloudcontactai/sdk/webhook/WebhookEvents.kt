@@ -0,0 +1,123 @@
+package com.cloudcontactai.sdk.webhook
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.jacksonObjectMapper
+
+/**
+ * The `data` object of a webhook event. Known fields are read while streaming; [raw] parses
+ * the whole object, including fields without a typed accessor, on first access.
+ */
+class WebhookEventData internal constructor(
+    val id: Long?,
+    val campaignId: Long?,
+    val campaignTitle: String?,
+    val messageStatus: String?,
+    val from: String?,
+    val to: String?,
+    val message: String?,
+    val customData: String?,
+    val error: String?,
+    val email: String?,
+    val subject: String?,
+    private val source: RawJson
+) {
+    val raw: Map<String, Any?> by lazy { source.parse() }
+}
+
+/**
+ * Location of a JSON object inside the payload it was parsed from, as text or UTF-8 bytes.
+ */
+internal class RawJson(private val text: String?, private val bytes: ByteArray?, private val start: Int, private val end: Int) {
+    @Suppress("UNCHECKED_CAST")
+    fun parse(): Map<String, Any?> {
+        if (start >= end) return emptyMap()
+        return when {
+            text != null -> MAPPER.readValue(text.substring(start, end), Map::class.java)
+            bytes != null -> MAPPER.readValue(bytes, start, end - start, Map::class.java)
+            else -> emptyMap<String, Any?>()
+        } as Map<String, Any?>
+    }
+
+    companion object {
+        private val MAPPER: ObjectMapper = jacksonObjectMapper()
+        val EMPTY = RawJson(null, null, 0, 0)
+    }
+}
+
+/**
+ * A webhook event with typed accessors for its [eventType]. Use `when` over the subclasses
+ * instead of looking fields up by name.
+ */
+sealed class TypedWebhookEvent(
+    val eventType: String,
+    val eventHash: String,
+    val data: WebhookEventData
+) {
+    override fun toString(): String = "${javaClass.simpleName}(eventType=$eventType, eventHash=$eventHash)"
+}
+
+/**
+ * Outbound SMS status change for one recipient of a campaign.
+ */
+sealed class SmsStatusEvent(eventType: String, eventHash: String, data: WebhookEventData) :
+    TypedWebhookEvent(eventType, eventHash, data) {
+    val messageId: Long? get() = data.id
+    val campaignId: Long? get() = data.campaignId
+    val to: String? get() = data.to
+    val message: String? get() = data.message
+    val messageStatus: String? get() = data.messageStatus
+    val customData: String? get() = data.customData
+}
+
+class SmsSentEvent internal constructor(eventType: String, eventHash: String, data: WebhookEventData) :
+    SmsStatusEvent(eventType, eventHash, data)
+
+class SmsDeliveredEvent internal constructor(eventType: String, eventHash: String, data: WebhookEventData) :
+    SmsStatusEvent(eventType, eventHash, data)
+
+class SmsFailedEvent internal constructor(eventType: String, eventHash: String, data: WebhookEventData) :
+    SmsStatusEvent(eventType, eventHash, data) {
+    val error: String? get() = data.error
+}
+
+/**
+ * Inbound message from a recipient.
+ */
+class SmsReplyEvent internal constructor(eventType: String, eventHash: String, data: WebhookEventData) :
+    TypedWebhookEvent(eventType, eventHash, data) {
+    val messageId: Long? get() = data.id
+    val campaignId: Long? get() = data.campaignId
+    val from: String? get() = data.from
+    val to: String? get() = data.to
+    val message: String? get() = data.message
+}
+
+/**
+ * A contact unsubscribed, by phone or by email.
+ */
+class OptOutEvent internal constructor(eventType: String, eventHash: String, data: WebhookEventData) :
+    TypedWebhookEvent(eventType, eventHash, data) {
+    val phone: String? get() = data.from ?: data.to
+    val email: String? get() = data.email
+    val campaignId: Long? get() = data.campaignId
+}
+
+/**
+ * Any `email.*` event; [status] is the part after the prefix, such as `sent`, `delivered`,
+ * `failed`, `opened` or `bounced`.
+ */
+class EmailEvent internal constructor(eventType: String, eventHash: String, data: WebhookEventData) :
+    TypedWebhookEvent(eventType, eventHash, data) {
+    val status: String get() = eventType.substringAfter('.')
+    val messageId: Long? get() = data.id
+    val campaignId: Long? get() = data.campaignId
+    val email: String? get() = data.email ?: data.to
+    val subject: String? get() = data.subject
+    val error: String? get() = data.error
+}
+
+/**
+ * Event type this SDK version has no typed class for; its fields are in [WebhookEventData.raw].
+ */
+class UnknownWebhookEvent internal constructor(eventType: String, eventHash: String, data: WebhookEventData) :
+    TypedWebhookEvent(eventType, eventHash, data)
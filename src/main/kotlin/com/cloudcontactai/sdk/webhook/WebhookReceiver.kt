@@ -0,0 +1,247 @@
+package com.cloudcontactai.sdk.webhook
+
+import com.cloudcontactai.sdk.common.CCAIException
+import com.sun.net.httpserver.HttpExchange
+import com.sun.net.httpserver.HttpServer
+import java.net.InetSocketAddress
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.atomic.AtomicLong
+
+fun interface WebhookHandler<T : TypedWebhookEvent> {
+    fun handle(event: T)
+}
+
+/**
+ * [port] 0 picks a free port. With [workerThreads] 0, requests run on virtual threads when the
+ * JVM provides them and on two threads per CPU otherwise. Larger bodies than [maxBodyBytes]
+ * are refused with 413 without being read.
+ */
+data class WebhookReceiverOptions @JvmOverloads constructor(
+    val port: Int = 8080,
+    val path: String = "/webhook",
+    val host: String = "0.0.0.0",
+    val maxBodyBytes: Int = 1024 * 1024,
+    val workerThreads: Int = 0,
+    val signatureHeader: String = "X-CCAI-Signature"
+) {
+    init {
+        require(port in 0..65535) { "Port must be between 0 and 65535" }
+        require(path.startsWith("/")) { "Path must start with /" }
+        require(maxBodyBytes > 0) { "Max body bytes must be positive" }
+        require(workerThreads >= 0) { "Worker threads must be non-negative" }
+    }
+}
+
+data class WebhookReceiverStats(
+    val received: Long,
+    val accepted: Long,
+    val invalidSignature: Long,
+    val tooLarge: Long,
+    val malformed: Long,
+    val handlerErrors: Long,
+    val unhandled: Long,
+    val bytesReceived: Long,
+    val averageLatencyMs: Double,
+    val maxLatencyMs: Double
+)
+
+/**
+ * Embedded HTTP endpoint for CCAI webhooks on the JDK's built-in server.
+ *
+ * Each request is read, parsed and, when a [verifier] is set, checked against its signature
+ * on the request thread, then passed to every handler registered for a class the event is an
+ * instance of. Invalid signatures get 401, malformed payloads 400, and handler failures 500 so
+ * the event is delivered again. Responses have no body, so connections stay open for reuse.
+ */
+class WebhookReceiver @JvmOverloads constructor(
+    private val clientId: Long,
+    private val verifier: WebhookVerifier?,
+    private val options: WebhookReceiverOptions = WebhookReceiverOptions(),
+    private val parser: WebhookEventParser = WebhookEventParser()
+) : AutoCloseable {
+    private class Registration(val type: Class<out TypedWebhookEvent>, val handler: WebhookHandler<TypedWebhookEvent>)
+
+    private val registrations = CopyOnWriteArrayList<Registration>()
+    private val handlersByClass = ConcurrentHashMap<Class<*>, List<WebhookHandler<TypedWebhookEvent>>>()
+
+    private val received = AtomicLong()
+    private val accepted = AtomicLong()
+    private val invalidSignature = AtomicLong()
+    private val tooLarge = AtomicLong()
+    private val malformed = AtomicLong()
+    private val handlerErrors = AtomicLong()
+    private val unhandled = AtomicLong()
+    private val bytesReceived = AtomicLong()
+    private val latencyNanos = AtomicLong()
+    private val maxLatencyNanos = AtomicLong()
+
+    private var server: HttpServer? = null
+    private var executor: ExecutorService? = null
+
+    /**
+     * Registers [handler] for events of [type] and its subclasses; register [SmsStatusEvent]
+     * for all SMS status changes or [TypedWebhookEvent] for everything.
+     */
+    fun <T : TypedWebhookEvent> on(type: Class<T>, handler: WebhookHandler<in T>): WebhookReceiver {
+        @Suppress("UNCHECKED_CAST")
+        registrations.add(Registration(type, handler as WebhookHandler<TypedWebhookEvent>))
+        handlersByClass.clear()
+        return this
+    }
+
+    inline fun <reified T : TypedWebhookEvent> on(handler: WebhookHandler<T>): WebhookReceiver = on(T::class.java, handler)
+
+    @Synchronized
+    fun start(): WebhookReceiver {
+        check(server == null) { "Webhook receiver is already started" }
+        val workers = createExecutor()
+        val httpServer = HttpServer.create(InetSocketAddress(options.host, options.port), 0)
+        httpServer.executor = workers
+        httpServer.createContext(options.path) { exchange ->
+            try {
+                handle(exchange)
+            } finally {
+                exchange.close()
+            }
+        }
+        httpServer.start()
+        executor = workers
+        server = httpServer
+        return this
+    }
+
+    /**
+     * Port the receiver listens on, useful when [WebhookReceiverOptions.port] is 0.
+     */
+    val port: Int get() = server?.address?.port ?: throw IllegalStateException("Webhook receiver is not started")
+
+    fun stats(): WebhookReceiverStats {
+        val finished = accepted.get() + invalidSignature.get() + malformed.get() + handlerErrors.get()
+        return WebhookReceiverStats(
+            received = received.get(),
+            accepted = accepted.get(),
+            invalidSignature = invalidSignature.get(),
+            tooLarge = tooLarge.get(),
+            malformed = malformed.get(),
+            handlerErrors = handlerErrors.get(),
+            unhandled = unhandled.get(),
+            bytesReceived = bytesReceived.get(),
+            averageLatencyMs = if (finished > 0) latencyNanos.get() / 1_000_000.0 / finished else 0.0,
+            maxLatencyMs = maxLatencyNanos.get() / 1_000_000.0
+        )
+    }
+
+    /**
+     * Stops accepting requests, waiting up to [delaySeconds] for exchanges in progress.
+     */
+    @Synchronized
+    @JvmOverloads
+    fun stop(delaySeconds: Int = 1) {
+        server?.stop(delaySeconds)
+        executor?.shutdown()
+        server = null
+        executor = null
+    }
+
+    override fun close() = stop()
+
+    private fun handle(exchange: HttpExchange) {
+        received.incrementAndGet()
+        if (exchange.requestMethod != "POST") {
+            exchange.responseHeaders.add("Allow", "POST")
+            exchange.sendResponseHeaders(405, -1)
+            return
+        }
+
+        val declaredLength = exchange.requestHeaders.getFirst("Content-Length")?.toLongOrNull()
+        if (declaredLength != null && declaredLength > options.maxBodyBytes) {
+            rejectTooLarge(exchange)
+            return
+        }
+        val start = System.nanoTime()
+        val body = readBody(exchange, declaredLength)
+        if (body == null) {
+            rejectTooLarge(exchange)
+            return
+        }
+        bytesReceived.addAndGet(body.size.toLong())
+
+        val status = process(body, exchange.requestHeaders.getFirst(options.signatureHeader))
+        exchange.sendResponseHeaders(status, -1)
+
+        val latency = System.nanoTime() - start
+        latencyNanos.addAndGet(latency)
+        maxLatencyNanos.accumulateAndGet(latency, ::maxOf)
+    }
+
+    private fun process(body: ByteArray, signature: String?): Int {
+        val event = try {
+            parser.parse(body)
+        } catch (e: CCAIException) {
+            malformed.incrementAndGet()
+            return 400
+        }
+        if (verifier != null && (signature == null || !verifier.verify(signature, clientId, event.eventHash))) {
+            invalidSignature.incrementAndGet()
+            return 401
+        }
+
+        val handlers = handlersByClass.computeIfAbsent(event.javaClass) { type ->
+            registrations.filter { it.type.isAssignableFrom(type) }.map { it.handler }
+        }
+        if (handlers.isEmpty()) unhandled.incrementAndGet()
+        return try {
+            handlers.forEach { it.handle(event) }
+            accepted.incrementAndGet()
+            200
+        } catch (e: Exception) {
+            handlerErrors.incrementAndGet()
+            500
+        }
+    }
+
+    /**
+     * Reads the whole body, or returns null once it grows past the limit.
+     */
+    private fun readBody(exchange: HttpExchange, declaredLength: Long?): ByteArray? {
+        val input = exchange.requestBody
+        if (declaredLength != null) return input.readNBytes(declaredLength.toInt())
+        val body = input.readNBytes(options.maxBodyBytes + 1)
+        return if (body.size > options.maxBodyBytes) null else body
+    }
+
+    private fun rejectTooLarge(exchange: HttpExchange) {
+        tooLarge.incrementAndGet()
+        // The unread body would corrupt the next request on this connection
+        exchange.responseHeaders.add("Connection", "close")
+        exchange.sendResponseHeaders(413, -1)
+    }
+
+    private fun createExecutor(): ExecutorService {
+        if (options.workerThreads == 0) {
+            virtualThreadExecutor()?.let { return it }
+        }
+        val threads = if (options.workerThreads > 0) options.workerThreads else Runtime.getRuntime().availableProcessors() * 2
+        val threadCount = AtomicInteger()
+        return Executors.newFixedThreadPool(threads) { runnable ->
+            Thread(runnable, "ccai-webhook-${threadCount.incrementAndGet()}").apply { isDaemon = true }
+        }
+    }
+
+    /**
+     * `Executors.newVirtualThreadPerTaskExecutor()` on JVMs that have it, looked up reflectively
+     * since the SDK targets Java 11.
+     */
+    private fun virtualThreadExecutor(): ExecutorService? {
+        return try {
+            Executors::class.java.getMethod("newVirtualThreadPerTaskExecutor").invoke(null) as ExecutorService
+        } catch (e: ReflectiveOperationException) {
+            // Missing before Java 21, or a preview feature that is not enabled
+            null
+        }
+    }
+}
@@ -3,12 +3,13 @@ package com.cloudcontactai.sdk.webhook
 import com.cloudcontactai.sdk.common.ApiClient
 import com.cloudcontactai.sdk.common.CCAIConfig
 import com.fasterxml.jackson.module.kotlin.jacksonObjectMapper
-import java.util.Base64
-import javax.crypto.Mac
-import javax.crypto.spec.SecretKeySpec
 
 class WebhookService(private val config: CCAIConfig, private val apiClient: ApiClient) {
     private val objectMapper = jacksonObjectMapper()
+    private val eventParser = WebhookEventParser(objectMapper.factory)
+    private val verifiers = object : LinkedHashMap<String, WebhookVerifier>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, WebhookVerifier>?) = size > MAX_VERIFIERS
+    }
     
     init {
         require(config.clientId.isNotBlank()) { "Client ID cannot be null or empty" }
@@ -59,31 +60,46 @@ class WebhookService(private val config: CCAIConfig, private val apiClient: ApiC
         return objectMapper.readValue(payload, WebhookEvent::class.java)
     }
 
+    /**
+     * Parses [payload] into the typed event class for its `eventType`.
+     */
+    fun parseTypedEvent(payload: String): TypedWebhookEvent = eventParser.parse(payload)
+
+    fun parseTypedEvent(payload: ByteArray): TypedWebhookEvent = eventParser.parse(payload)
+
+    /**
+     * Embedded receiver that verifies events against [secretKey], or accepts them unsigned
+     * when it is null. Call [WebhookReceiver.start] after registering handlers.
+     */
+    @JvmOverloads
+    fun receiver(secretKey: String?, options: WebhookReceiverOptions = WebhookReceiverOptions()): WebhookReceiver {
+        val clientId = config.clientId.toLongOrNull()
+        require(secretKey == null || clientId != null) { "Client ID must be numeric to verify webhook signatures" }
+        return WebhookReceiver(clientId ?: 0, secretKey?.let { verifier(it) }, options, eventParser)
+    }
+
     fun validateSignature(signature: String, secretKey: String, clientId: Long, eventHash: String): Boolean {
         return try {
-            val expectedSignature = generateSignature(secretKey, clientId, eventHash)
-            constantTimeEquals(signature, expectedSignature)
+            verifier(secretKey).verify(signature, clientId, eventHash)
         } catch (e: Exception) {
             false
         }
     }
 
     fun generateSignature(secretKey: String, clientId: Long, eventHash: String): String {
-        val data = "$clientId:$eventHash"
-        val hmac = Mac.getInstance("HmacSHA256")
-        val secretKeySpec = SecretKeySpec(secretKey.toByteArray(), "HmacSHA256")
-        hmac.init(secretKeySpec)
-        val signatureBytes = hmac.doFinal(data.toByteArray())
-        return Base64.getEncoder().encodeToString(signatureBytes)
+        return verifier(secretKey).sign(clientId, eventHash)
     }
 
-    private fun constantTimeEquals(a: String, b: String): Boolean {
-        if (a.length != b.length) return false
-        var result = 0
-        for (i in a.indices) {
-            result = result or (a[i].code xor b[i].code)
-        }
-        return result == 0
+    /**
+     * Verifier for [secretKey]. The verifiers of the last few keys used are kept, so checking
+     * events against several keys in turn, such as during a rotation, sets each key up once.
+     */
+    fun verifier(secretKey: String): WebhookVerifier {
+        return synchronized(verifiers) { verifiers.getOrPut(secretKey) { WebhookVerifier(secretKey) } }
+    }
+
+    private companion object {
+        const val MAX_VERIFIERS = 16
     }
 
 }
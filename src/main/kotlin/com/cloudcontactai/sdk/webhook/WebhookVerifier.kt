@@ -0,0 +1,194 @@
+package com.cloudcontactai.sdk.webhook
+
+import java.security.MessageDigest
+import java.util.Base64
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicInteger
+import javax.crypto.Mac
+import javax.crypto.spec.SecretKeySpec
+
+/**
+ * Checks webhook signatures for one secret key: Base64 of HMAC-SHA256 over `clientId:eventHash`.
+ *
+ * The key is set up once. Each check borrows a clone of the initialized [Mac] and scratch
+ * buffers from a small pool and returns them afterwards, so verifying an event encodes nothing
+ * into new strings and compares the decoded signature bytes in constant time. The pool is not
+ * tied to threads, so receivers that run every request on a new virtual thread reuse it too.
+ * Instances are thread-safe.
+ */
+class WebhookVerifier(secretKey: String) {
+    private val key = SecretKeySpec(secretKey.toByteArray(), ALGORITHM)
+    private val prototype: Mac = Mac.getInstance(ALGORITHM).apply { init(key) }
+
+    private val pool = ConcurrentLinkedQueue<Scratch>()
+    private val pooled = AtomicInteger()
+    private val created = AtomicInteger()
+
+    private class Scratch(val mac: Mac, macLength: Int) {
+        var input = ByteArray(128)
+        val expected = ByteArray(macLength)
+        val received = ByteArray(macLength)
+    }
+
+    fun verify(signature: String, clientId: Long, eventHash: String): Boolean {
+        return withScratch { scratch ->
+            if (!decodeBase64(signature, scratch.received)) {
+                false
+            } else {
+                mac(scratch, clientId, eventHash)
+                MessageDigest.isEqual(scratch.expected, scratch.received)
+            }
+        }
+    }
+
+    fun sign(clientId: Long, eventHash: String): String {
+        return withScratch { scratch ->
+            mac(scratch, clientId, eventHash)
+            Base64.getEncoder().encodeToString(scratch.expected)
+        }
+    }
+
+    /**
+     * Number of [Mac] clones made so far, at most the highest number of concurrent checks.
+     */
+    internal fun scratchCreated(): Int = created.get()
+
+    private inline fun <T> withScratch(block: (Scratch) -> T): T {
+        val scratch = pool.poll()?.also { pooled.decrementAndGet() } ?: newScratch()
+        // Not returned when the block throws, since the Mac may be left mid-computation
+        val result = block(scratch)
+        if (pooled.incrementAndGet() <= MAX_POOLED) pool.offer(scratch) else pooled.decrementAndGet()
+        return result
+    }
+
+    private fun newScratch(): Scratch {
+        created.incrementAndGet()
+        return Scratch(copyMac(), prototype.macLength)
+    }
+
+    private fun copyMac(): Mac {
+        return try {
+            prototype.clone() as Mac
+        } catch (e: CloneNotSupportedException) {
+            // Providers without clone support are initialized per scratch instead
+            Mac.getInstance(ALGORITHM, prototype.provider).apply { init(key) }
+        }
+    }
+
+    private fun mac(scratch: Scratch, clientId: Long, eventHash: String) {
+        val length = writeInput(scratch, clientId, eventHash)
+        scratch.mac.update(scratch.input, 0, length)
+        scratch.mac.doFinal(scratch.expected, 0)
+    }
+
+    /**
+     * Writes the UTF-8 bytes of `clientId:eventHash` into the scratch input and returns their count.
+     */
+    private fun writeInput(scratch: Scratch, clientId: Long, eventHash: String): Int {
+        val needed = MAX_LONG_CHARS + 1 + eventHash.length * 3
+        if (scratch.input.size < needed) scratch.input = ByteArray(maxOf(needed, scratch.input.size * 2))
+        val input = scratch.input
+
+        var position = writeLong(clientId, input)
+        input[position++] = ':'.code.toByte()
+        var i = 0
+        while (i < eventHash.length) {
+            val c = eventHash[i]
+            when {
+                c.code < 0x80 -> input[position++] = c.code.toByte()
+                c.code < 0x800 -> {
+                    input[position++] = (0xC0 or (c.code shr 6)).toByte()
+                    input[position++] = (0x80 or (c.code and 0x3F)).toByte()
+                }
+                c.isHighSurrogate() && i + 1 < eventHash.length && eventHash[i + 1].isLowSurrogate() -> {
+                    val codePoint = Character.toCodePoint(c, eventHash[++i])
+                    input[position++] = (0xF0 or (codePoint shr 18)).toByte()
+                    input[position++] = (0x80 or ((codePoint shr 12) and 0x3F)).toByte()
+                    input[position++] = (0x80 or ((codePoint shr 6) and 0x3F)).toByte()
+                    input[position++] = (0x80 or (codePoint and 0x3F)).toByte()
+                }
+                else -> {
+                    // Unpaired surrogates encode as '?', like String.toByteArray
+                    val encoded = if (c.isSurrogate()) '?'.code else c.code
+                    if (encoded < 0x80) {
+                        input[position++] = encoded.toByte()
+                    } else {
+                        input[position++] = (0xE0 or (encoded shr 12)).toByte()
+                        input[position++] = (0x80 or ((encoded shr 6) and 0x3F)).toByte()
+                        input[position++] = (0x80 or (encoded and 0x3F)).toByte()
+                    }
+                }
+            }
+            i++
+        }
+        return position
+    }
+
+    private fun writeLong(value: Long, out: ByteArray): Int {
+        if (value == Long.MIN_VALUE) {
+            val digits = Long.MIN_VALUE.toString()
+            digits.forEachIndexed { index, c -> out[index] = c.code.toByte() }
+            return digits.length
+        }
+        var position = 0
+        var remaining = value
+        if (remaining < 0) {
+            out[position++] = '-'.code.toByte()
+            remaining = -remaining
+        }
+        val start = position
+        do {
+            out[position++] = ('0'.code + (remaining % 10).toInt()).toByte()
+            remaining /= 10
+        } while (remaining > 0)
+        out.reverse(start, position)
+        return position
+    }
+
+    /**
+     * Decodes canonical, padded Base64 into [out], which it must fill exactly.
+     */
+    private fun decodeBase64(signature: String, out: ByteArray): Boolean {
+        val length = signature.length
+        if (length != (out.size + 2) / 3 * 4) return false
+        val padding = (3 - out.size % 3) % 3
+        var outPosition = 0
+        var i = 0
+        while (i < length) {
+            var chunk = 0
+            var chars = 0
+            for (j in 0 until 4) {
+                val c = signature[i + j]
+                if (c == '=') {
+                    if (i + j < length - padding) return false
+                    chunk = chunk shl 6
+                } else {
+                    val value = if (c.code < 128) DECODE[c.code] else -1
+                    if (value < 0 || i + j >= length - padding) return false
+                    chunk = (chunk shl 6) or value
+                    chars++
+                }
+            }
+            val bytes = if (chars == 4) 3 else chars - 1
+            // Bits below the last decoded byte must be zero in canonical Base64
+            if (bytes < 3 && chunk and ((1 shl (8 * (3 - bytes))) - 1) != 0) return false
+            for (k in 0 until bytes) {
+                out[outPosition++] = (chunk shr (16 - 8 * k)).toByte()
+            }
+            i += 4
+        }
+        return outPosition == out.size
+    }
+
+    private companion object {
+        const val ALGORITHM = "HmacSHA256"
+        const val MAX_LONG_CHARS = 20
+        const val MAX_POOLED = 64
+
+        val DECODE = IntArray(128) { -1 }.also { table ->
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".forEachIndexed { index, c ->
+                table[c.code] = index
+            }
+        }
+    }
+}
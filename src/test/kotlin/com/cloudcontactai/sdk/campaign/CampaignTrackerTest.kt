@@ -0,0 +1,125 @@
+package com.cloudcontactai.sdk.campaign
+
+import com.cloudcontactai.sdk.CCAIClient
+import com.cloudcontactai.sdk.common.CCAIConfig
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+class CampaignTrackerTest {
+    
+    private lateinit var mockServer: MockWebServer
+    private lateinit var client: CCAIClient
+    private lateinit var tracker: CampaignTracker
+    
+    @BeforeEach
+    fun setup() {
+        mockServer = MockWebServer()
+        mockServer.start()
+        
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key"
+        )
+        
+        val url = mockServer.url("/").toString().trimEnd('/')
+        listOf("baseUrl", "emailBaseUrl").forEach { name ->
+            val field = CCAIConfig::class.java.getDeclaredField(name)
+            field.isAccessible = true
+            field.set(config, url)
+        }
+        
+        client = CCAIClient(config)
+        tracker = CampaignTracker(
+            client.sms,
+            client.email,
+            CampaignTrackerOptions(initialIntervalMs = 10, minIntervalMs = 10, maxIntervalMs = 50)
+        )
+    }
+    
+    @AfterEach
+    fun tearDown() {
+        tracker.close()
+        mockServer.shutdown()
+        client.close()
+    }
+    
+    private fun smsStatus(status: String, sent: Int) = MockResponse()
+        .setResponseCode(200)
+        .setBody("""{"id": "campaign-1", "status": "$status", "totalMessages": 10, "sentMessages": $sent, "failedMessages": 0}""")
+        .addHeader("Content-Type", "application/json")
+    
+    @Test
+    fun `should report progress and complete when campaign is terminal`() {
+        mockServer.enqueue(smsStatus("sending", 2))
+        mockServer.enqueue(smsStatus("sending", 6))
+        mockServer.enqueue(smsStatus("completed", 10))
+        
+        val progressUpdates = mutableListOf<Int>()
+        val future = tracker.trackSms("campaign-1", object : CampaignListener {
+            override fun onProgress(progress: CampaignProgress) {
+                progressUpdates.add(progress.sentMessages)
+            }
+        })
+        
+        val result = future.get(5, TimeUnit.SECONDS)
+        
+        assertEquals("completed", result.status)
+        assertEquals(CampaignChannel.SMS, result.channel)
+        assertEquals(1.0, result.fraction)
+        assertEquals(listOf(2, 6), progressUpdates)
+        assertEquals(3, mockServer.requestCount)
+        assertEquals(0, tracker.trackedCount)
+    }
+    
+    @Test
+    fun `should track email campaigns and treat fully processed campaigns as terminal`() {
+        mockServer.enqueue(MockResponse()
+            .setResponseCode(200)
+            .setBody("""{"id": "email-1", "status": "sending", "totalEmails": 3, "sentEmails": 2, "failedEmails": 1}""")
+            .addHeader("Content-Type", "application/json"))
+        
+        val result = tracker.trackEmail("email-1").get(5, TimeUnit.SECONDS)
+        
+        assertEquals(CampaignChannel.EMAIL, result.channel)
+        assertTrue(result.isTerminal)
+        assertEquals(3, result.processedMessages)
+    }
+    
+    @Test
+    fun `should fail future after repeated poll errors`() {
+        repeat(5) { mockServer.enqueue(MockResponse().setResponseCode(500).setBody("error")) }
+        
+        val future = tracker.trackSms("campaign-1")
+        
+        assertThrows(ExecutionException::class.java) { future.get(5, TimeUnit.SECONDS) }
+        assertEquals(5, mockServer.requestCount)
+    }
+    
+    @Test
+    fun `should keep polling other campaigns while one status request hangs`() {
+        mockServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                return if (request.path!!.contains("slow")) {
+                    smsStatus("sending", 1).setHeadersDelay(3, TimeUnit.SECONDS)
+                } else {
+                    smsStatus("completed", 10)
+                }
+            }
+        }
+        
+        val slow = tracker.trackSms("slow")
+        Thread.sleep(50)
+        val fast = (1..3).map { tracker.trackSms("fast-$it") }
+        
+        fast.forEach { assertEquals("completed", it.get(1, TimeUnit.SECONDS).status) }
+        assertFalse(slow.isDone)
+    }
+}
@@ -0,0 +1,85 @@
+package com.cloudcontactai.sdk.common
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+
+class AdaptiveConcurrencyLimiterTest {
+    
+    private fun saturate(limiter: AdaptiveConcurrencyLimiter) {
+        repeat(limiter.limit) { limiter.acquire() }
+    }
+    
+    @Test
+    fun `should grow the limit while latency is steady`() {
+        val limiter = AdaptiveConcurrencyLimiter("test", AdaptiveLimitOptions(initialLimit = 10, maxLimit = 100))
+        
+        repeat(50) {
+            saturate(limiter)
+            repeat(limiter.stats().inFlight) { limiter.onSample(10_000_000) }
+        }
+        
+        assertTrue(limiter.limit > 10, "limit should grow, was ${limiter.limit}")
+        assertEquals(0, limiter.stats().inFlight)
+    }
+    
+    @Test
+    fun `should shrink the limit when latency rises`() {
+        val limiter = AdaptiveConcurrencyLimiter("test", AdaptiveLimitOptions(initialLimit = 50))
+        repeat(100) {
+            limiter.acquire()
+            limiter.onSample(10_000_000)
+        }
+        
+        repeat(3) {
+            saturate(limiter)
+            repeat(limiter.stats().inFlight) { limiter.onSample(100_000_000) }
+        }
+        
+        assertTrue(limiter.limit < 50, "limit should shrink, was ${limiter.limit}")
+    }
+    
+    @Test
+    fun `should back off on throttled responses`() {
+        val limiter = AdaptiveConcurrencyLimiter("test", AdaptiveLimitOptions(initialLimit = 20, minLimit = 2))
+        
+        repeat(50) {
+            assertThrows<CCAIException> {
+                limiter.run { throw CCAIException("HTTP 429: Too Many Requests", statusCode = 429) }
+            }
+        }
+        
+        val stats = limiter.stats()
+        assertEquals(2, stats.limit)
+        assertEquals(50, stats.throttled)
+        assertEquals(0, stats.inFlight)
+    }
+    
+    @Test
+    fun `should not treat client errors as overload`() {
+        val limiter = AdaptiveConcurrencyLimiter("test", AdaptiveLimitOptions(initialLimit = 20))
+        
+        assertThrows<CCAIException> {
+            limiter.run { throw CCAIException("HTTP 400: Bad Request", statusCode = 400) }
+        }
+        
+        assertEquals(20, limiter.limit)
+        assertEquals(0, limiter.stats().throttled)
+    }
+    
+    @Test
+    fun `should share a limiter across ids of the same endpoint family`() {
+        val limits = AdaptiveConcurrencyLimits(AdaptiveLimitOptions(), "client-1")
+        
+        val first = limits.forEndpoint("GET", "https://core.example.com/api", "/api/clients/client-1/campaigns/123/status")
+        val second = limits.forEndpoint("get", "https://core.example.com/api", "/api/clients/client-1/campaigns/456/status")
+        val other = limits.forEndpoint("POST", "https://core.example.com/api", "/api/clients/client-1/campaigns/direct")
+        
+        assertSame(first, second)
+        assertNotSame(first, other)
+        assertEquals(
+            listOf("GET core.example.com/api/clients/{clientId}/campaigns/{id}/status", "POST core.example.com/api/clients/{clientId}/campaigns/direct"),
+            limits.stats().map { it.family }
+        )
+    }
+}
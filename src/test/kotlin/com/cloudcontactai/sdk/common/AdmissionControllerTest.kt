@@ -0,0 +1,82 @@
+package com.cloudcontactai.sdk.common
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+class AdmissionControllerTest {
+    
+    @Test
+    fun `should reject when byte budget is exhausted in reject mode`() {
+        val controller = AdmissionController(AdmissionOptions(maxInFlightBytes = 100, mode = AdmissionMode.REJECT))
+        
+        controller.acquire(80)
+        assertThrows<CCAIException> { controller.acquire(30) }
+        controller.acquire(20)
+        
+        val stats = controller.stats()
+        assertEquals(100, stats.inFlightBytes)
+        assertEquals(2, stats.inFlightRequests)
+        assertEquals(1, stats.rejected)
+        
+        controller.release(80)
+        controller.release(20)
+        assertEquals(0, controller.stats().inFlightBytes)
+    }
+    
+    @Test
+    fun `should admit an oversized request when nothing is in flight`() {
+        val controller = AdmissionController(AdmissionOptions(maxInFlightBytes = 100, mode = AdmissionMode.REJECT))
+        
+        controller.acquire(500)
+        assertThrows<CCAIException> { controller.acquire(1) }
+        controller.release(500)
+        controller.acquire(1)
+    }
+    
+    @Test
+    fun `should block until budget is released`() {
+        val controller = AdmissionController(AdmissionOptions(maxInFlightRequests = 1, maxWaitMs = 5000))
+        controller.acquire(10)
+        
+        val waiter = thread { controller.acquire(10) }
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (controller.stats().queued < 1) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting for blocked acquire")
+            Thread.sleep(5)
+        }
+        
+        controller.release(10)
+        waiter.join(5000)
+        assertFalse(waiter.isAlive)
+        assertEquals(1, controller.stats().inFlightRequests)
+    }
+    
+    @Test
+    fun `should time out blocked callers`() {
+        val controller = AdmissionController(AdmissionOptions(maxInFlightRequests = 1, maxWaitMs = 20))
+        controller.acquire(10)
+        
+        assertThrows<CCAIException> { controller.acquire(10) }
+        assertEquals(1, controller.stats().rejected)
+    }
+    
+    @Test
+    fun `should complete async waiters in arrival order`() {
+        val controller = AdmissionController(AdmissionOptions(maxInFlightBytes = 100))
+        controller.acquire(100)
+        
+        val first = controller.acquireAsync(60)
+        val second = controller.acquireAsync(40)
+        assertFalse(first.isDone)
+        assertFalse(second.isDone)
+        assertEquals(2, controller.stats().queued)
+        
+        controller.release(100)
+        assertTrue(first.isDone)
+        assertTrue(second.isDone)
+        assertEquals(100, controller.stats().inFlightBytes)
+    }
+}
@@ -0,0 +1,42 @@
+package com.cloudcontactai.sdk.common
+
+import com.cloudcontactai.sdk.sms.Account
+import com.cloudcontactai.sdk.sms.SMSCampaign
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.fasterxml.jackson.module.kotlin.KotlinModule
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+
+class JsonSizeEstimatorTest {
+    
+    private val objectMapper = ObjectMapper().registerModule(KotlinModule.Builder().build())
+    private val estimator = JsonSizeEstimator(objectMapper)
+    
+    @Test
+    fun `should estimate plain objects close to their serialized size`() {
+        val campaign = SMSCampaign(
+            accounts = (1..200).map {
+                Account("First$it", "Last$it", "+1555000%04d".format(it), mapOf("order" to "A-$it"), customData = "data-$it")
+            },
+            message = "Your order is ready for pickup",
+            title = "Orders",
+            senderPhone = "+15550001111"
+        )
+        
+        val actual = objectMapper.writeValueAsBytes(campaign).size.toDouble()
+        val estimated = estimator.estimate(campaign)
+        
+        assertTrue(estimated in (actual * 0.8).toLong()..(actual * 1.25).toLong(), "estimated $estimated for $actual bytes")
+    }
+    
+    @Test
+    fun `should use the payload's own estimate for streamed bodies`() {
+        val payload = object : JsonPayload {
+            override fun writeJson(generator: com.fasterxml.jackson.core.JsonGenerator) = Unit
+            override fun estimatedBytes() = 12345L
+        }
+        
+        assertEquals(12345L, estimator.estimate(payload))
+        assertEquals(4L, estimator.estimate(null))
+    }
+}
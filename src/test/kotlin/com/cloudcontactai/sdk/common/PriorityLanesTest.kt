@@ -0,0 +1,78 @@
+package com.cloudcontactai.sdk.common
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import kotlin.concurrent.thread
+
+class PriorityLanesTest {
+    
+    private fun waitForQueued(lanes: PriorityLanes, priority: SendPriority, count: Int) {
+        val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5)
+        while (lanes.stats().first { it.priority == priority }.queued < count) {
+            assertTrue(System.nanoTime() < deadline, "timed out waiting for queued $priority calls")
+            Thread.sleep(5)
+        }
+    }
+    
+    @Test
+    fun `should serve transactional calls before queued bulk calls`() {
+        val lanes = PriorityLanes(PriorityLaneOptions(maxInFlight = 1))
+        val order = CopyOnWriteArrayList<SendPriority>()
+        val done = CountDownLatch(2)
+        
+        lanes.acquire(SendPriority.BULK)
+        val bulk = thread { lanes.run(SendPriority.BULK) { order.add(SendPriority.BULK) }; done.countDown() }
+        waitForQueued(lanes, SendPriority.BULK, 1)
+        val transactional = thread { lanes.run(SendPriority.TRANSACTIONAL) { order.add(SendPriority.TRANSACTIONAL) }; done.countDown() }
+        waitForQueued(lanes, SendPriority.TRANSACTIONAL, 1)
+        
+        lanes.release(SendPriority.BULK)
+        assertTrue(done.await(5, TimeUnit.SECONDS))
+        bulk.join()
+        transactional.join()
+        
+        assertEquals(listOf(SendPriority.TRANSACTIONAL, SendPriority.BULK), order)
+        val stats = lanes.stats().associateBy { it.priority }
+        assertEquals(2, stats.getValue(SendPriority.BULK).admitted)
+        assertTrue(stats.getValue(SendPriority.BULK).maxQueueWaitMs > 0)
+        assertEquals(0, stats.getValue(SendPriority.TRANSACTIONAL).inFlight)
+    }
+    
+    @Test
+    fun `should promote starved bulk calls ahead of newer transactional calls`() {
+        val lanes = PriorityLanes(PriorityLaneOptions(maxInFlight = 1, starvationThresholdMs = 50))
+        val order = CopyOnWriteArrayList<SendPriority>()
+        
+        lanes.acquire(SendPriority.NORMAL)
+        val bulk = thread { lanes.run(SendPriority.BULK) { order.add(SendPriority.BULK) } }
+        waitForQueued(lanes, SendPriority.BULK, 1)
+        Thread.sleep(100)
+        val transactional = thread { lanes.run(SendPriority.TRANSACTIONAL) { order.add(SendPriority.TRANSACTIONAL) } }
+        waitForQueued(lanes, SendPriority.TRANSACTIONAL, 1)
+        
+        lanes.release(SendPriority.NORMAL)
+        bulk.join(5000)
+        transactional.join(5000)
+        
+        assertEquals(listOf(SendPriority.BULK, SendPriority.TRANSACTIONAL), order)
+    }
+    
+    @Test
+    fun `should cap each class at its own limit`() {
+        val lanes = PriorityLanes(PriorityLaneOptions(maxInFlight = 4, bulkLimit = 1))
+        
+        lanes.acquire(SendPriority.BULK)
+        val bulk = thread { lanes.run(SendPriority.BULK) {} }
+        waitForQueued(lanes, SendPriority.BULK, 1)
+        
+        lanes.run(SendPriority.TRANSACTIONAL) {}
+        assertEquals(1, lanes.stats().first { it.priority == SendPriority.BULK }.queued)
+        
+        lanes.release(SendPriority.BULK)
+        bulk.join(5000)
+        assertEquals(0, lanes.stats().first { it.priority == SendPriority.BULK }.queued)
+    }
+}
@@ -2,8 +2,10 @@ package com.cloudcontactai.sdk.contact
 
 import com.cloudcontactai.sdk.CCAIClient
 import com.cloudcontactai.sdk.common.CCAIConfig
+import okhttp3.mockwebserver.Dispatcher
 import okhttp3.mockwebserver.MockResponse
 import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
 import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.BeforeEach
@@ -111,4 +113,60 @@ class ContactServiceTest {
         assertEquals("+15551234567", response.phone)
         assertFalse(response.doNotText)
     }
-}
\ No newline at end of file
+    
+    @Test
+    fun `should apply bulk do not text updates and report failures per entry`() {
+        mockServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val body = request.body.readUtf8()
+                if (body.contains("+15550000003")) {
+                    return MockResponse().setResponseCode(500).setBody("boom")
+                }
+                val phone = Regex("\"phone\":\"([^\"]+)\"").find(body)!!.groupValues[1]
+                return MockResponse()
+                    .setResponseCode(200)
+                    .setBody("""{"contactId": "c-$phone", "phone": "$phone", "doNotText": true}""")
+                    .addHeader("Content-Type", "application/json")
+            }
+        }
+        
+        val entries = (0 until 10).map { DoNotTextEntry(phone = "+1555000000$it") }
+        val checkpoints = mutableListOf<Long>()
+        
+        val result = client.contact.setDoNotTextBulk(
+            entries,
+            BulkDoNotTextOptions(concurrency = 4, checkpointInterval = 5, onCheckpoint = { synchronized(checkpoints) { checkpoints.add(it) } })
+        )
+        
+        assertEquals(10, result.results.size)
+        assertEquals(9, result.succeeded)
+        assertEquals(1, result.failed)
+        assertEquals(10L, result.checkpoint)
+        assertEquals(10L, checkpoints.last())
+        assertEquals((0L until 10L).toList(), result.results.map { it.index })
+        assertFalse(result.results[3].success)
+        assertEquals("+15550000004", result.results[4].response?.phone)
+        assertEquals(10, mockServer.requestCount)
+    }
+    
+    @Test
+    fun `should resume bulk do not text updates from checkpoint`() {
+        mockServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse = MockResponse()
+                .setResponseCode(200)
+                .setBody("""{"contactId": "c-1", "phone": "+15551234567", "doNotText": true}""")
+                .addHeader("Content-Type", "application/json")
+        }
+        
+        val entries = (0 until 10).map { DoNotTextEntry(contactId = "c-$it") }
+        
+        val result = client.contact.setDoNotTextBulk(
+            entries.stream(),
+            BulkDoNotTextOptions(concurrency = 2, requestsPerSecond = 1000.0, startIndex = 6)
+        )
+        
+        assertEquals(listOf(6L, 7L, 8L, 9L), result.results.map { it.index })
+        assertEquals(4, mockServer.requestCount)
+        assertEquals(10L, result.checkpoint)
+    }
+}
@@ -0,0 +1,148 @@
+package com.cloudcontactai.sdk.email
+
+import com.fasterxml.jackson.databind.JsonNode
+import com.fasterxml.jackson.databind.node.ObjectNode
+import com.fasterxml.jackson.module.kotlin.jacksonObjectMapper
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Assumptions.assumeTrue
+import org.junit.jupiter.api.Tag
+import org.junit.jupiter.api.Test
+import java.io.ByteArrayOutputStream
+import java.lang.management.ManagementFactory
+
+class EmailBodyTest {
+    
+    private val objectMapper = jacksonObjectMapper()
+    
+    private val template = """
+        <!DOCTYPE html>
+        <html>
+          <!-- header -->
+          <body style="margin: 0;   padding: 0">
+            <table width="100%">
+              <tr>
+                <td class="hero"   align="center">
+                  <span>Hello</span>   <b>"Jane"</b>
+                </td>
+              </tr>
+            </table>
+            <!--[if mso]><p>Outlook</p><![endif]-->
+            <pre>  keep
+              this  </pre>
+            <img alt="two  spaces" src="x.png" >
+          </body>
+        </html>
+    """.trimIndent()
+    
+    @Test
+    fun `should minify html without changing rendered text`() {
+        val minified = HtmlMinifier.minify(template)
+        
+        assertEquals(
+            "<!DOCTYPE html><html><body style=\"margin: 0;   padding: 0\"><table width=\"100%\"><tr>" +
+                "<td class=\"hero\" align=\"center\"><span>Hello</span> <b>\"Jane\"</b></td></tr></table>" +
+                "<!--[if mso]><p>Outlook</p><![endif]--><pre>  keep\n      this  </pre>" +
+                "<img alt=\"two  spaces\" src=\"x.png\"></body></html>",
+            minified
+        )
+    }
+    
+    @Test
+    fun `should write the same json as the campaign model`() {
+        val campaign = EmailCampaign(
+            subject = "Hi \"there\"",
+            title = "Hi",
+            message = "$template☃\t\u0001",
+            senderEmail = "news@example.com",
+            replyEmail = "reply@example.com",
+            senderName = "News",
+            accounts = listOf(EmailAccount("Jane", "Doe", "jane@example.com", customFields = mapOf("city" to "Zürich"))),
+            senders = listOf(EmailSender("news@example.com", "News"))
+        )
+        val body = EmailBodyEncoder(minify = false, maxEntries = 0).encode(campaign.message)
+        
+        val written = ByteArrayOutputStream()
+        objectMapper.factory.createGenerator(written).use { EncodedEmailCampaign(campaign, body).writeJson(it) }
+        
+        assertEquals(objectMapper.valueToTree<JsonNode>(campaign), objectMapper.readTree(written.toByteArray()))
+    }
+    
+    @Test
+    fun `should take only the message from the encoded body`() {
+        val campaign = EmailCampaign("Subject", "Title", "<p>Hi</p>", "a@example.com", "a@example.com", "A",
+            listOf(EmailAccount("Jane", "Doe", "jane@example.com")))
+        val body = EmailBodyEncoder(minify = false, maxEntries = 0).encode("<p>Other</p>")
+        
+        val written = ByteArrayOutputStream()
+        objectMapper.factory.createGenerator(written).use { EncodedEmailCampaign(campaign, body).writeJson(it) }
+        
+        val expected = objectMapper.valueToTree<ObjectNode>(campaign).put("message", "<p>Other</p>")
+        assertEquals(expected, objectMapper.readTree(written.toByteArray()))
+    }
+    
+    @Test
+    fun `should reuse encoded bodies`() {
+        val encoder = EmailBodyEncoder(minify = true, maxEntries = 2)
+        
+        val first = encoder.encode(template)
+        assertSame(first, encoder.encode(template))
+        encoder.encode("<p>a</p>")
+        encoder.encode("<p>b</p>")
+        assertNotSame(first, encoder.encode(template))
+        
+        val stats = encoder.stats()
+        assertEquals(1, stats.hits)
+        assertEquals(4, stats.misses)
+        assertTrue(first.json.size < template.length)
+    }
+    
+    @Test
+    fun `should write the same request with and without the body cache`() {
+        val campaign = EmailCampaign("Subject", "Subject", template, "a@example.com", "a@example.com", "A",
+            listOf(EmailAccount("Jane", "Doe", "jane@example.com")))
+        
+        fun write(encoder: EmailBodyEncoder): ByteArray {
+            val sink = ByteArrayOutputStream()
+            objectMapper.factory.createGenerator(sink).use { EncodedEmailCampaign(campaign, encoder.encode(template)).writeJson(it) }
+            return sink.toByteArray()
+        }
+        
+        val cached = EmailBodyEncoder(minify = false, maxEntries = 4)
+        val uncached = write(EmailBodyEncoder(minify = false, maxEntries = 0))
+        assertArrayEquals(uncached, write(cached))
+        assertArrayEquals(uncached, write(cached))
+        assertEquals(1, cached.stats().hits)
+        // Minification is independent of caching and only changes the request size
+        assertTrue(write(EmailBodyEncoder(minify = true, maxEntries = 4)).size < uncached.size)
+    }
+    
+    @Test
+    @Tag("benchmark")
+    fun `benchmark allocation and time per batch with and without the body cache`() {
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        assumeTrue(threads != null && threads.isThreadAllocatedMemorySupported, "per-thread allocation counter not available")
+        val html = (1..2000).joinToString("\n") { "    <tr><td style=\"font-family: Arial; color: #333\">Row $it &amp; \"quoted\"</td></tr>" }
+        val campaign = EmailCampaign("Subject", "Subject", html, "a@example.com", "a@example.com", "A",
+            listOf(EmailAccount("Jane", "Doe", "jane@example.com")))
+        val batches = 2000
+        
+        fun measure(name: String, encoder: EmailBodyEncoder) {
+            val sink = ByteArrayOutputStream(html.length * 2)
+            fun batch() {
+                sink.reset()
+                objectMapper.factory.createGenerator(sink).use { EncodedEmailCampaign(campaign, encoder.encode(html)).writeJson(it) }
+            }
+            repeat(batches) { batch() }
+            val allocatedBefore = threads!!.getThreadAllocatedBytes(Thread.currentThread().id)
+            val start = System.nanoTime()
+            repeat(batches) { batch() }
+            val elapsed = System.nanoTime() - start
+            val allocated = threads.getThreadAllocatedBytes(Thread.currentThread().id) - allocatedBefore
+            println("EmailBody $name: ${allocated / batches} B allocated, ${elapsed / batches / 1000} us, ${sink.size()} B request per batch")
+        }
+        
+        measure("uncached", EmailBodyEncoder(minify = false, maxEntries = 0))
+        measure("cached", EmailBodyEncoder(minify = false, maxEntries = 4))
+        measure("cached+minified", EmailBodyEncoder(minify = true, maxEntries = 4))
+    }
+}
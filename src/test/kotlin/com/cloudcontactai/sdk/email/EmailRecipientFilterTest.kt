@@ -0,0 +1,77 @@
+package com.cloudcontactai.sdk.email
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+
+class EmailRecipientFilterTest {
+    
+    private fun account(email: String) = EmailAccount("Jane", "Doe", email)
+    
+    @Test
+    fun `should validate address syntax`() {
+        listOf(
+            "john@example.com",
+            "john.doe+tag@mail.example.co.uk",
+            "o'brien@example.io",
+            "  padded@example.com ",
+            "josé@exämple.com"
+        ).forEach { assertTrue(EmailAddresses.isValid(it), it) }
+        
+        listOf(
+            "",
+            "plainaddress",
+            "@example.com",
+            "john@",
+            "john@@example.com",
+            "john@example",
+            "john..doe@example.com",
+            ".john@example.com",
+            "john.@example.com",
+            "john doe@example.com",
+            "john@-example.com",
+            "john@example..com",
+            "john@example.123",
+            "\"quoted\"@example.com",
+            "a".repeat(65) + "@example.com"
+        ).forEach { assertFalse(EmailAddresses.isValid(it), it) }
+    }
+    
+    @Test
+    fun `should drop invalid, suppressed and case-insensitive duplicates`() {
+        val accounts = listOf(
+            account("John@Example.com"),
+            account("not-an-email"),
+            account("john@example.COM"),
+            account("optout@example.com"),
+            account("jane@example.com"),
+            account(" JANE@example.com")
+        )
+        val filter = EmailRecipientFilter(EmailHygieneOptions(EmailSuppressionList.of(listOf("OptOut@example.com"))))
+        
+        val report = filter.filter(accounts)
+        
+        assertEquals(listOf("John@Example.com", "jane@example.com"), report.accepted.map { it.email })
+        assertEquals(1, report.invalid)
+        assertEquals(1, report.suppressed)
+        assertEquals(2, report.duplicates)
+        assertEquals(listOf(1, 2, 3, 5), report.dropped.map { it.index })
+    }
+    
+    @Test
+    fun `should produce the same result in parallel`() {
+        val accounts = (0 until 50000).map { i ->
+            when (i % 5) {
+                0 -> account("user${i % 7000}@example.com")
+                1 -> account("USER${i % 7000}@EXAMPLE.COM")
+                2 -> account("broken${i}@")
+                else -> account("other$i@example.org")
+            }
+        }
+        
+        val sequential = EmailRecipientFilter(EmailHygieneOptions(parallelThreshold = Int.MAX_VALUE)).filter(accounts)
+        val parallel = EmailRecipientFilter(EmailHygieneOptions(parallelThreshold = 1)).filter(accounts)
+        
+        assertEquals(sequential, parallel)
+        assertEquals(10000, parallel.invalid)
+    }
+}
@@ -2,12 +2,15 @@ package com.cloudcontactai.sdk.email
 
 import com.cloudcontactai.sdk.CCAIClient
 import com.cloudcontactai.sdk.common.CCAIConfig
+import okhttp3.mockwebserver.Dispatcher
 import okhttp3.mockwebserver.MockResponse
 import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
 import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import java.util.concurrent.CopyOnWriteArrayList
 
 class EmailServiceTest {
     
@@ -123,4 +126,109 @@ class EmailServiceTest {
         assertEquals("completed", status.status)
         assertEquals(10, status.sentEmails)
     }
+    
+    @Test
+    fun `should send only recipients that pass the hygiene filter`() {
+        mockServer.enqueue(MockResponse()
+            .setResponseCode(200)
+            .setBody("""{"id": "email-filtered", "status": "sent"}""")
+            .addHeader("Content-Type", "application/json"))
+        
+        val result = client.email.sendFiltered(
+            accounts = listOf(
+                EmailAccount("John", "Doe", "john@example.com"),
+                EmailAccount("John", "Doe", "JOHN@example.com"),
+                EmailAccount("Bad", "Address", "bad@")
+            ),
+            subject = "Hello",
+            htmlContent = "<p>Hello</p>"
+        )
+        
+        assertEquals("email-filtered", result.response?.id)
+        assertEquals(1, result.report.accepted.size)
+        val body = mockServer.takeRequest().body.readUtf8()
+        assertTrue(body.contains("john@example.com"))
+        assertFalse(body.contains("JOHN@example.com"))
+        assertFalse(body.contains("bad@"))
+    }
+    
+    @Test
+    fun `should send bulk in batches rotating senders`() {
+        val bodies = CopyOnWriteArrayList<String>()
+        mockServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val body = request.body.readUtf8()
+                bodies.add(body)
+                if (body.contains("user4@example.com")) return MockResponse().setResponseCode(500).setBody("boom")
+                return MockResponse()
+                    .setResponseCode(200)
+                    .setBody("""{"id": "email-${bodies.size}", "status": "sent"}""")
+                    .addHeader("Content-Type", "application/json")
+            }
+        }
+        val accounts = (1..5).map { EmailAccount("User", "$it", "user$it@example.com") }
+        val senders = listOf(EmailSender("news@example.com", "News"), EmailSender("offers@example.com", "Offers", "reply@example.com"))
+        
+        val result = client.email.sendBulk(accounts, "Hello", "<p>Hello</p>", EmailBulkOptions(senders, maxBatchSize = 2, parallelism = 2))
+        
+        assertEquals(3, bodies.size)
+        assertEquals(listOf(0, 2, 4), result.batches.map { it.fromIndex })
+        assertEquals(listOf("news@example.com", "offers@example.com", "news@example.com"), result.batches.map { it.sender.email })
+        assertEquals(listOf(true, false, true), result.batches.map { it.success })
+        assertEquals(3, result.sentRecipients)
+        assertEquals(2, result.failedRecipients)
+        assertEquals(mapOf("news@example.com" to 3), result.recipientsBySender)
+        assertEquals(2, result.responses.size)
+        
+        val offers = bodies.single { it.contains("user3@example.com") }
+        assertTrue(offers.contains("\"senderEmail\":\"offers@example.com\""))
+        assertTrue(offers.contains("\"replyEmail\":\"reply@example.com\""))
+        assertTrue(offers.contains("\"senders\":[{\"email\":\"offers@example.com\""))
+        assertFalse(offers.contains("user1@example.com"))
+    }
+    
+    @Test
+    fun `should close bulk batches at the byte budget`() {
+        repeat(3) {
+            mockServer.enqueue(MockResponse()
+                .setResponseCode(200)
+                .setBody("""{"id": "email-$it", "status": "sent"}""")
+                .addHeader("Content-Type", "application/json"))
+        }
+        val accounts = (1..3).map { EmailAccount("User", "$it", "user$it@example.com", customFields = mapOf("bio" to "x".repeat(400))) }
+        
+        val result = client.email.sendBulk(accounts, "Hello", "<p>Hello</p>", EmailBulkOptions(maxBatchBytes = 1100))
+        
+        assertEquals(listOf(2, 1), result.batches.map { it.recipientCount })
+        assertEquals(mapOf("noreply@cloudcontactai.com" to 3), result.recipientsBySender)
+    }
+    
+    @Test
+    fun `should reuse the minified body across sends`() {
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key",
+            emailBodyCacheMaxEntries = 4,
+            minifyEmailHtml = true
+        )
+        val emailBaseUrlField = CCAIConfig::class.java.getDeclaredField("emailBaseUrl")
+        emailBaseUrlField.isAccessible = true
+        emailBaseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val cachingClient = CCAIClient(config)
+        repeat(2) {
+            mockServer.enqueue(MockResponse()
+                .setResponseCode(200)
+                .setBody("""{"id": "email-$it", "status": "sent"}""")
+                .addHeader("Content-Type", "application/json"))
+        }
+        val html = "<div>\n  <!-- note -->\n  <p>Hello   there</p>\n</div>"
+        
+        repeat(2) { cachingClient.email.send(listOf(EmailAccount("John", "Doe", "john@example.com")), "Hello", html) }
+        
+        repeat(2) { assertTrue(mockServer.takeRequest().body.readUtf8().contains("\"message\":\"<div><p>Hello there</p></div>\"")) }
+        val stats = cachingClient.email.emailBodyStats()
+        assertEquals(1, stats.hits)
+        assertEquals(1, stats.misses)
+        cachingClient.close()
+    }
 }
@@ -0,0 +1,87 @@
+package com.cloudcontactai.sdk.mms
+
+import com.cloudcontactai.sdk.CCAIClient
+import com.cloudcontactai.sdk.common.CCAIConfig
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.security.MessageDigest
+import java.util.concurrent.CopyOnWriteArrayList
+
+class BulkMediaUploadTest {
+    
+    private lateinit var mockServer: MockWebServer
+    private lateinit var client: CCAIClient
+    private val uploads = CopyOnWriteArrayList<String>()
+    private val stored = "GIF89a-already-stored".toByteArray()
+    
+    private fun md5(bytes: ByteArray) = MessageDigest.getInstance("MD5").digest(bytes).joinToString("") { "%02x".format(it) }
+    
+    @BeforeEach
+    fun setup() {
+        mockServer = MockWebServer()
+        mockServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val path = request.path!!
+                return when {
+                    path.contains("storedUrl") && path.contains(md5(stored)) ->
+                        MockResponse().setBody("""{"storedUrl": "https://s3.amazonaws.com/bucket/stored.gif"}""")
+                    path.contains("storedUrl") -> MockResponse().setBody("""{"storedUrl": ""}""")
+                    path.startsWith("/files/upload/url") ->
+                        MockResponse().setBody("""{"signedS3Url": "${mockServer.url("/s3/upload")}"}""")
+                    else -> {
+                        uploads.add(md5(request.body.readByteArray()))
+                        MockResponse()
+                    }
+                }
+            }
+        }
+        mockServer.start()
+        
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key"
+        )
+        
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val filesBaseUrlField = CCAIConfig::class.java.getDeclaredField("filesBaseUrl")
+        filesBaseUrlField.isAccessible = true
+        filesBaseUrlField.set(config, mockServer.url("/files").toString())
+        
+        client = CCAIClient(config)
+    }
+    
+    @AfterEach
+    fun tearDown() {
+        mockServer.shutdown()
+        client.close()
+    }
+    
+    @Test
+    fun `should upload each distinct image once within the bandwidth limit`() {
+        val first = "GIF89a".toByteArray() + ByteArray(64 * 1024) { 1 }
+        val second = "GIF89a".toByteArray() + ByteArray(64 * 1024) { 2 }
+        val media = listOf(first, second, first, stored, second).map { MediaSource.of(it) }
+        
+        val result = client.mms.uploadBulk(media, BulkMediaUploadOptions(parallelism = 4, maxBytesPerSecond = 64L * 1024))
+        
+        assertEquals(2, result.uploaded)
+        assertEquals(1, result.alreadyStored)
+        assertEquals(2, result.duplicates)
+        assertTrue(result.failures.isEmpty())
+        assertEquals(setOf(md5(first), md5(second)), uploads.toSet())
+        assertEquals(2, uploads.size)
+        assertEquals("test-client/campaign/${md5(first)}.gif", result.fileKeys[md5(first)])
+        assertEquals(result.mediaKeys[0], result.mediaKeys[2])
+        assertEquals(3, result.fileKeys.size)
+        // 128 KiB at 64 KiB/s with a 64 KiB burst needs about a second
+        assertTrue(result.elapsedMs >= 800, "elapsed ${result.elapsedMs} ms")
+    }
+}
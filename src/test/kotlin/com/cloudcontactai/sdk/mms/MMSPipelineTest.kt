@@ -0,0 +1,158 @@
+package com.cloudcontactai.sdk.mms
+
+import com.cloudcontactai.sdk.CCAIClient
+import com.cloudcontactai.sdk.common.CCAIConfig
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.awt.image.BufferedImage
+import java.io.ByteArrayOutputStream
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import javax.imageio.ImageIO
+
+class MMSPipelineTest {
+    
+    private lateinit var mockServer: MockWebServer
+    private lateinit var client: CCAIClient
+    private val requests = CopyOnWriteArrayList<String>()
+    
+    @BeforeEach
+    fun setup() {
+        mockServer = MockWebServer()
+        mockServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val path = request.path!!
+                requests.add("${request.method} $path")
+                return when {
+                    path.contains("storedUrl") -> MockResponse().setBody("""{"storedUrl": ""}""")
+                    path.startsWith("/files/upload/url") ->
+                        MockResponse().setBody("""{"signedS3Url": "${mockServer.url("/s3/upload")}"}""")
+                    path.startsWith("/s3") -> MockResponse().setHeadersDelay(50, TimeUnit.MILLISECONDS)
+                    else -> MockResponse().setBody("""{"campaignId": "mms-campaign", "success": true}""")
+                }
+            }
+        }
+        mockServer.start()
+        
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key"
+        )
+        
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val filesBaseUrlField = CCAIConfig::class.java.getDeclaredField("filesBaseUrl")
+        filesBaseUrlField.isAccessible = true
+        filesBaseUrlField.set(config, mockServer.url("/files").toString())
+        
+        client = CCAIClient(config)
+    }
+    
+    @AfterEach
+    fun tearDown() {
+        mockServer.shutdown()
+        client.close()
+    }
+    
+    @Test
+    fun `should send campaigns through all stages and share in-flight uploads`() {
+        val accounts = listOf(Account("John", "Doe", "+15551234567"))
+        val images = (1..3).map { "GIF89a-creative-$it".toByteArray() }
+        
+        val pipeline = MMSPipeline(client.mms, MMSPipelineOptions(uploadThreads = 2))
+        val futures = (0 until 12).map { i ->
+            pipeline.submit(accounts, "Hello", "Campaign $i", MediaSource.of(images[i % 3]))
+        }
+        futures.forEach { assertEquals("mms-campaign", it.get(10, TimeUnit.SECONDS).campaignId) }
+        pipeline.close()
+        
+        assertEquals(12, requests.count { it.startsWith("POST") && it.contains("/campaigns/direct") })
+        val uploads = requests.count { it.startsWith("PUT /s3") }
+        assertTrue(uploads in 3..12, "uploads: $uploads")
+        assertEquals(uploads, requests.count { it.startsWith("POST /files/upload/url") })
+        
+        val stats = pipeline.stats().associateBy { it.stage }
+        assertEquals(12, stats.getValue(MMSPipelineStage.HASH).completed)
+        assertEquals(12, stats.getValue(MMSPipelineStage.SEND).completed)
+        assertEquals(uploads.toLong(), stats.getValue(MMSPipelineStage.UPLOAD).completed)
+        assertTrue(stats.getValue(MMSPipelineStage.UPLOAD).averageLatencyMs >= 50)
+        assertTrue(stats.values.all { it.queued == 0 && it.active == 0 && it.failed == 0L })
+    }
+    
+    @Test
+    fun `should finish submitted campaigns before close returns`() {
+        val accounts = listOf(Account("John", "Doe", "+15551234567"))
+        
+        val pipeline = MMSPipeline(client.mms)
+        val futures = (0 until 6).map { i ->
+            pipeline.submit(accounts, "Hello", "Campaign $i", MediaSource.of("GIF89a-close-$i".toByteArray()))
+        }
+        pipeline.close()
+        
+        assertTrue(futures.all { it.isDone && !it.isCompletedExceptionally })
+        assertThrows(IllegalStateException::class.java) {
+            pipeline.submit(accounts, "Hello", "Late", MediaSource.of("GIF89a-late".toByteArray()))
+        }
+    }
+    
+    @Test
+    fun `should optimize each creative once across sends and the pipeline`() {
+        val image = ByteArrayOutputStream().also { bytes ->
+            val pixels = BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB)
+            for (y in 0 until 600) for (x in 0 until 800) pixels.setRGB(x, y, (x * 31 + y * 17) and 0xFFFFFF)
+            ImageIO.write(pixels, "png", bytes)
+        }.toByteArray()
+        val uploaded = AtomicBoolean()
+        mockServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val path = request.path!!
+                requests.add("${request.method} $path")
+                return when {
+                    path.contains("storedUrl") ->
+                        MockResponse().setBody("""{"storedUrl": "${if (uploaded.get()) "https://cdn/stored" else ""}"}""")
+                    path.startsWith("/files/upload/url") ->
+                        MockResponse().setBody("""{"signedS3Url": "${mockServer.url("/s3/upload")}"}""")
+                    path.startsWith("/s3") -> MockResponse().also { uploaded.set(true) }
+                    else -> MockResponse().setBody("""{"campaignId": "mms-campaign", "success": true}""")
+                }
+            }
+        }
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key",
+            mediaOptimizer = MediaOptimizerOptions(maxDimension = 200)
+        )
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val filesBaseUrlField = CCAIConfig::class.java.getDeclaredField("filesBaseUrl")
+        filesBaseUrlField.isAccessible = true
+        filesBaseUrlField.set(config, mockServer.url("/files").toString())
+        val optimizingClient = CCAIClient(config)
+        val accounts = listOf(Account("John", "Doe", "+15551234567"))
+        
+        try {
+            optimizingClient.mms.sendWithImage(accounts, "Hello", "Bytes", image)
+            optimizingClient.mms.sendWithMedia(accounts, "Hello", "Media", MediaSource.of(image))
+            MMSPipeline(optimizingClient.mms).use { pipeline ->
+                pipeline.submit(accounts, "Hello", "Pipeline", MediaSource.of(image)).get(10, TimeUnit.SECONDS)
+            }
+            
+            val stats = optimizingClient.mms.mediaOptimizerStats()!!
+            assertEquals(1, stats.optimized)
+            assertEquals(0, stats.unchanged)
+            assertEquals(1, requests.count { it.startsWith("PUT /s3") })
+            assertEquals(3, requests.count { it.contains("/campaigns/direct") })
+        } finally {
+            optimizingClient.close()
+        }
+    }
+}
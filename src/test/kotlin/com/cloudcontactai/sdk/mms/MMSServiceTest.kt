@@ -9,6 +9,9 @@ import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Disabled
 import org.junit.jupiter.api.Test
+import java.io.File
+import java.io.RandomAccessFile
+import java.lang.management.ManagementFactory
 
 class MMSServiceTest {
     
@@ -156,4 +159,103 @@ class MMSServiceTest {
         
         assertEquals("https://s3.amazonaws.com/bucket/test-client/campaign/image.jpg", response.storedUrl)
     }
+    
+    @Test
+    fun `should stream uploads in constant memory and report progress`() {
+        val size = 32L * 1024 * 1024
+        val image = File.createTempFile("ccai-upload", ".jpg")
+        try {
+            RandomAccessFile(image, "rw").use { it.setLength(size) }
+            mockServer.bodyLimit = 0
+            mockServer.enqueue(MockResponse().setResponseCode(200))
+            val progress = mutableListOf<Long>()
+            
+            val threads = ManagementFactory.getThreadMXBean() as com.sun.management.ThreadMXBean
+            val threadId = Thread.currentThread().id
+            val before = threads.getThreadAllocatedBytes(threadId)
+            client.mms.uploadImageToSignedUrl(mockServer.url("/upload").toString(), image, "image/jpeg") { written, total ->
+                assertEquals(size, total)
+                progress.add(written)
+            }
+            val allocated = threads.getThreadAllocatedBytes(threadId) - before
+            
+            val request = mockServer.takeRequest()
+            assertEquals("PUT", request.method)
+            assertEquals(size, request.bodySize)
+            assertEquals(size, progress.last())
+            assertTrue(allocated < size / 4, "allocated $allocated bytes uploading $size")
+        } finally {
+            image.delete()
+        }
+    }
+    
+    @Test
+    fun `should skip hashing and stored URL check for cached media`() {
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key",
+            mediaCacheMaxEntries = 100
+        )
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val cachingClient = CCAIClient(config)
+        val image = File.createTempFile("ccai-creative", ".png")
+        try {
+            image.writeBytes(byteArrayOf(1, 2, 3, 4))
+            mockServer.enqueue(MockResponse()
+                .setResponseCode(200)
+                .setBody("""{"storedUrl": "https://s3.amazonaws.com/bucket/creative.png"}""")
+                .addHeader("Content-Type", "application/json"))
+            repeat(2) {
+                mockServer.enqueue(MockResponse()
+                    .setResponseCode(200)
+                    .setBody("""{"campaignId": "mms-$it", "success": true}""")
+                    .addHeader("Content-Type", "application/json"))
+            }
+            val accounts = listOf(Account("John", "Doe", "+15551234567"))
+            
+            cachingClient.mms.sendWithImage(accounts, "Hello", "Creative", image)
+            cachingClient.mms.sendWithImage(accounts, "Hello", "Creative", image)
+            
+            assertTrue(mockServer.takeRequest().path!!.contains("storedUrl"))
+            assertEquals("POST", mockServer.takeRequest().method)
+            assertEquals("POST", mockServer.takeRequest().method)
+            assertEquals(3, mockServer.requestCount)
+            assertEquals(1, cachingClient.mms.mediaCacheStats()!!.hits)
+        } finally {
+            cachingClient.close()
+            image.delete()
+        }
+    }
+    
+    @Test
+    fun `should upload in-memory images without a file`() {
+        val filesBaseUrlField = CCAIConfig::class.java.getDeclaredField("filesBaseUrl")
+        filesBaseUrlField.isAccessible = true
+        val config = CCAIConfig(clientId = "test-client", apiKey = "test-key")
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        filesBaseUrlField.set(config, mockServer.url("/files").toString())
+        val memoryClient = CCAIClient(config)
+        val gif = "GIF89a-image-bytes".toByteArray()
+        
+        mockServer.enqueue(MockResponse().setResponseCode(200).setBody("""{"storedUrl": ""}"""))
+        mockServer.enqueue(MockResponse().setResponseCode(200).setBody("""{"signedS3Url": "${mockServer.url("/s3/upload")}"}"""))
+        mockServer.enqueue(MockResponse().setResponseCode(200))
+        mockServer.enqueue(MockResponse().setResponseCode(200).setBody("""{"campaignId": "mms-memory", "success": true}"""))
+        
+        val response = memoryClient.mms.sendWithImage(listOf(Account("John", "Doe", "+15551234567")), "Hello", "Memory", gif)
+        memoryClient.close()
+        
+        assertEquals("mms-memory", response.campaignId)
+        mockServer.takeRequest()
+        assertTrue(mockServer.takeRequest().body.readUtf8().contains("image/gif"))
+        val upload = mockServer.takeRequest()
+        assertEquals("PUT", upload.method)
+        assertEquals("image/gif", upload.getHeader("Content-Type"))
+        assertArrayEquals(gif, upload.body.readByteArray())
+        assertTrue(mockServer.takeRequest().body.readUtf8().contains(".gif"))
+    }
 }
@@ -0,0 +1,114 @@
+package com.cloudcontactai.sdk.mms
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+
+class MediaKeyCacheTest {
+    
+    @TempDir
+    lateinit var directory: File
+    
+    private fun id(n: Int) = MediaFileId("/media/image-$n.jpg", 1000L + n, 1700000000000L + n)
+    
+    private fun key(n: Int) = MediaKey("md5-$n", "client/campaign/md5-$n.jpg")
+    
+    @Test
+    fun `should evict least recently used entries`() {
+        val cache = MediaKeyCache(maxEntries = 2)
+        cache.put(id(1), key(1))
+        cache.put(id(2), key(2))
+        cache.get(id(1))
+        cache.put(id(3), key(3))
+        
+        assertEquals(key(1), cache.get(id(1)))
+        assertNull(cache.get(id(2)))
+        assertEquals(1, cache.stats().evictions)
+    }
+    
+    @Test
+    fun `should reload persisted entries after restart`() {
+        val file = File(directory, "media.cache")
+        MediaKeyCache(100, file).use { cache ->
+            (1..10).forEach { cache.put(id(it), key(it)) }
+            cache.invalidate(id(4))
+        }
+        
+        MediaKeyCache(100, file).use { cache ->
+            assertEquals(key(7), cache.get(id(7)))
+            assertNull(cache.get(id(4)))
+            assertEquals(9, cache.stats().size)
+        }
+    }
+    
+    @Test
+    fun `should compact the journal when it fills up`() {
+        val file = File(directory, "media.cache")
+        MediaKeyCache(20, file, 4096).use { cache ->
+            (1..500).forEach { cache.put(id(it), key(it)) }
+        }
+        
+        MediaKeyCache(20, file, 4096).use { cache ->
+            assertEquals(20, cache.stats().size)
+            assertEquals(key(500), cache.get(id(500)))
+            assertNull(cache.get(id(1)))
+        }
+        assertEquals(listOf("media.cache"), directory.list()!!.toList())
+    }
+    
+    @Test
+    fun `should persist the newest entries when the live set outgrows the journal`() {
+        val file = File(directory, "media.cache")
+        MediaKeyCache(1000, file, 4096).use { cache ->
+            (1..1000).forEach { cache.put(id(it), key(it)) }
+            assertEquals(1000, cache.stats().size)
+            // Each compaction leaves half the journal free, so it runs once per few dozen puts
+            assertTrue(cache.compactions() in 1..100, "compactions: ${cache.compactions()}")
+        }
+        
+        MediaKeyCache(1000, file, 4096).use { cache ->
+            assertTrue(cache.stats().size in 20..60, "reloaded: ${cache.stats().size}")
+            (981..1000).forEach { assertEquals(key(it), cache.get(id(it))) }
+            assertNull(cache.get(id(1)))
+            assertNull(cache.get(id(500)))
+        }
+    }
+    
+    @Test
+    fun `should append a tombstone instead of compacting on invalidate`() {
+        val file = File(directory, "media.cache")
+        MediaKeyCache(100, file).use { cache ->
+            (1..10).forEach { cache.put(id(it), key(it)) }
+            (1..5).forEach { cache.invalidate(id(it)) }
+            cache.put(id(3), key(3))
+            assertEquals(0, cache.compactions())
+        }
+        
+        MediaKeyCache(100, file).use { cache ->
+            assertEquals(6, cache.stats().size)
+            assertEquals(key(3), cache.get(id(3)))
+            assertNull(cache.get(id(2)))
+        }
+    }
+    
+    @Test
+    fun `should ignore a compaction interrupted before it replaced the journal`() {
+        val file = File(directory, "media.cache")
+        MediaKeyCache(100, file).use { cache ->
+            (1..5).forEach { cache.put(id(it), key(it)) }
+        }
+        File(directory, "media.cache.tmp").writeBytes(ByteArray(100) { 7 })
+        
+        MediaKeyCache(100, file).use { cache ->
+            assertEquals(5, cache.stats().size)
+            cache.invalidate(id(1))
+        }
+        
+        MediaKeyCache(100, file).use { cache ->
+            assertEquals(4, cache.stats().size)
+            assertEquals(key(5), cache.get(id(5)))
+        }
+        assertEquals(listOf("media.cache"), directory.list()!!.toList())
+    }
+}
@@ -0,0 +1,134 @@
+package com.cloudcontactai.sdk.mms
+
+import com.cloudcontactai.sdk.common.CCAIException
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import java.awt.image.BufferedImage
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+import java.util.Random
+import java.util.zip.CRC32
+import javax.imageio.ImageIO
+
+class MediaOptimizerTest {
+    
+    private fun noisyImage(width: Int, height: Int, type: Int): BufferedImage {
+        val random = Random(42)
+        val image = BufferedImage(width, height, type)
+        for (y in 0 until height) {
+            for (x in 0 until width) {
+                val alpha = if (type == BufferedImage.TYPE_INT_ARGB) (x * 255 / width) shl 24 else 0
+                image.setRGB(x, y, alpha or (random.nextInt(0x1000000) and 0x3F3F3F) or ((x + y) and 0xFF))
+            }
+        }
+        return image
+    }
+    
+    private fun encode(image: BufferedImage, format: String): ByteArray {
+        val bytes = ByteArrayOutputStream()
+        ImageIO.write(image, format, bytes)
+        return bytes.toByteArray()
+    }
+    
+    @Test
+    fun `should shrink large opaque images to the byte and pixel budget`() {
+        val original = encode(noisyImage(2400, 1600, BufferedImage.TYPE_INT_RGB), "png")
+        val optimizer = MediaOptimizer(MediaOptimizerOptions(maxBytes = 300L * 1024))
+        
+        val optimized = optimizer.optimize(MediaSource.of(original))
+        
+        assertEquals("image/jpeg", optimized.contentType)
+        assertTrue(optimized.length <= 300L * 1024, "optimized to ${optimized.length} bytes")
+        val decoded = ImageIO.read(optimized.openStream())
+        assertTrue(maxOf(decoded.width, decoded.height) <= 1600)
+        val stats = optimizer.stats()
+        assertEquals(1, stats.optimized)
+        assertEquals(original.size - optimized.length, stats.bytesSaved)
+    }
+    
+    @Test
+    fun `should subsample large images while decoding them`() {
+        val original = encode(noisyImage(2400, 1600, BufferedImage.TYPE_INT_RGB), "png")
+        val optimizer = MediaOptimizer(MediaOptimizerOptions(maxDimension = 200))
+        
+        val decoded = ImageIO.read(optimizer.optimize(MediaSource.of(original)).openStream())
+        
+        assertEquals(200, decoded.width)
+        assertEquals(133, decoded.height)
+    }
+    
+    @Test
+    fun `should reject images above the source pixel limit before decoding them`() {
+        // PNG signature and a header claiming 20000x20000 pixels, with no image data behind it
+        val header = ByteBuffer.allocate(13).putInt(20000).putInt(20000).put(8).put(2).put(0).put(0).put(0).array()
+        val crc = CRC32().apply { update("IHDR".toByteArray()); update(header) }
+        val png = ByteBuffer.allocate(33)
+            .put(byteArrayOf(0x89.toByte(), 'P'.code.toByte(), 'N'.code.toByte(), 'G'.code.toByte(), 13, 10, 26, 10))
+            .putInt(13).put("IHDR".toByteArray()).put(header).putInt(crc.value.toInt())
+            .array()
+        
+        val error = assertThrows(CCAIException::class.java) {
+            MediaOptimizer().optimize(MediaSource.of(png))
+        }
+        assertTrue(error.message!!.contains("20000x20000"))
+    }
+    
+    @Test
+    fun `should keep images already within budget`() {
+        val small = MediaSource.of(encode(noisyImage(200, 100, BufferedImage.TYPE_INT_RGB), "png"))
+        val gif = MediaSource.of("GIF89a-animated".toByteArray())
+        val optimizer = MediaOptimizer()
+        
+        assertSame(small, optimizer.optimize(small))
+        assertSame(gif, optimizer.optimize(gif))
+        assertEquals(1, optimizer.stats().unchanged)
+    }
+    
+    @Test
+    fun `should keep transparency as png`() {
+        val original = encode(noisyImage(2000, 1000, BufferedImage.TYPE_INT_ARGB), "png")
+        
+        val optimized = MediaOptimizer(MediaOptimizerOptions(maxDimension = 800)).optimize(MediaSource.of(original))
+        
+        assertEquals("image/png", optimized.contentType)
+        val decoded = ImageIO.read(optimized.openStream())
+        assertTrue(decoded.width <= 800)
+        assertTrue(optimized.length <= 600L * 1024)
+        assertTrue(decoded.colorModel.hasAlpha())
+    }
+    
+    /**
+     * JPEG of [image] with an EXIF segment holding only [orientation].
+     */
+    private fun jpegWithOrientation(image: BufferedImage, orientation: Int): ByteArray {
+        val jpeg = encode(image, "jpeg")
+        val tiff = byteArrayOf(
+            'M'.code.toByte(), 'M'.code.toByte(), 0, 42, 0, 0, 0, 8,
+            0, 1,
+            0x01, 0x12, 0, 3, 0, 0, 0, 1, 0, orientation.toByte(), 0, 0,
+            0, 0, 0, 0
+        )
+        val segment = "Exif\u0000\u0000".toByteArray(Charsets.ISO_8859_1) + tiff
+        val length = segment.size + 2
+        val app1 = byteArrayOf(0xFF.toByte(), 0xE1.toByte(), (length shr 8).toByte(), length.toByte()) + segment
+        return jpeg.copyOfRange(0, 2) + app1 + jpeg.copyOfRange(2, jpeg.size)
+    }
+    
+    @Test
+    fun `should turn images upright according to their EXIF orientation`() {
+        // Red on the left, blue on the right; orientation 6 displays it rotated clockwise
+        val image = BufferedImage(800, 400, BufferedImage.TYPE_INT_RGB)
+        for (y in 0 until 400) for (x in 0 until 800) image.setRGB(x, y, if (x < 400) 0xFF0000 else 0x0000FF)
+        val original = jpegWithOrientation(image, 6)
+        
+        val optimized = MediaOptimizer(MediaOptimizerOptions(maxDimension = 200)).optimize(MediaSource.of(original))
+        
+        val decoded = ImageIO.read(optimized.openStream())
+        assertEquals(100, decoded.width)
+        assertEquals(200, decoded.height)
+        val top = decoded.getRGB(50, 20)
+        val bottom = decoded.getRGB(50, 180)
+        assertTrue((top shr 16 and 0xFF) > 200 && (top and 0xFF) < 60, "top is %06x".format(top and 0xFFFFFF))
+        assertTrue((bottom and 0xFF) > 200 && (bottom shr 16 and 0xFF) < 60, "bottom is %06x".format(bottom and 0xFFFFFF))
+    }
+}
@@ -0,0 +1,52 @@
+package com.cloudcontactai.sdk.mms
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.io.ByteArrayInputStream
+import java.io.EOFException
+import java.nio.ByteBuffer
+import java.security.MessageDigest
+
+class MediaSourceTest {
+    
+    private val png = byteArrayOf(0x89.toByte(), 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 13, 1, 2, 3)
+    
+    private fun md5(bytes: ByteArray) = MessageDigest.getInstance("MD5").digest(bytes).joinToString("") { "%02x".format(it) }
+    
+    @Test
+    fun `should detect content type from magic bytes`() {
+        assertEquals("image/jpeg", MediaSource.detectContentType(byteArrayOf(0xFF.toByte(), 0xD8.toByte(), 0xFF.toByte(), 0xE0.toByte())))
+        assertEquals("image/png", MediaSource.detectContentType(png))
+        assertEquals("image/gif", MediaSource.detectContentType("GIF89a".toByteArray()))
+        assertEquals("image/webp", MediaSource.detectContentType("RIFF\u0000\u0000\u0000\u0000WEBPVP8 ".toByteArray()))
+        assertNull(MediaSource.detectContentType(byteArrayOf(1, 2, 3)))
+    }
+    
+    @Test
+    fun `should hash in-memory sources without moving the caller's buffer`() {
+        val buffer = ByteBuffer.allocateDirect(png.size + 4)
+        buffer.put(byteArrayOf(9, 9)).put(png).put(byteArrayOf(9, 9))
+        buffer.position(2).limit(2 + png.size)
+        
+        val source = MediaSource.of(buffer)
+        
+        assertEquals(md5(png), source.md5())
+        assertEquals(png.size.toLong(), source.length)
+        assertEquals("image/png", source.contentType)
+        assertEquals("png", source.extension)
+        assertEquals(2, buffer.position())
+        assertEquals(md5(png), MediaSource.of(png).md5())
+    }
+    
+    @Test
+    fun `should read streams of known length exactly once`() {
+        val stream = ByteArrayInputStream(png + byteArrayOf(7, 7))
+        
+        val source = MediaSource.of(stream, png.size.toLong())
+        
+        assertEquals(md5(png), source.md5())
+        assertEquals(2, stream.available())
+        assertThrows<EOFException> { MediaSource.of(ByteArrayInputStream(png), 100) }
+    }
+}
@@ -0,0 +1,147 @@
+package com.cloudcontactai.sdk.mms
+
+import com.cloudcontactai.sdk.CCAIClient
+import com.cloudcontactai.sdk.common.CCAIConfig
+import com.cloudcontactai.sdk.common.CCAIException
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import java.io.ByteArrayOutputStream
+import java.io.File
+import java.security.MessageDigest
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.atomic.AtomicInteger
+
+class ResumableUploaderTest {
+    
+    @TempDir
+    lateinit var directory: File
+    
+    private lateinit var mockServer: MockWebServer
+    private lateinit var client: CCAIClient
+    private val parts = ConcurrentHashMap<Int, ByteArray>()
+    private val partRequests = CopyOnWriteArrayList<Int>()
+    private val initCalls = AtomicInteger()
+    private val flakyAttempts = AtomicInteger()
+    private var assembled: ByteArray? = null
+    @Volatile private var brokenPart = 0
+    @Volatile private var liveUpload = ""
+    
+    /**
+     * Minimal multipart stand-in for the files service.
+     */
+    @BeforeEach
+    fun setup() {
+        mockServer = MockWebServer()
+        mockServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val path = request.path!!
+                return when {
+                    path.contains("storedUrl") -> MockResponse().setBody("""{"storedUrl": ""}""")
+                    path == "/files/upload/multipart" -> {
+                        liveUpload = "upload-${initCalls.incrementAndGet()}"
+                        parts.clear()
+                        MockResponse().setBody("""{"uploadId": "$liveUpload"}""")
+                    }
+                    path.split('/')[4] != liveUpload -> MockResponse().setResponseCode(404)
+                    path.contains("/parts/") -> {
+                        val partNumber = path.substringAfterLast('/').toInt()
+                        partRequests.add(partNumber)
+                        when {
+                            partNumber == brokenPart -> MockResponse().setResponseCode(503)
+                            partNumber == 2 && flakyAttempts.getAndIncrement() == 0 -> MockResponse().setResponseCode(500)
+                            else -> {
+                                parts[partNumber] = request.body.readByteArray()
+                                MockResponse().addHeader("ETag", "\"etag-$partNumber\"")
+                            }
+                        }
+                    }
+                    path.endsWith("/complete") -> {
+                        val bytes = ByteArrayOutputStream()
+                        parts.toSortedMap().values.forEach { bytes.write(it) }
+                        assembled = bytes.toByteArray()
+                        MockResponse().setBody("{}")
+                    }
+                    else -> MockResponse().setResponseCode(404)
+                }
+            }
+        }
+        mockServer.start()
+        
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key"
+        )
+        
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val filesBaseUrlField = CCAIConfig::class.java.getDeclaredField("filesBaseUrl")
+        filesBaseUrlField.isAccessible = true
+        filesBaseUrlField.set(config, mockServer.url("/files").toString())
+        
+        client = CCAIClient(config)
+    }
+    
+    @AfterEach
+    fun tearDown() {
+        mockServer.shutdown()
+        client.close()
+    }
+    
+    @Test
+    fun `should retry failed parts and resume after an interrupted upload`() {
+        val content = ByteArray(4500) { (it % 251).toByte() }
+        val video = File(directory, "clip.gif").apply { writeBytes(content) }
+        val state = File(directory, "state")
+        val options = ResumableUploadOptions(state, partSize = 1000, parallelism = 3, maxRetries = 1, retryBackoffMs = 1)
+        
+        // Parts are awaited in order, so failing the last one leaves all others completed
+        brokenPart = 5
+        assertThrows<CCAIException> { client.mms.uploadResumable(video, options) }
+        assertEquals(1, state.listFiles()!!.count { it.name.endsWith(".json") })
+        assertFalse(parts.containsKey(5))
+        
+        brokenPart = 0
+        partRequests.clear()
+        val progress = CopyOnWriteArrayList<Long>()
+        val fileKey = client.mms.uploadResumable(video, options) { written, _ -> progress.add(written) }
+        
+        val md5 = MessageDigest.getInstance("MD5").digest(content).joinToString("") { "%02x".format(it) }
+        assertEquals("test-client/campaign/$md5.gif", fileKey)
+        assertEquals(1, initCalls.get())
+        assertEquals(listOf(5), partRequests)
+        assertArrayEquals(content, assembled)
+        assertEquals(4500L, progress.maxOrNull())
+        assertTrue(state.listFiles()!!.none { it.name.endsWith(".json") })
+    }
+    
+    @Test
+    fun `should start over when the service no longer knows the saved upload`() {
+        val content = ByteArray(3000) { (it % 127).toByte() }
+        val video = File(directory, "clip.gif").apply { writeBytes(content) }
+        val state = File(directory, "state")
+        val options = ResumableUploadOptions(state, partSize = 1000, parallelism = 1, maxRetries = 0)
+        
+        brokenPart = 3
+        assertThrows<CCAIException> { client.mms.uploadResumable(video, options) }
+        brokenPart = 0
+        liveUpload = "expired"
+        partRequests.clear()
+        
+        client.mms.uploadResumable(video, options)
+        
+        assertEquals(2, initCalls.get())
+        assertEquals(listOf(1, 2, 3), partRequests)
+        assertArrayEquals(content, assembled)
+        assertTrue(state.listFiles()!!.none { it.name.endsWith(".json") })
+    }
+}
@@ -0,0 +1,132 @@
+package com.cloudcontactai.sdk.outbox
+
+import com.cloudcontactai.sdk.CCAIClient
+import com.cloudcontactai.sdk.common.CCAIConfig
+import com.cloudcontactai.sdk.sms.Account
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import java.io.File
+import java.io.RandomAccessFile
+import kotlin.concurrent.thread
+
+class SendOutboxTest {
+    
+    @TempDir
+    lateinit var directory: File
+    
+    @Test
+    fun `should return unacknowledged entries after reopening`() {
+        SendOutbox(directory).use { outbox ->
+            outbox.append("token-1", "sms", "one".toByteArray())
+            outbox.append("token-2", "sms", "two".toByteArray())
+            outbox.append("token-3", "sms", "three".toByteArray())
+            outbox.acknowledge("token-2")
+        }
+        
+        SendOutbox(directory).use { outbox ->
+            val pending = outbox.pending()
+            assertEquals(listOf("token-1", "token-3"), pending.map { it.token })
+            assertEquals("three", String(pending[1].payload))
+            
+            outbox.acknowledge("token-1")
+            outbox.append("token-4", "sms", "four".toByteArray())
+        }
+        
+        SendOutbox(directory).use { outbox ->
+            assertEquals(listOf("token-3", "token-4"), outbox.pending().map { it.token })
+        }
+    }
+    
+    @Test
+    fun `should delete fully acknowledged segments`() {
+        SendOutbox(directory, segmentBytes = 1024).use { outbox ->
+            val payload = ByteArray(200) { 'x'.code.toByte() }
+            val threads = (0 until 4).map { worker ->
+                thread { repeat(10) { outbox.append("token-$worker-$it", "sms", payload) } }
+            }
+            threads.forEach { it.join() }
+            assertTrue(outbox.segmentCount > 5)
+            
+            outbox.pending().forEach { outbox.acknowledge(it.token) }
+            
+            assertEquals(1, outbox.segmentCount)
+            assertTrue(outbox.pending().isEmpty())
+        }
+        assertEquals(1, directory.listFiles()!!.size)
+        
+        SendOutbox(directory, segmentBytes = 1024).use { outbox ->
+            assertTrue(outbox.pending().isEmpty())
+        }
+    }
+    
+    @Test
+    fun `should ignore a torn record at the end of the journal`() {
+        SendOutbox(directory).use { outbox ->
+            outbox.append("token-1", "sms", "one".toByteArray())
+        }
+        val segment = directory.listFiles()!!.single()
+        RandomAccessFile(segment, "rw").use { file ->
+            // A length with a body that never made it to disk
+            val end = 8 + 1 + 2 + 7 + 2 + 3 + 3
+            file.seek(end.toLong())
+            file.writeInt(40)
+            file.writeInt(12345)
+        }
+        
+        SendOutbox(directory).use { outbox ->
+            assertEquals(listOf("token-1"), outbox.pending().map { it.token })
+            outbox.append("token-2", "sms", "two".toByteArray())
+        }
+        
+        SendOutbox(directory).use { outbox ->
+            assertEquals(listOf("token-1", "token-2"), outbox.pending().map { it.token })
+        }
+    }
+    
+    @Test
+    fun `should replay unacknowledged SMS sends with their original token`() {
+        val mockServer = MockWebServer()
+        mockServer.enqueue(MockResponse().setResponseCode(503).setBody("unavailable"))
+        mockServer.enqueue(MockResponse()
+            .setResponseCode(200)
+            .setBody("""{"id": "msg-1", "campaignId": "campaign-1"}""")
+            .addHeader("Content-Type", "application/json"))
+        mockServer.start()
+        
+        val config = CCAIConfig(clientId = "test-client", apiKey = "test-key")
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val client = CCAIClient(config)
+        
+        try {
+            SendOutbox(directory).use { outbox ->
+                val sender = DurableSMSSender(client.sms, outbox)
+                assertThrows(Exception::class.java) {
+                    sender.send(listOf(Account("John", "Doe", "+15551234567")), "Hello", "Durable")
+                }
+                assertEquals(1, outbox.pending().size)
+            }
+            
+            SendOutbox(directory).use { outbox ->
+                val result = DurableSMSSender(client.sms, outbox).replayPending()
+                
+                assertEquals(1, result.responses.size)
+                assertTrue(result.errors.isEmpty())
+                assertTrue(outbox.pending().isEmpty())
+            }
+            
+            val first = mockServer.takeRequest()
+            val replayed = mockServer.takeRequest()
+            assertNotNull(first.getHeader("Idempotency-Key"))
+            assertEquals(first.getHeader("Idempotency-Key"), replayed.getHeader("Idempotency-Key"))
+            assertEquals(first.body.readUtf8(), replayed.body.readUtf8())
+        } finally {
+            mockServer.shutdown()
+            client.close()
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.cloudcontactai.sdk.sender
+
+import com.cloudcontactai.sdk.CCAIClient
+import com.cloudcontactai.sdk.common.CCAIConfig
+import com.cloudcontactai.sdk.sms.Account
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
+
+class SenderPoolDispatcherTest {
+    
+    private lateinit var pool: SenderPoolDispatcher
+    
+    @BeforeEach
+    fun setup() {
+        pool = SenderPoolDispatcher(
+            listOf(SenderNumber("+15550000001", 100.0), SenderNumber("+15550000002", 50.0)),
+            windowMs = 100
+        )
+    }
+    
+    @AfterEach
+    fun tearDown() {
+        pool.close()
+    }
+    
+    @Test
+    fun `should split recipients in proportion to sender throughput`() {
+        val sendTimes = ConcurrentHashMap<String, CopyOnWriteArrayList<Pair<Long, Int>>>()
+        val recipients = (1..90).toList()
+        
+        val send = { batch: List<Int>, senderPhone: String ->
+            sendTimes.computeIfAbsent(senderPhone) { CopyOnWriteArrayList() }.add(System.nanoTime() to batch.size)
+            batch.size
+        }
+        // Load everything the send path touches first, so class loading cannot delay a timestamp
+        SenderPoolDispatcher(pool.senders).use { it.dispatch(listOf(0, 0), send).get(10, TimeUnit.SECONDS) }
+        sendTimes.clear()
+        
+        val result = pool.dispatch(recipients, send).get(10, TimeUnit.SECONDS)
+        
+        assertEquals(90, result.sentRecipients)
+        assertEquals(0, result.failedRecipients)
+        assertEquals(60, result.recipientsBySender["+15550000001"])
+        assertEquals(30, result.recipientsBySender["+15550000002"])
+        assertTrue(result.batches.filter { it.senderPhone == "+15550000001" }.all { it.recipientCount <= 10 })
+        assertTrue(result.batches.filter { it.senderPhone == "+15550000002" }.all { it.recipientCount <= 5 })
+        
+        // Each batch must wait for the previous one on the same number to drain at its rate
+        val rates = mapOf("+15550000001" to 100.0, "+15550000002" to 50.0)
+        sendTimes.forEach { (phone, sends) ->
+            sends.sortBy { it.first }
+            sends.zipWithNext().forEach { (previous, next) ->
+                val gapMs = (next.first - previous.first) / 1_000_000.0
+                val requiredMs = previous.second * 1000.0 / rates.getValue(phone)
+                assertTrue(gapMs >= requiredMs - 15, "gap $gapMs ms below $requiredMs ms for $phone")
+            }
+        }
+    }
+    
+    @Test
+    fun `should keep spacing when a release is late`() {
+        val sendTimes = CopyOnWriteArrayList<Long>()
+        val slowPool = SenderPoolDispatcher(listOf(SenderNumber("+15550000003", 10.0)), windowMs = 100)
+        
+        try {
+            slowPool.dispatch((1..3).toList()) { batch, _ ->
+                sendTimes.add(System.nanoTime())
+                // A slow send holds up the lane, so the next batch is released after its planned slot
+                if (sendTimes.size == 1) Thread.sleep(150)
+                batch.size
+            }.get(10, TimeUnit.SECONDS)
+        } finally {
+            slowPool.close()
+        }
+        
+        val gapsMs = sendTimes.zipWithNext { previous, next -> (next - previous) / 1_000_000.0 }
+        assertTrue(gapsMs[0] >= 150, "first gap ${gapsMs[0]} ms")
+        assertTrue(gapsMs[1] >= 100 - 15, "gap ${gapsMs[1]} ms after a late release")
+    }
+    
+    @Test
+    fun `should fail pending batches when closed`() {
+        val future = pool.dispatch((1..90).toList()) { batch, _ -> batch.size }
+        Thread.sleep(50)
+        pool.close()
+        
+        val error = assertThrows(ExecutionException::class.java) { future.get(1, TimeUnit.SECONDS) }
+        assertEquals("Sender pool is closed", error.cause!!.message)
+        assertThrows(IllegalStateException::class.java) { pool.dispatch(listOf(1)) { batch, _ -> batch.size } }
+    }
+    
+    @Test
+    fun `should record failed batches without failing the dispatch`() {
+        val result = pool.dispatch((1..20).toList()) { batch, senderPhone ->
+            if (senderPhone == "+15550000002") throw IllegalStateException("carrier rejected")
+            batch.size
+        }.get(10, TimeUnit.SECONDS)
+        
+        assertEquals(20, result.sentRecipients + result.failedRecipients)
+        assertTrue(result.failedRecipients > 0)
+        assertEquals("carrier rejected", result.batches.first { !it.success }.error)
+    }
+    
+    @Test
+    fun `should send SMS through sender pool`() {
+        val mockServer = MockWebServer()
+        val senderPhones = CopyOnWriteArrayList<String>()
+        mockServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                val body = request.body.readUtf8()
+                senderPhones.add(Regex("\"senderPhone\":\"([^\"]+)\"").find(body)!!.groupValues[1])
+                return MockResponse()
+                    .setResponseCode(200)
+                    .setBody("""{"id": "msg-1", "campaignId": "campaign-1"}""")
+                    .addHeader("Content-Type", "application/json")
+            }
+        }
+        mockServer.start()
+        
+        val config = CCAIConfig(clientId = "test-client", apiKey = "test-key")
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val client = CCAIClient(config)
+        
+        try {
+            val accounts = (1..30).map { Account("First$it", "Last$it", "+1555100%04d".format(it)) }
+            val result = client.sms.send(accounts, "Hello", "Pool Campaign", pool)
+            
+            assertEquals(30, result.sentRecipients)
+            assertEquals(setOf("+15550000001", "+15550000002"), senderPhones.toSet())
+            assertEquals(result.batches.size, mockServer.requestCount)
+        } finally {
+            mockServer.shutdown()
+            client.close()
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.cloudcontactai.sdk.sms
+
+import com.cloudcontactai.sdk.CCAIClient
+import com.cloudcontactai.sdk.common.CCAIConfig
+import com.fasterxml.jackson.module.kotlin.jacksonObjectMapper
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.io.ByteArrayOutputStream
+
+class RecipientBufferTest {
+    
+    private val objectMapper = jacksonObjectMapper()
+    
+    private val accounts = (1..2000).map {
+        Account(
+            firstName = "Zoë \"$it\"",
+            lastName = "Nguyễn\n$it",
+            phone = if (it % 2 == 0) "+1555%07d".format(it) else "4475%07d".format(it),
+            customFields = if (it % 3 == 0) mapOf("plan" to "gold-$it", "city" to "Zürich") else emptyMap(),
+            customData = if (it % 5 == 0) null else "order-$it 😀"
+        )
+    }
+    
+    @Test
+    fun `should serialize the same JSON as the account objects`() {
+        val buffer = RecipientBuffer(16)
+        accounts.forEach { buffer.add(it) }
+        
+        val output = ByteArrayOutputStream()
+        objectMapper.factory.createGenerator(output).use {
+            BufferedSMSCampaign(buffer, "Hi {firstName}", "Columnar", null).writeJson(it)
+        }
+        
+        val expected = objectMapper.valueToTree<com.fasterxml.jackson.databind.JsonNode>(
+            SMSCampaign(accounts, "Hi {firstName}", "Columnar", null)
+        )
+        assertEquals(expected, objectMapper.readTree(output.toByteArray()))
+        assertEquals(accounts.size, buffer.size)
+        assertTrue(buffer.offHeapBytes > 0)
+    }
+    
+    @Test
+    fun `should read recipients back from columns`() {
+        val buffer = RecipientBuffer(4)
+        accounts.take(10).forEach { buffer.add(it) }
+        
+        accounts.take(10).forEachIndexed { index, account ->
+            assertEquals(account.firstName, buffer.firstName(index))
+            assertEquals(account.lastName, buffer.lastName(index))
+            assertEquals(account.phone, buffer.phone(index))
+            assertEquals(account.customFields, buffer.customFields(index))
+            assertEquals(account.customData, buffer.customData(index))
+        }
+        assertThrows<IndexOutOfBoundsException> { buffer.firstName(10) }
+    }
+    
+    @Test
+    fun `should reject phones that cannot be packed`() {
+        val buffer = RecipientBuffer()
+        
+        assertThrows<IllegalArgumentException> { buffer.add("John", "Doe", "+1 555 123 4567") }
+        assertThrows<IllegalArgumentException> { buffer.add("John", "Doe", "05551234567") }
+        assertEquals(0, buffer.size)
+    }
+    
+    @Test
+    fun `should send campaign from recipient buffer`() {
+        val mockServer = MockWebServer()
+        mockServer.enqueue(MockResponse()
+            .setResponseCode(200)
+            .setBody("""{"id": "msg-1", "campaignId": "campaign-1"}""")
+            .addHeader("Content-Type", "application/json"))
+        mockServer.start()
+        
+        val config = CCAIConfig(clientId = "test-client", apiKey = "test-key")
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val client = CCAIClient(config)
+        
+        try {
+            val buffer = RecipientBuffer()
+            accounts.take(3).forEach { buffer.add(it) }
+            
+            val response = client.sms.send(buffer, "Hello", "Buffered", "+15550001111")
+            
+            assertEquals("campaign-1", response.campaignId)
+            val campaign = objectMapper.readValue(mockServer.takeRequest().body.readUtf8(), SMSCampaign::class.java)
+            assertEquals(accounts.take(3), campaign.accounts)
+            assertEquals("+15550001111", campaign.senderPhone)
+        } finally {
+            mockServer.shutdown()
+            client.close()
+        }
+    }
+}
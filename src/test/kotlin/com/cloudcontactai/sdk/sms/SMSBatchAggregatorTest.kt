@@ -0,0 +1,121 @@
+package com.cloudcontactai.sdk.sms
+
+import com.cloudcontactai.sdk.CCAIClient
+import com.cloudcontactai.sdk.common.CCAIConfig
+import com.fasterxml.jackson.module.kotlin.jacksonObjectMapper
+import okhttp3.mockwebserver.Dispatcher
+import okhttp3.mockwebserver.MockResponse
+import okhttp3.mockwebserver.MockWebServer
+import okhttp3.mockwebserver.RecordedRequest
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class SMSBatchAggregatorTest {
+    
+    private lateinit var mockServer: MockWebServer
+    private lateinit var client: CCAIClient
+    private val campaigns = CopyOnWriteArrayList<SMSCampaign>()
+    private val objectMapper = jacksonObjectMapper()
+    
+    @BeforeEach
+    fun setup() {
+        mockServer = MockWebServer()
+        val counter = AtomicInteger()
+        mockServer.dispatcher = object : Dispatcher() {
+            override fun dispatch(request: RecordedRequest): MockResponse {
+                campaigns.add(objectMapper.readValue(request.body.readUtf8(), SMSCampaign::class.java))
+                val id = counter.incrementAndGet()
+                return MockResponse()
+                    .setResponseCode(200)
+                    .setBody("""{"id": "msg-$id", "campaignId": "campaign-$id"}""")
+                    .addHeader("Content-Type", "application/json")
+            }
+        }
+        mockServer.start()
+        
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key"
+        )
+        
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        
+        client = CCAIClient(config)
+    }
+    
+    @AfterEach
+    fun tearDown() {
+        mockServer.shutdown()
+        client.close()
+    }
+    
+    @Test
+    fun `should merge single sends with the same message into one campaign`() {
+        val aggregator = SMSBatchAggregator(client.sms, windowMs = 100)
+        
+        val otpFutures = (1..5).map {
+            aggregator.sendSingle("First$it", "Last$it", "+1555000000$it", "Your code is ready", "OTP", customData = "order-$it")
+        }
+        val otherFuture = aggregator.sendSingle("Jane", "Doe", "+15559999999", "Different", "OTP")
+        
+        val otpResponses = otpFutures.map { it.get(5, TimeUnit.SECONDS) }
+        val otherResponse = otherFuture.get(5, TimeUnit.SECONDS)
+        aggregator.close()
+        
+        assertEquals(2, mockServer.requestCount)
+        assertEquals(1, otpResponses.map { it.campaignId }.toSet().size)
+        assertNotEquals(otpResponses.first().campaignId, otherResponse.campaignId)
+        
+        val merged = campaigns.first { it.message == "Your code is ready" }
+        assertEquals(5, merged.accounts.size)
+        assertEquals((1..5).map { "order-$it" }.toSet(), merged.accounts.map { it.customData }.toSet())
+    }
+    
+    @Test
+    fun `should flush as soon as the batch size limit is reached`() {
+        val aggregator = SMSBatchAggregator(client.sms, windowMs = 60000, maxBatchSize = 3)
+        
+        val futures = (1..3).map {
+            aggregator.sendSingle("First$it", "Last$it", "+1555000000$it", "Hello", "Batch", senderPhone = "+15550001111")
+        }
+        
+        futures.forEach { it.get(5, TimeUnit.SECONDS) }
+        assertEquals(1, mockServer.requestCount)
+        assertEquals("+15550001111", campaigns.single().senderPhone)
+        aggregator.close()
+    }
+    
+    @Test
+    fun `should send buffered recipients on close`() {
+        val aggregator = SMSBatchAggregator(client.sms, windowMs = 60000)
+        
+        val future = aggregator.sendSingle("John", "Doe", "+15551234567", "Hello", "Close")
+        aggregator.close()
+        
+        assertTrue(future.isDone)
+        assertEquals(1, mockServer.requestCount)
+    }
+    
+    @Test
+    fun `should complete every send when windows expire while closing`() {
+        repeat(20) { round ->
+            val aggregator = SMSBatchAggregator(client.sms, windowMs = 1)
+            val futures = (1..10).map {
+                aggregator.sendSingle("First$it", "Last$it", "+1555000000$it", "Message $it", "Round $round")
+            }
+            aggregator.close()
+            
+            futures.forEach { assertTrue(it.isDone) }
+            assertThrows(IllegalStateException::class.java) {
+                aggregator.sendSingle("Late", "Sender", "+15551234567", "Hello", "Late")
+            }
+        }
+    }
+}
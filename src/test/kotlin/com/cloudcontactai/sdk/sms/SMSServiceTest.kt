@@ -1,13 +1,19 @@
 package com.cloudcontactai.sdk.sms
 
 import com.cloudcontactai.sdk.CCAIClient
+import com.cloudcontactai.sdk.common.AdmissionOptions
+import com.cloudcontactai.sdk.common.ApiClient
 import com.cloudcontactai.sdk.common.CCAIConfig
+import com.cloudcontactai.sdk.common.CCAIException
+import okhttp3.OkHttpClient
 import okhttp3.mockwebserver.MockResponse
 import okhttp3.mockwebserver.MockWebServer
 import org.junit.jupiter.api.AfterEach
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import java.util.concurrent.ExecutionException
+import java.util.concurrent.TimeUnit
 
 class SMSServiceTest {
     
@@ -124,4 +130,167 @@ class SMSServiceTest {
         assertEquals("completed", status.status)
         assertEquals(10, status.sentMessages)
     }
+    
+    @Test
+    fun `should evict least recently used campaign statuses`() {
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key",
+            statusCacheTtlMs = 60000,
+            statusCacheMaxEntries = 2
+        )
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val cachingClient = CCAIClient(config)
+        
+        listOf("campaign-1", "campaign-2", "campaign-3", "campaign-1").forEach { id ->
+            mockServer.enqueue(MockResponse()
+                .setResponseCode(200)
+                .setBody("""{"id": "$id", "status": "completed", "totalMessages": 10, "sentMessages": 10}""")
+                .addHeader("Content-Type", "application/json"))
+        }
+        
+        cachingClient.sms.getCampaignStatus("campaign-1")
+        cachingClient.sms.getCampaignStatus("campaign-1")
+        cachingClient.sms.getCampaignStatus("campaign-2")
+        cachingClient.sms.getCampaignStatus("campaign-3")
+        val status = cachingClient.sms.getCampaignStatus("campaign-1")
+        
+        assertEquals("campaign-1", status.id)
+        assertEquals(4, mockServer.requestCount)
+        val stats = cachingClient.sms.statusCacheStats()!!
+        assertEquals(1, stats.hits)
+        assertEquals(4, stats.misses)
+        assertEquals(2, stats.evictions)
+        assertNull(client.sms.statusCacheStats())
+    }
+    
+    @Test
+    fun `should cache campaign status with longer TTL for terminal campaigns`() {
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key",
+            statusCacheTtlMs = 500,
+            statusCacheTerminalTtlMs = 60000
+        )
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val cachingClient = CCAIClient(config)
+        
+        listOf("sending" to 4, "completed" to 10, "sending" to 7).forEach { (status, sent) ->
+            val id = if (status == "completed") "campaign-done" else "campaign-active"
+            mockServer.enqueue(MockResponse()
+                .setResponseCode(200)
+                .setBody("""{"id": "$id", "status": "$status", "totalMessages": 10, "sentMessages": $sent}""")
+                .addHeader("Content-Type", "application/json"))
+        }
+        
+        assertEquals(4, cachingClient.sms.getCampaignStatus("campaign-active").sentMessages)
+        assertEquals("completed", cachingClient.sms.getCampaignStatus("campaign-done").status)
+        assertEquals(4, cachingClient.sms.getCampaignStatus("campaign-active").sentMessages)
+        assertEquals(2, mockServer.requestCount)
+        
+        Thread.sleep(600)
+        
+        assertEquals(7, cachingClient.sms.getCampaignStatus("campaign-active").sentMessages)
+        assertEquals("completed", cachingClient.sms.getCampaignStatus("campaign-done").status)
+        assertEquals(3, mockServer.requestCount)
+        val stats = cachingClient.sms.statusCacheStats()!!
+        assertEquals(2, stats.hits)
+        assertEquals(3, stats.misses)
+    }
+    
+    @Test
+    fun `should send personalized messages as one campaign per distinct body`() {
+        repeat(3) {
+            mockServer.enqueue(MockResponse()
+                .setResponseCode(200)
+                .setBody("""{"id": "msg-$it", "campaignId": "campaign-$it"}""")
+                .addHeader("Content-Type", "application/json"))
+        }
+        
+        val messages = listOf(
+            PersonalizedMessage(Account("John", "Doe", "+15551234567"), "Your table is ready"),
+            PersonalizedMessage(Account("Jane", "Smith", "+15559876543"), "Your order shipped"),
+            PersonalizedMessage(Account("Max", "Power", "+15550000001"), "Your table is ready"),
+            PersonalizedMessage(Account("Ann", "Lee", "+15550000002"), "Your table is ready")
+        )
+        
+        val result = client.sms.sendPersonalized(messages, "Personalized", maxBatchSize = 2, parallelism = 2)
+        
+        assertEquals(3, mockServer.requestCount)
+        assertEquals(2, result.distinctMessages)
+        assertTrue(result.batches.all { it.success })
+        assertEquals(listOf(listOf(0, 2), listOf(3), listOf(1)), result.batches.map { it.recipientIndexes })
+        val responses = result.responses
+        assertEquals(4, responses.size)
+        assertEquals(result.batches[0].response, responses[2])
+        assertEquals(result.batches[2].response, responses[1])
+        
+        val bodies = (1..3).map { mockServer.takeRequest().body.readUtf8() }
+        assertEquals(2, bodies.count { it.contains("Your table is ready") })
+    }
+    
+    @Test
+    fun `should send asynchronously within the admission budget`() {
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key",
+            admission = AdmissionOptions(maxInFlightRequests = 1)
+        )
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val admissionClient = CCAIClient(config)
+        
+        repeat(2) { i ->
+            mockServer.enqueue(MockResponse()
+                .setResponseCode(200)
+                .setBody("""{"id": "msg-$i"}""")
+                .addHeader("Content-Type", "application/json"))
+        }
+        
+        val accounts = listOf(Account("John", "Doe", "+15551234567"))
+        val first = admissionClient.sms.sendAsync(accounts, "Hello", "Async")
+        val second = admissionClient.sms.sendAsync(accounts, "Hello", "Async")
+        
+        val ids = setOf(first.get(5, TimeUnit.SECONDS).id, second.get(5, TimeUnit.SECONDS).id)
+        assertEquals(setOf("msg-0", "msg-1"), ids)
+        val stats = admissionClient.admissionStats()!!
+        assertEquals(2, stats.admitted)
+        assertEquals(0, stats.inFlightRequests)
+        assertEquals(0, stats.inFlightBytes)
+        admissionClient.close()
+    }
+    
+    @Test
+    fun `should release admission budget when the request executor is shut down`() {
+        val config = CCAIConfig(
+            clientId = "test-client",
+            apiKey = "test-key",
+            admission = AdmissionOptions(maxInFlightRequests = 1)
+        )
+        val baseUrlField = CCAIConfig::class.java.getDeclaredField("baseUrl")
+        baseUrlField.isAccessible = true
+        baseUrlField.set(config, mockServer.url("/").toString().trimEnd('/'))
+        val admissionClient = CCAIClient(config)
+        val apiClientField = CCAIClient::class.java.getDeclaredField("apiClient")
+        apiClientField.isAccessible = true
+        val httpClientField = ApiClient::class.java.getDeclaredField("client")
+        httpClientField.isAccessible = true
+        (httpClientField.get(apiClientField.get(admissionClient)) as OkHttpClient).dispatcher.executorService.shutdown()
+        
+        val accounts = listOf(Account("John", "Doe", "+15551234567"))
+        val error = assertThrows(ExecutionException::class.java) {
+            admissionClient.sms.sendAsync(accounts, "Hello", "Async").get(5, TimeUnit.SECONDS)
+        }
+        
+        assertTrue(error.cause is CCAIException)
+        val stats = admissionClient.admissionStats()!!
+        assertEquals(0, stats.inFlightRequests)
+        assertEquals(0, stats.inFlightBytes)
+        assertEquals(0, mockServer.requestCount)
+    }
 }
@@ -0,0 +1,57 @@
+package com.cloudcontactai.sdk.sms
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Test
+
+class SmsSegmentsTest {
+    
+    @Test
+    fun `should count GSM-7 segments with extension characters`() {
+        assertEquals(SmsSegmentInfo(SmsEncoding.GSM_7, 160, 1), SmsSegments.calculate("a".repeat(160)))
+        assertEquals(SmsSegmentInfo(SmsEncoding.GSM_7, 161, 2), SmsSegments.calculate("a".repeat(161)))
+        assertEquals(SmsSegmentInfo(SmsEncoding.GSM_7, 160, 1), SmsSegments.calculate("a".repeat(158) + "€"))
+        
+        // An extension character that would straddle a boundary moves to the next segment
+        val straddling = SmsSegments.calculate("a".repeat(152) + "{" + "a".repeat(152))
+        assertEquals(SmsEncoding.GSM_7, straddling.encoding)
+        assertEquals(306, straddling.units)
+        assertEquals(3, straddling.segments)
+        assertEquals(2, SmsSegments.segmentCount("a".repeat(153) + "{" + "a".repeat(151)))
+    }
+    
+    @Test
+    fun `should switch to UCS-2 and keep surrogate pairs together`() {
+        assertEquals(SmsSegmentInfo(SmsEncoding.UCS_2, 70, 1), SmsSegments.calculate("’" + "a".repeat(69)))
+        assertEquals(SmsSegmentInfo(SmsEncoding.UCS_2, 71, 2), SmsSegments.calculate("’" + "a".repeat(70)))
+        
+        val emoji = SmsSegments.calculate("a".repeat(66) + "😀" + "a".repeat(66))
+        assertEquals(134, emoji.units)
+        assertEquals(3, emoji.segments)
+        assertFalse(SmsSegments.isGsm7("😀"))
+    }
+    
+    @Test
+    fun `should transliterate smart punctuation to GSM-7 when it saves segments`() {
+        val message = "We’re open — “today” only…" + " Book now".repeat(10)
+        
+        val report = SmsSegments.transliterate(message)
+        
+        assertEquals("We're open - \"today\" only..." + " Book now".repeat(10), report.transliterated)
+        assertEquals(SmsEncoding.UCS_2, report.originalSegments.encoding)
+        assertEquals(2, report.originalSegments.segments)
+        assertEquals(SmsEncoding.GSM_7, report.transliteratedSegments.encoding)
+        assertEquals(1, report.transliteratedSegments.segments)
+        assertEquals(5, report.replacedCharacters)
+        assertTrue(report.applied)
+        assertEquals(1, report.savedSegmentsPerMessage)
+    }
+    
+    @Test
+    fun `should keep original message when transliteration cannot avoid UCS-2`() {
+        val report = SmsSegments.transliterate("Hello “friend” 😀")
+        
+        assertFalse(report.applied)
+        assertEquals("Hello “friend” 😀", report.message)
+        assertEquals(0, report.savedSegmentsPerMessage)
+    }
+}
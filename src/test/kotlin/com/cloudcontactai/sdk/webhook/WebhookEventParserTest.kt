@@ -0,0 +1,116 @@
+package com.cloudcontactai.sdk.webhook
+
+import com.cloudcontactai.sdk.CCAIClient
+import com.cloudcontactai.sdk.common.CCAIConfig
+import com.cloudcontactai.sdk.common.CCAIException
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Tag
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import java.lang.management.ManagementFactory
+
+class WebhookEventParserTest {
+    
+    private val parser = WebhookEventParser()
+    
+    private val sentPayload = """
+        {
+            "eventType": "sms.sent",
+            "data": {
+                "id": 12345,
+                "MessageStatus": "sent",
+                "To": "+15551234567",
+                "Message": "Héllo Wörld",
+                "CustomData": "order-123",
+                "CampaignId": 789,
+                "Segments": {"count": 2, "encoding": "UCS-2"}
+            },
+            "eventHash": "abc123def456ghi789jkl012mno345pq"
+        }
+    """.trimIndent()
+    
+    @Test
+    fun `should parse typed sms status events`() {
+        for (event in listOf(parser.parse(sentPayload), parser.parse(sentPayload.toByteArray()))) {
+            assertTrue(event is SmsSentEvent)
+            event as SmsSentEvent
+            assertEquals("sms.sent", event.eventType)
+            assertEquals("abc123def456ghi789jkl012mno345pq", event.eventHash)
+            assertEquals(12345L, event.messageId)
+            assertEquals(789L, event.campaignId)
+            assertEquals("sent", event.messageStatus)
+            assertEquals("+15551234567", event.to)
+            assertEquals("Héllo Wörld", event.message)
+            assertEquals("order-123", event.customData)
+            assertEquals(mapOf("count" to 2, "encoding" to "UCS-2"), event.data.raw["Segments"])
+            assertEquals("Héllo Wörld", event.data.raw["Message"])
+        }
+    }
+    
+    @Test
+    fun `should dispatch on event type in any field order`() {
+        fun payload(type: String, data: String) = """{"data": $data, "eventHash": "h", "eventType": "$type"}"""
+        
+        val failed = parser.parse(payload("sms.failed", """{"id": "7", "Error": "Carrier rejected", "CampaignId": null}"""))
+        assertTrue(failed is SmsFailedEvent)
+        assertEquals(7L, (failed as SmsFailedEvent).messageId)
+        assertEquals("Carrier rejected", failed.error)
+        assertNull(failed.campaignId)
+        
+        assertTrue(parser.parse(payload("sms.delivered", "{}")) is SmsDeliveredEvent)
+        
+        val reply = parser.parse(payload("sms.replied", """{"From": "+15550001111", "Message": "STOP please"}""")) as SmsReplyEvent
+        assertEquals("+15550001111", reply.from)
+        assertEquals("STOP please", reply.message)
+        
+        val optOut = parser.parse(payload("contact.unsubscribed", """{"From": "+15550001111"}""")) as OptOutEvent
+        assertEquals("+15550001111", optOut.phone)
+        
+        val opened = parser.parse(payload("email.opened", """{"Email": "jane@example.com", "Subject": "Hi", "CampaignId": 5}""")) as EmailEvent
+        assertEquals("opened", opened.status)
+        assertEquals("jane@example.com", opened.email)
+        assertEquals("Hi", opened.subject)
+        assertEquals(5L, opened.campaignId)
+        
+        val unknown = parser.parse(payload("contact.created", """{"Name": "Jane", "Tags": ["a", "b"]}"""))
+        assertTrue(unknown is UnknownWebhookEvent)
+        assertEquals(listOf("a", "b"), unknown.data.raw["Tags"])
+    }
+    
+    @Test
+    fun `should reject payloads without an event type`() {
+        assertThrows<CCAIException> { parser.parse("""{"data": {}}""") }
+        assertThrows<CCAIException> { parser.parse("[]") }
+        assertThrows<CCAIException> { parser.parse("""{"eventType": "sms.sent", "data": {""") }
+        assertTrue(parser.parse("""{"eventType": "sms.sent"}""").data.raw.isEmpty())
+    }
+    
+    @Test
+    @Tag("benchmark")
+    fun `benchmark throughput and allocation against parseWebhookEvent`() {
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        val allocation = threads != null && threads.isThreadAllocatedMemorySupported
+        val client = CCAIClient(CCAIConfig(clientId = "test-client", apiKey = "test-key"))
+        val bytes = sentPayload.toByteArray()
+        val events = 200000
+        
+        fun measure(name: String, parse: () -> Any) {
+            repeat(events) { parse() }
+            val threadId = Thread.currentThread().id
+            val before = if (allocation) threads!!.getThreadAllocatedBytes(threadId) else 0
+            val start = System.nanoTime()
+            repeat(events) { parse() }
+            val elapsed = System.nanoTime() - start
+            val allocated = if (allocation) "${(threads!!.getThreadAllocatedBytes(threadId) - before) / events} B" else "n/a"
+            println("WebhookEventParser $name: ${events * 1_000_000_000L / elapsed} events/s, $allocated allocated per event")
+        }
+        
+        try {
+            measure("parseWebhookEvent(String)") { client.webhook.parseWebhookEvent(sentPayload) }
+            measure("parseTypedEvent(String)") { client.webhook.parseTypedEvent(sentPayload) }
+            measure("parseTypedEvent(ByteArray)") { client.webhook.parseTypedEvent(bytes) }
+        } finally {
+            client.close()
+        }
+    }
+}
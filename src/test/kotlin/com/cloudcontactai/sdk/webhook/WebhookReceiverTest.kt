@@ -0,0 +1,181 @@
+package com.cloudcontactai.sdk.webhook
+
+import okhttp3.Call
+import okhttp3.ConnectionPool
+import okhttp3.EventListener
+import okhttp3.MediaType.Companion.toMediaType
+import okhttp3.OkHttpClient
+import okhttp3.Request
+import okhttp3.RequestBody.Companion.toRequestBody
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Tag
+import org.junit.jupiter.api.Test
+import java.net.InetSocketAddress
+import java.net.Proxy
+import java.util.concurrent.CopyOnWriteArrayList
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class WebhookReceiverTest {
+    
+    private val clientId = 12345L
+    private val verifier = WebhookVerifier("whsec_test_secret")
+    private val connectsStarted = AtomicInteger()
+    private val http = OkHttpClient.Builder()
+        .connectionPool(ConnectionPool(16, 1, TimeUnit.MINUTES))
+        .eventListener(object : EventListener() {
+            override fun connectStart(call: Call, inetSocketAddress: InetSocketAddress, proxy: Proxy) {
+                connectsStarted.incrementAndGet()
+            }
+        })
+        .build()
+    private var receiver: WebhookReceiver? = null
+    
+    @AfterEach
+    fun tearDown() {
+        receiver?.close()
+        http.connectionPool.evictAll()
+    }
+    
+    private fun payload(type: String, hash: String, data: String = """{"id": 1, "To": "+15551234567"}""") =
+        """{"eventType": "$type", "data": $data, "eventHash": "$hash"}"""
+    
+    private fun post(port: Int, body: String, signature: String?): Int {
+        val request = Request.Builder()
+            .url("http://127.0.0.1:$port/webhook")
+            .post(body.toRequestBody("application/json".toMediaType()))
+            .apply { if (signature != null) header("X-CCAI-Signature", signature) }
+            .build()
+        return http.newCall(request).execute().use { it.code }
+    }
+    
+    @Test
+    fun `should verify and dispatch events to typed handlers`() {
+        val sent = CopyOnWriteArrayList<SmsSentEvent>()
+        val statuses = CopyOnWriteArrayList<String>()
+        val server = WebhookReceiver(clientId, verifier, WebhookReceiverOptions(port = 0, maxBodyBytes = 512))
+            .on<SmsSentEvent> { sent.add(it) }
+            .on(SmsStatusEvent::class.java) { statuses.add(it.eventType) }
+            .on<SmsFailedEvent> { throw IllegalStateException("handler failed") }
+            .start()
+        receiver = server
+        val port = server.port
+        
+        assertEquals(200, post(port, payload("sms.sent", "h1"), verifier.sign(clientId, "h1")))
+        assertEquals(200, post(port, payload("sms.delivered", "h2"), verifier.sign(clientId, "h2")))
+        assertEquals(200, post(port, payload("contact.created", "h3"), verifier.sign(clientId, "h3")))
+        assertEquals(500, post(port, payload("sms.failed", "h4"), verifier.sign(clientId, "h4")))
+        assertEquals(401, post(port, payload("sms.sent", "h5"), null))
+        assertEquals(401, post(port, payload("sms.sent", "h6"), verifier.sign(clientId, "other")))
+        assertEquals(400, post(port, "{not json", verifier.sign(clientId, "h7")))
+        assertEquals(413, post(port, payload("sms.sent", "h8", """{"Message": "${"x".repeat(600)}"}"""), verifier.sign(clientId, "h8")))
+        val get = http.newCall(Request.Builder().url("http://127.0.0.1:$port/webhook").build()).execute().use { it.code }
+        assertEquals(405, get)
+        
+        assertEquals(listOf("+15551234567"), sent.map { it.to })
+        assertEquals(listOf("sms.sent", "sms.delivered", "sms.failed"), statuses)
+        val stats = server.stats()
+        assertEquals(9, stats.received)
+        assertEquals(3, stats.accepted)
+        assertEquals(1, stats.handlerErrors)
+        assertEquals(2, stats.invalidSignature)
+        assertEquals(1, stats.malformed)
+        assertEquals(1, stats.tooLarge)
+        assertEquals(1, stats.unhandled)
+        assertTrue(stats.bytesReceived > 0)
+    }
+    
+    @Test
+    fun `should serve a local load over reused connections`() {
+        val handled = AtomicInteger()
+        val server = WebhookReceiver(clientId, verifier, WebhookReceiverOptions(port = 0))
+            .on<TypedWebhookEvent> { handled.incrementAndGet() }
+            .start()
+        receiver = server
+        val senders = 8
+        val perSender = 250
+        val load = Executors.newFixedThreadPool(senders)
+        
+        try {
+            val results = (0 until senders).map { sender ->
+                load.submit<List<Int>> {
+                    (0 until perSender).map { i ->
+                        val hash = "event-$sender-$i"
+                        post(server.port, payload("sms.delivered", hash), verifier.sign(clientId, hash))
+                    }
+                }
+            }
+            assertTrue(results.flatMap { it.get(60, TimeUnit.SECONDS) }.all { it == 200 })
+        } finally {
+            load.shutdown()
+        }
+        
+        assertEquals(senders * perSender, handled.get())
+        assertEquals((senders * perSender).toLong(), server.stats().accepted)
+        // Each socket opened was reused for many requests and kept alive afterwards
+        assertTrue(connectsStarted.get() in 1..senders, "${connectsStarted.get()} connections opened")
+        assertTrue(http.connectionPool.idleConnectionCount() >= 1)
+    }
+    
+    @Test
+    @Tag("benchmark")
+    fun `benchmark throughput and latency under a local load`() {
+        val server = WebhookReceiver(clientId, verifier, WebhookReceiverOptions(port = 0))
+            .on<TypedWebhookEvent> { }
+            .start()
+        receiver = server
+        val senders = 8
+        val perSender = 5000
+        val load = Executors.newFixedThreadPool(senders)
+        
+        fun run(round: String): List<Long> {
+            val results = (0 until senders).map { sender ->
+                load.submit<List<Long>> {
+                    (0 until perSender).map { i ->
+                        val hash = "$round-$sender-$i"
+                        val start = System.nanoTime()
+                        assertEquals(200, post(server.port, payload("sms.delivered", hash), verifier.sign(clientId, hash)))
+                        System.nanoTime() - start
+                    }
+                }
+            }
+            return results.flatMap { it.get(5, TimeUnit.MINUTES) }
+        }
+        
+        try {
+            run("warmup")
+            val connectsBefore = connectsStarted.get()
+            val start = System.nanoTime()
+            val latencies = run("measured").sorted()
+            val elapsed = System.nanoTime() - start
+            fun percentile(p: Double) = latencies[((latencies.size - 1) * p).toInt()] / 1000
+            println(
+                "WebhookReceiver $senders senders: ${latencies.size * 1_000_000_000L / elapsed} requests/s, " +
+                    "latency p50 ${percentile(0.5)} us, p99 ${percentile(0.99)} us, max ${percentile(1.0)} us, " +
+                    "${connectsStarted.get() - connectsBefore} connections opened"
+            )
+        } finally {
+            load.shutdown()
+        }
+    }
+    
+    @Test
+    fun `should share verifier state across request threads`() {
+        val signatures = (1..100).map { verifier.sign(clientId, "h$it") }
+        // Worker threads 0 runs every request on a new virtual thread where the JVM has them
+        val server = WebhookReceiver(clientId, verifier, WebhookReceiverOptions(port = 0, workerThreads = 0))
+            .on<SmsSentEvent> { }
+            .start()
+        receiver = server
+        
+        signatures.forEachIndexed { i, signature ->
+            assertEquals(200, post(server.port, payload("sms.sent", "h${i + 1}"), signature))
+        }
+        
+        // Requests arrive one at a time, so a single Mac clone serves all of them
+        assertEquals(1, verifier.scratchCreated())
+        assertEquals(100, server.stats().accepted)
+    }
+}
@@ -106,6 +106,20 @@ class WebhookServiceEnhancedTest {
         assertEquals(signature1, signature2)
     }
     
+    @Test
+    fun `should keep verifiers for alternating secrets`() {
+        val current = webhookService.verifier("whsec_current")
+        val previous = webhookService.verifier("whsec_previous")
+        
+        repeat(3) {
+            assertSame(current, webhookService.verifier("whsec_current"))
+            assertSame(previous, webhookService.verifier("whsec_previous"))
+        }
+        val signature = previous.sign(42L, "hash")
+        assertFalse(webhookService.validateSignature(signature, "whsec_current", 42L, "hash"))
+        assertTrue(webhookService.validateSignature(signature, "whsec_previous", 42L, "hash"))
+    }
+    
     @Test
     fun `should create webhook`() {
         val responseJson = """
@@ -182,4 +196,12 @@ class WebhookServiceEnhancedTest {
         assertEquals("https://example.com/webhook", response.url)
         assertNull(response.secretKey)
     }
+    
+    @Test
+    fun `should need a numeric client id for a verifying receiver`() {
+        assertThrows(IllegalArgumentException::class.java) { webhookService.receiver("secret") }
+        webhookService.receiver(null, WebhookReceiverOptions(port = 0)).use { receiver ->
+            assertTrue(receiver.start().port > 0)
+        }
+    }
 }
@@ -0,0 +1,131 @@
+package com.cloudcontactai.sdk.webhook
+
+import org.junit.jupiter.api.Assertions.*
+import org.junit.jupiter.api.Assumptions.assumeTrue
+import org.junit.jupiter.api.Tag
+import org.junit.jupiter.api.Test
+import java.lang.management.ManagementFactory
+import java.util.Base64
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import javax.crypto.Mac
+import javax.crypto.spec.SecretKeySpec
+import kotlin.concurrent.thread
+
+class WebhookVerifierTest {
+    
+    private val secret = "whsec_test_secret"
+    
+    // The per-event implementation WebhookService used before WebhookVerifier
+    private fun legacySignature(secretKey: String, clientId: Long, eventHash: String): String {
+        val hmac = Mac.getInstance("HmacSHA256")
+        hmac.init(SecretKeySpec(secretKey.toByteArray(), "HmacSHA256"))
+        return Base64.getEncoder().encodeToString(hmac.doFinal("$clientId:$eventHash".toByteArray()))
+    }
+    
+    @Test
+    fun `should match signatures of the per-event implementation`() {
+        val verifier = WebhookVerifier(secret)
+        val hashes = listOf("", "abc123", "é-ü-中文", "emoji-😀", "unpaired-\uD83D-x", "x".repeat(500))
+        val clientIds = listOf(0L, 7L, 1234567890L, -42L, Long.MAX_VALUE, Long.MIN_VALUE)
+        
+        for (clientId in clientIds) {
+            for (hash in hashes) {
+                val expected = legacySignature(secret, clientId, hash)
+                assertEquals(expected, verifier.sign(clientId, hash), "$clientId:$hash")
+                assertTrue(verifier.verify(expected, clientId, hash), "$clientId:$hash")
+            }
+        }
+    }
+    
+    @Test
+    fun `should reject malformed and mismatching signatures`() {
+        val verifier = WebhookVerifier(secret)
+        val signature = verifier.sign(1, "hash")
+        // The last character before the padding carries two unused bits that must be zero
+        val alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+        val lastBitsSet = signature.substring(0, 42) + alphabet[alphabet.indexOf(signature[42]) or 1] + "="
+        
+        assertFalse(verifier.verify(signature, 2, "hash"))
+        assertFalse(verifier.verify(signature, 1, "other"))
+        assertFalse(WebhookVerifier("other").verify(signature, 1, "hash"))
+        assertFalse(verifier.verify("", 1, "hash"))
+        assertFalse(verifier.verify("invalid-signature-12345", 1, "hash"))
+        assertFalse(verifier.verify(signature.dropLast(1), 1, "hash"))
+        assertFalse(verifier.verify(signature.replace('=', 'A'), 1, "hash"))
+        assertFalse(verifier.verify("*" + signature.drop(1), 1, "hash"))
+        assertFalse(verifier.verify(lastBitsSet, 1, "hash"))
+    }
+    
+    @Test
+    fun `should verify from many threads`() {
+        val verifier = WebhookVerifier(secret)
+        val executor = Executors.newFixedThreadPool(8)
+        try {
+            val results = (0 until 2000).map { i ->
+                executor.submit<Boolean> {
+                    val hash = "event-$i"
+                    verifier.verify(legacySignature(secret, i.toLong(), hash), i.toLong(), hash) &&
+                        !verifier.verify(legacySignature(secret, i.toLong(), hash), i + 1L, hash)
+                }
+            }
+            assertTrue(results.all { it.get(10, TimeUnit.SECONDS) })
+        } finally {
+            executor.shutdown()
+        }
+    }
+    
+    @Test
+    fun `should reuse mac state when every check runs on a new thread`() {
+        val verifier = WebhookVerifier(secret)
+        val hash = "3f786850e387550fdab836ed7e6dc881de23001b"
+        val signature = legacySignature(secret, 1234, hash)
+        
+        // Like virtual threads, each thread checks a single event
+        val results = (0 until 200).map {
+            var valid = false
+            thread { valid = verifier.verify(signature, 1234, hash) }.join()
+            valid
+        }
+        
+        assertTrue(results.all { it })
+        assertEquals(1, verifier.scratchCreated())
+    }
+    
+    @Test
+    @Tag("benchmark")
+    fun `benchmark allocation and time per event against the per-event implementation`() {
+        val threads = ManagementFactory.getThreadMXBean() as? com.sun.management.ThreadMXBean
+        assumeTrue(threads != null && threads.isThreadAllocatedMemorySupported, "per-thread allocation counter not available")
+        val verifier = WebhookVerifier(secret)
+        val hash = "3f786850e387550fdab836ed7e6dc881de23001b"
+        val signature = legacySignature(secret, 1234, hash)
+        val events = 200000
+        
+        fun measure(name: String, check: () -> Boolean) {
+            repeat(events) { assertTrue(check()) }
+            val threadId = Thread.currentThread().id
+            val before = threads!!.getThreadAllocatedBytes(threadId)
+            val start = System.nanoTime()
+            repeat(events) { if (!check()) fail<Unit>("signature rejected") }
+            val elapsed = System.nanoTime() - start
+            val allocated = threads.getThreadAllocatedBytes(threadId) - before
+            println("WebhookVerifier $name: ${allocated / events} B allocated, ${elapsed / events} ns per event")
+        }
+        
+        measure("per-event mac") { legacySignature(secret, 1234, hash) == signature }
+        measure("verifier") { verifier.verify(signature, 1234, hash) }
+        
+        // One event per fresh thread, counting only the verify call
+        val allocated = LongArray(2000)
+        allocated.indices.forEach { i ->
+            thread {
+                val threadId = Thread.currentThread().id
+                val before = threads!!.getThreadAllocatedBytes(threadId)
+                assertTrue(verifier.verify(signature, 1234, hash))
+                allocated[i] = threads.getThreadAllocatedBytes(threadId) - before
+            }.join()
+        }
+        println("WebhookVerifier verifier on fresh threads: ${allocated.drop(1).average().toLong()} B allocated per event")
+    }
+}